@@ -0,0 +1,109 @@
+package liquidwars.bench;
+
+import liquidwars.HeadlessMatch;
+import liquidwars.ai.FreeCellIndex;
+import liquidwars.model.Particle;
+import liquidwars.model.World;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Inputs shared by the benchmarks, all deterministic so runs compare with a recorded baseline.
+ *
+ * Maps (the "map" @Param):
+ * - "1".."5": the bundled levels, as the game loads them
+ * - "large512", "large1024": synthetic square maps (border + random rectangular blocks, fixed
+ *   seed), to see how a change scales beyond the bundled ~160x100 levels
+ *
+ * Particles: 'density' percent of the free cells, energy 5. With 2 teams the left half is team 0
+ * and the right half team 1; with 4 teams one quadrant each (as App places them).
+ * Targets: each team aims at the middle of the opposite region, so every team crosses the map
+ * and meets the others.
+ */
+final class BenchMaps {
+
+    static final int ENERGY = 5;
+
+    private BenchMaps() { }
+
+    static boolean[][] walls(String map) throws IOException
+    {
+        return switch (map)
+        {
+            case "large512" -> synthetic(512, 512);
+            case "large1024" -> synthetic(1024, 1024);
+            default -> HeadlessMatch.loadMap(map);
+        };
+    }
+
+    // Border walls + random rectangles (sides up to 1/32 of the map) until ~15% of the cells are walls
+    private static boolean[][] synthetic(int w, int h)
+    {
+        boolean[][] walls = new boolean[h][w];
+        for (int x = 0; x < w; x++) walls[0][x] = walls[h - 1][x] = true;
+        for (int y = 0; y < h; y++) walls[y][0] = walls[y][w - 1] = true;
+
+        Random rnd = new Random(20240601L + w * 31L + h);
+        long wallCells = 2L * (w + h);
+        while (wallCells < w * (long) h * 15 / 100)
+        {
+            int bw = 2 + rnd.nextInt(w / 32);
+            int bh = 2 + rnd.nextInt(h / 32);
+            int x0 = 1 + rnd.nextInt(w - bw - 1);
+            int y0 = 1 + rnd.nextInt(h - bh - 1);
+            for (int y = y0; y < y0 + bh; y++)
+            {
+                for (int x = x0; x < x0 + bw; x++)
+                {
+                    if (!walls[y][x]) wallCells++;
+                    walls[y][x] = true;
+                }
+            }
+        }
+        return walls;
+    }
+
+    /** @return team of the region containing (x, y): halves for 2 teams, quadrants for 4 */
+    static int regionOf(int x, int y, int w, int h, int teams)
+    {
+        int right = (x >= w / 2) ? 1 : 0;
+        if (teams == 2) return right;
+        int bottom = (y >= h / 2) ? 1 : 0;
+        return bottom * 2 + right;
+    }
+
+    static World world(boolean[][] walls, int teams, int densityPercent)
+    {
+        int h = walls.length;
+        int w = walls[0].length;
+        Particle[][] particles = new Particle[h][w];
+        Random rnd = new Random(7L * teams + densityPercent);
+        for (int y = 0; y < h; y++)
+        {
+            for (int x = 0; x < w; x++)
+            {
+                if (walls[y][x] || rnd.nextInt(100) >= densityPercent) continue;
+                particles[y][x] = new Particle(regionOf(x, y, w, h, teams), ENERGY);
+            }
+        }
+        return new World(walls, particles);
+    }
+
+    /** @return target cell (y * w + x) of each team: centre of the diagonally opposite region, snapped to a free cell */
+    static int[] targets(boolean[][] walls, int teams)
+    {
+        int h = walls.length;
+        int w = walls[0].length;
+        FreeCellIndex free = new FreeCellIndex(walls);
+        int[] cells = new int[teams];
+        for (int t = 0; t < teams; t++)
+        {
+            int opposite = (teams == 2) ? 1 - t : 3 - t;
+            int cx = (opposite % 2 == 0) ? w / 4 : 3 * w / 4;
+            int cy = (teams == 2) ? h / 2 : ((opposite / 2 == 0) ? h / 4 : 3 * h / 4);
+            cells[t] = free.nearestFree(cx, cy);
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,171 @@
+package liquidwars.bench;
+
+import liquidwars.algo.BitboardGradientComputer;
+import liquidwars.algo.GradientComputer;
+import liquidwars.algo.MeshGradientComputer;
+import liquidwars.algo.SlicedGradients;
+import liquidwars.algo.ZoneGradientComputer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full-map gradient on the bundled maps and the synthetic large ones (see BenchMaps):
+ * - legacy      = original BFS (Pos records, ArrayDeque, new dist array)
+ * - compute     = current BFS, still allocating the dist array
+ * - computeInto = current BFS into a reused dist array (the tick-loop path)
+ * - mesh / meshInto = the same two for the 8-neighbour MeshGradientComputer
+ * - bitboardInto = computeInto on BitboardGradientComputer (same field, bit-parallel layers)
+ * - computeIntoDense / bitboardIntoDense = both BFS with one target every 64 free cells, where
+ *   the frontiers are dense enough for the bitboard to pay off
+ * - zoneSolve / zoneInto = ZoneGradientComputer: zone level only, then with every cell expanded
+ *   (the mesh itself is built once, during warmup)
+ * - slicedTick = one SlicedGradients update with a budget of SLICE_BUDGET cell visits, the target
+ *   jumping between two cells every SLICE_MOVE_EVERY calls: should cost the same on every map
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GradientBenchmark {
+
+    private static final int SLICE_BUDGET = 2048;
+    private static final int SLICE_MOVE_EVERY = 8;
+
+    @Param({ "1", "2", "3", "4", "5", "large512", "large1024" })
+    public String map;
+
+    private boolean[][] walls;
+    private int[][] dist;
+    private int[] targetCell;
+    private int[] denseTargets;
+    private List<GradientComputer.Pos> targets;
+    private List<LegacyGradientComputer.Pos> legacyTargets;
+    private List<MeshGradientComputer.Pos> meshTargets;
+
+    private final GradientComputer gradientComputer = new GradientComputer();
+    private final LegacyGradientComputer legacy = new LegacyGradientComputer();
+    private final MeshGradientComputer meshComputer = new MeshGradientComputer();
+    private final BitboardGradientComputer bitboard = new BitboardGradientComputer();
+    private final ZoneGradientComputer zones = new ZoneGradientComputer();
+    private final SlicedGradients sliced = new SlicedGradients(1, SLICE_BUDGET);
+    private final int[] slicedTarget = new int[1];
+    private int[] slicedCells;
+    private int slicedCalls;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        walls = BenchMaps.walls(map);
+        int h = walls.length;
+        int w = walls[0].length;
+        dist = new int[h][w];
+
+        // Target = first free cell scanning from the middle of the map
+        int start = (h / 2) * w + w / 2;
+        int cell = start;
+        while (walls[cell / w][cell % w]) cell = (cell + 1) % (w * h);
+
+        targetCell = new int[] { cell };
+        targets = List.of(new GradientComputer.Pos(cell % w, cell / w));
+        legacyTargets = List.of(new LegacyGradientComputer.Pos(cell % w, cell / w));
+        meshTargets = List.of(new MeshGradientComputer.Pos(cell % w, cell / w));
+
+        int free = 0;
+        for (boolean[] row : walls)
+        {
+            for (boolean wall : row) if (!wall) free++;
+        }
+        slicedCells = new int[] { cell, BenchMaps.targets(walls, 2)[0] };
+
+        denseTargets = new int[(free + 63) / 64];
+        int n = 0;
+        int seen = 0;
+        for (int c = 0; c < w * h; c++)
+        {
+            if (!walls[c / w][c % w] && seen++ % 64 == 0) denseTargets[n++] = c;
+        }
+    }
+
+    @Benchmark
+    public int[][] legacy()
+    {
+        return legacy.compute(walls, legacyTargets);
+    }
+
+    @Benchmark
+    public int[][] compute()
+    {
+        return gradientComputer.compute(walls, targets);
+    }
+
+    @Benchmark
+    public int[][] computeInto()
+    {
+        gradientComputer.computeInto(walls, targetCell, dist);
+        return dist;
+    }
+
+    @Benchmark
+    public int[][] mesh()
+    {
+        return meshComputer.compute(walls, meshTargets);
+    }
+
+    @Benchmark
+    public int[][] meshInto()
+    {
+        meshComputer.computeInto(walls, targetCell, dist);
+        return dist;
+    }
+
+    @Benchmark
+    public int[][] bitboardInto()
+    {
+        bitboard.computeInto(walls, targetCell, dist);
+        return dist;
+    }
+
+    @Benchmark
+    public int[][] computeIntoDense()
+    {
+        gradientComputer.computeInto(walls, denseTargets, dist);
+        return dist;
+    }
+
+    @Benchmark
+    public int[][] bitboardIntoDense()
+    {
+        bitboard.computeInto(walls, denseTargets, dist);
+        return dist;
+    }
+
+    @Benchmark
+    public ZoneGradientComputer zoneSolve()
+    {
+        zones.solve(walls, targetCell);
+        return zones;
+    }
+
+    @Benchmark
+    public int[][] zoneInto()
+    {
+        zones.computeInto(walls, targetCell, dist);
+        return dist;
+    }
+
+    @Benchmark
+    public int[][][] slicedTick()
+    {
+        slicedTarget[0] = slicedCells[(slicedCalls++ / SLICE_MOVE_EVERY) & 1];
+        return sliced.update(walls, slicedTarget);
+    }
+}
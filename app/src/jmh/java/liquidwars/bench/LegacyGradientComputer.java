@@ -0,0 +1,81 @@
+package liquidwars.bench;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Baseline for GradientBenchmark: the original GradientComputer BFS
+ * (new int[h][w] + ArrayDeque of Pos records per call), kept unchanged
+ * so the speedup of the allocation-free version stays measurable.
+ */
+final class LegacyGradientComputer {
+    static final int INF = 1_000_000_000;
+
+    record Pos(int x, int y) {}
+
+    int[][] compute(boolean[][] obstacles, List<Pos> targets)
+    {
+        int h = obstacles.length;
+        int w = obstacles[0].length;
+
+        int[][] dist = new int[h][w];
+        for (int y = 0; y < h; y++)
+        {
+            for (int x = 0; x < w; x++)
+            {
+                dist[y][x] = INF;
+            }
+        }
+
+        Deque<Pos> q = new ArrayDeque<>();
+        for (Pos t : targets)
+        {
+            if (inBounds(t.x, t.y, w, h) && !obstacles[t.y][t.x])
+            {
+                dist[t.y][t.x] = 0;
+                q.addLast(t);
+            }
+        }
+
+        int[] dx = {1, -1, 0, 0};
+        int[] dy = {0, 0, 1, -1};
+
+        while (!q.isEmpty())
+        {
+            Pos cur = q.removeFirst();
+            int base = dist[cur.y][cur.x];
+
+            for (int i = 0; i < 4; i++)
+            {
+                int nx = cur.x + dx[i];
+                int ny = cur.y + dy[i];
+
+                if (!inBounds(nx, ny, w, h)) continue;
+                if (obstacles[ny][nx]) continue;
+
+                int nd = base + 1;
+                if (nd < dist[ny][nx])
+                {
+                    dist[ny][nx] = nd;
+                    q.addLast(new Pos(nx, ny));
+                }
+            }
+        }
+
+        for (int y = 0; y < h; y++)
+        {
+            for (int x = 0; x < w; x++)
+            {
+                if (obstacles[y][x]) dist[y][x] = INF;
+            }
+        }
+
+        return dist;
+    }
+
+    private boolean inBounds(int x, int y, int w, int h)
+    {
+        return x >= 0 && x < w && y >= 0 && y < h;
+    }
+}
@@ -0,0 +1,31 @@
+package liquidwars.bench;
+
+import liquidwars.LevelLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a bundled level: PNG decoding + wall detection (LevelLoader.loadWallsFromResourceAnySize).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LevelLoaderBenchmark {
+
+    @Param({ "1", "2", "3", "4", "5" })
+    public int map;
+
+    @Benchmark
+    public boolean[][] load() throws IOException
+    {
+        return LevelLoader.loadWallsFromResourceAnySize("/levels/map" + map + ".png");
+    }
+}
@@ -0,0 +1,101 @@
+package liquidwars.bench;
+
+import liquidwars.algo.GradientComputer;
+import liquidwars.model.World;
+import liquidwars.sim.PackedStepSimulator;
+import liquidwars.ui.WorldRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The game panels' buffer rendering, off-screen (see BenchMaps for the inputs):
+ * - renderFull    = WorldRenderer.render, the full redraw (first frame, skipped frames)
+ * - renderChanged = markChanged + update for the change log of one tick (the usual frame)
+ * - blit          = the scaled drawImage of paintComponent (6 px per cell as in App, less on
+ *                   the large maps to stay at most ~1920 px wide)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderBenchmark {
+
+    @Param({ "1", "2", "3", "4", "5", "large512", "large1024" })
+    public String map;
+
+    @Param({ "2", "4" })
+    public int teams;
+
+    /** Percent of the free cells holding a particle. */
+    @Param({ "10", "30", "60" })
+    public int density;
+
+    private World frame;
+    private WorldRenderer renderer;
+    private BufferedImage screen;
+    private Graphics2D g2;
+    private int redrawnCells;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        System.setProperty("java.awt.headless", "true");
+        boolean[][] walls = BenchMaps.walls(map);
+        World start = BenchMaps.world(walls, teams, density);
+
+        // One tick, so 'frame' carries a real change log
+        int[] targets = BenchMaps.targets(walls, teams);
+        int[][][] gradients = new int[teams][walls.length][walls[0].length];
+        GradientComputer computer = new GradientComputer();
+        for (int t = 0; t < teams; t++) computer.computeInto(walls, new int[] { targets[t] }, gradients[t]);
+        frame = start.copy();
+        frame.clearChanges();
+        new PackedStepSimulator().stepInto(start, frame, gradients);
+
+        renderer = new WorldRenderer(frame);
+        renderer.render(start);
+
+        int scale = Math.max(1, Math.min(6, 1920 / frame.width()));
+        screen = new BufferedImage(frame.width() * scale, frame.height() * scale, BufferedImage.TYPE_INT_RGB);
+        g2 = screen.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage renderFull()
+    {
+        renderer.render(frame);
+        return renderer.image();
+    }
+
+    @Benchmark
+    public int renderChanged()
+    {
+        renderer.markChanged(frame);
+        renderer.update(frame, (x, y, w, h) -> redrawnCells += w * h);
+        return redrawnCells;
+    }
+
+    @Benchmark
+    public BufferedImage blit()
+    {
+        g2.drawImage(renderer.image(), 0, 0, screen.getWidth(), screen.getHeight(), null);
+        return screen;
+    }
+}
@@ -0,0 +1,128 @@
+package liquidwars.bench;
+
+import liquidwars.algo.GradientComputer;
+import liquidwars.model.World;
+import liquidwars.sim.PackedStepSimulator;
+import liquidwars.sim.ParallelStepSimulator;
+import liquidwars.sim.StepSimulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulation tick from the same starting world every time (see BenchMaps for the inputs):
+ * - step           = StepSimulator.step, the reference engine (copies the world, then steps)
+ * - packedStep     = PackedStepSimulator.step, same contract
+ * - packedStepInto = what the controllers run: reset the back buffer (World.copyFrom, measured
+ *                    alone in WorldBenchmark.copyFrom) then stepInto with gradients by team id
+ * - parallelStepInto = the same with ParallelStepSimulator, for each thread count and band height
+ *                    (Parallel state): compare threads = 1 with packedStepInto, then the scaling,
+ *                    e.g. -p map=large1024 -p density=60
+ * The gradients are computed once in setUp: this measures the step alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StepBenchmark {
+
+    @Param({ "1", "2", "3", "4", "5", "large512", "large1024" })
+    public String map;
+
+    @Param({ "2", "4" })
+    public int teams;
+
+    /** Percent of the free cells holding a particle. */
+    @Param({ "10", "30", "60" })
+    public int density;
+
+    private World start;
+    private World next;
+    private int[][][] gradients;
+    private final Map<Integer, int[][]> gradientMap = new HashMap<>();
+
+    private final StepSimulator reference = new StepSimulator();
+    private final PackedStepSimulator packed = new PackedStepSimulator();
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        boolean[][] walls = BenchMaps.walls(map);
+        start = BenchMaps.world(walls, teams, density);
+        start.clearChanges();
+        next = start.copy();
+
+        int[] targets = BenchMaps.targets(walls, teams);
+        GradientComputer computer = new GradientComputer();
+        gradients = new int[teams][walls.length][walls[0].length];
+        for (int t = 0; t < teams; t++)
+        {
+            computer.computeInto(walls, new int[] { targets[t] }, gradients[t]);
+            gradientMap.put(t, gradients[t]);
+        }
+    }
+
+    @Benchmark
+    public World step()
+    {
+        return reference.step(start, gradientMap);
+    }
+
+    @Benchmark
+    public World packedStep()
+    {
+        return packed.step(start, gradientMap);
+    }
+
+    @Benchmark
+    public World packedStepInto()
+    {
+        next.copyFrom(start);
+        packed.stepInto(start, next, gradients);
+        return next;
+    }
+
+    @Benchmark
+    public World parallelStepInto(Parallel p)
+    {
+        next.copyFrom(start);
+        p.simulator.stepInto(start, next, gradients);
+        return next;
+    }
+
+    /** Engine of parallelStepInto: only that benchmark runs once per (threads, bandRows). */
+    @State(Scope.Thread)
+    public static class Parallel {
+
+        @Param({ "1", "2", "4", "8" })
+        public int threads;
+
+        /** Rows per band, 0 = automatic (a few bands per thread). */
+        @Param({ "0", "8", "32" })
+        public int bandRows;
+
+        private ParallelStepSimulator simulator;
+
+        @Setup
+        public void setUp()
+        {
+            simulator = new ParallelStepSimulator(threads, bandRows);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            simulator.shutdown();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package liquidwars.bench;
+
+import liquidwars.model.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-world copies (see BenchMaps for the inputs):
+ * - copy     = World.copy(), a new instance (what StepSimulator.step pays)
+ * - copyFrom = bulk copy into an existing world (frame snapshots, back buffer resets)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldBenchmark {
+
+    @Param({ "1", "2", "3", "4", "5", "large512", "large1024" })
+    public String map;
+
+    @Param({ "2", "4" })
+    public int teams;
+
+    /** Percent of the free cells holding a particle. */
+    @Param({ "10", "30", "60" })
+    public int density;
+
+    private World world;
+    private World target;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        world = BenchMaps.world(BenchMaps.walls(map), teams, density);
+        world.clearChanges();
+        target = world.copy();
+    }
+
+    @Benchmark
+    public World copy()
+    {
+        return world.copy();
+    }
+
+    @Benchmark
+    public World copyFrom()
+    {
+        target.copyFrom(world);
+        return target;
+    }
+}
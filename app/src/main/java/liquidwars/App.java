@@ -1,5 +1,6 @@
 package liquidwars;
 
+import liquidwars.algo.TeamGradients;
 import liquidwars.model.Particle;
 import liquidwars.model.World;
 import liquidwars.ui.GameController;
@@ -9,11 +10,13 @@ import liquidwars.ui.MapSelectScreen;
 import liquidwars.ui.AboutScreen;
 import liquidwars.ui.MultiplayerGameController;
 import liquidwars.ui.MultiplayerGamePanel;
+import liquidwars.ai.FreeCellIndex;
 import liquidwars.ai.OpponentAI;
 import liquidwars.ai.OpponentManager;
 import liquidwars.ai.MultiplayerAIManager; 
 
 import java.io.IOException;
+import java.util.Random;
 
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
@@ -32,11 +35,36 @@ public class App {
     
     // Store currently selected map (persists across screen navigation)
     private static int selectedMapNumber = 1;
+
+    // Engines of the controllers: ./gradlew run --args="--gradient bitboard --simulator parallel:4"
+    private static Engine engine = Engine.DEFAULT;
     
     public static void main(String[] args)
     {
+        engine = engineFromArgs(args);
         SwingUtilities.invokeLater(() -> showHomeScreen());
     }
+
+    /**
+     * --gradient G and --simulator S, with the same values as HeadlessRunner (see Engine);
+     * no option = Engine.DEFAULT.
+     */
+    static Engine engineFromArgs(String[] args)
+    {
+        String gradient = null;
+        String simulator = null;
+        for (int i = 0; i < args.length; i += 2)
+        {
+            if (i + 1 >= args.length) throw new IllegalArgumentException(args[i] + " needs a value");
+            switch (args[i])
+            {
+                case "--gradient" -> gradient = args[i + 1];
+                case "--simulator" -> simulator = args[i + 1];
+                default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+        }
+        return Engine.parse(gradient, simulator);
+    }
     
     private static void showHomeScreen()
     {
@@ -77,7 +105,7 @@ public class App {
         // - current world state
         // - mouse targets per team
         // - per-frame tick: gradient computation + step simulation
-        GameController controller = new GameController(world, walls, w, h);
+        GameController controller = engine.twoTeamController(world, walls, TeamGradients.defaultThreads(2));
 
         // Panel does:
         // - rendering
@@ -96,11 +124,12 @@ public class App {
         // Center the window screen
         frame.setLocationRelativeTo(null);
 
-        // Start a simple opponent manager that mirrors the player and randomizes occasionally
+        // A simple opponent that mirrors the player and randomizes occasionally, run by the simulation
+        // between ticks on its clock (like HeadlessMatch), so it follows the game speed
         if (aiEnabled) {
-            OpponentAI opponentAI = new OpponentAI(walls);
+            OpponentAI opponentAI = new OpponentAI(new FreeCellIndex(walls), panel.simulationClock());
             OpponentManager opponentManager = new OpponentManager(controller, opponentAI);
-            opponentManager.start();
+            panel.setBots(HeadlessMatch.AI_EVERY_TICKS, opponentManager::updateOnce);
         }
 
         // Start the simulation loop (timer)
@@ -173,7 +202,7 @@ public class App {
 
         World world = new World(walls, parts);
 
-        MultiplayerGameController controller = new MultiplayerGameController(world, walls, w, h);
+        MultiplayerGameController controller = engine.fourTeamController(world, walls, TeamGradients.defaultThreads(4));
 
         MultiplayerGamePanel panel = new MultiplayerGamePanel(controller, w, h, 6);
         panel.setLeaveAction(e -> returnToHomeMultiplayer(frame, panel));
@@ -184,9 +213,10 @@ public class App {
         frame.pack();
         frame.setLocationRelativeTo(null);
 
-        // Start AI for bot teams (1, 2, 3)
-        MultiplayerAIManager aiManager = new MultiplayerAIManager(controller, walls, w, h);
-        aiManager.start();
+        // AI for bot teams (1, 2, 3), sharing one index of the map's free cells, run by the simulation
+        MultiplayerAIManager aiManager = new MultiplayerAIManager(controller, new FreeCellIndex(walls),
+                new Random(), panel.simulationClock());
+        panel.setBots(HeadlessMatch.AI_EVERY_TICKS, aiManager::updateOnce);
 
         // Start simulation
         panel.startLoop();
@@ -205,7 +235,7 @@ public class App {
      * - Team 1 mostly right
      * - Equal particle counts for both teams
      */
-    private static Particle[][] makeInitialParticles(int w, int h, boolean[][] walls)
+    static Particle[][] makeInitialParticles(int w, int h, boolean[][] walls)
     {
         Particle[][] parts = new Particle[h][w];
         
@@ -257,7 +287,7 @@ public class App {
      * - Team 2 (green): bottom-left
      * - Team 3 (yellow): bottom-right
      */
-    private static Particle[][] makeMultiplayerParticles(int w, int h, boolean[][] walls) {
+    static Particle[][] makeMultiplayerParticles(int w, int h, boolean[][] walls) {
         Particle[][] parts = new Particle[h][w];
         
         java.util.List<int[]> team0Positions = new java.util.ArrayList<>();
@@ -0,0 +1,160 @@
+package liquidwars;
+
+import liquidwars.algo.BitboardGradientComputer;
+import liquidwars.algo.GradientComputer;
+import liquidwars.algo.GradientSolver;
+import liquidwars.algo.MeshGradientComputer;
+import liquidwars.algo.ZoneGradientComputer;
+import liquidwars.model.World;
+import liquidwars.sim.PackedStepSimulator;
+import liquidwars.sim.ParallelStepSimulator;
+import liquidwars.sim.Simulator;
+import liquidwars.ui.GameController;
+import liquidwars.ui.MultiplayerGameController;
+
+import java.util.function.Supplier;
+
+/**
+ * Engines of a match: where the controllers get their gradient fields and which simulator steps,
+ * so matches can be compared engine against engine (HeadlessRunner --gradient / --simulator).
+ *
+ * Gradient, as written on the command line:
+ *   bfs           GradientComputer (default)
+ *   mesh          MeshGradientComputer (8 directions, weighted)
+ *   bitboard      BitboardGradientComputer (same fields as bfs)
+ *   zones         ZoneGradientComputer (zone mesh, upper bound of bfs)
+ *   budget:N      SlicedGradients, N cell visits per tick
+ *   pipelined:S   PipelinedGradients over bfs, fields at most S ticks old
+ * Simulator:
+ *   packed        PackedStepSimulator (default)
+ *   parallel:T    ParallelStepSimulator with T threads, automatic band height
+ *   parallel:T:R  the same with R rows per band
+ *
+ * Each controller built here gets its own engine instances; its shutdown() stops their threads.
+ *
+ * @param gradientParam visits per tick (BUDGET) or max staleness (PIPELINED), 0 otherwise
+ * @param stepThreads threads of PARALLEL, 1 for PACKED
+ * @param bandRows rows per band of PARALLEL, 0 = automatic
+ */
+public record Engine(Gradient gradient, int gradientParam, Step step, int stepThreads, int bandRows)
+{
+    public enum Gradient { BFS, MESH, BITBOARD, ZONES, BUDGET, PIPELINED }
+
+    public enum Step { PACKED, PARALLEL }
+
+    /** What App and Tournament play with: BFS fields and PackedStepSimulator. */
+    public static final Engine DEFAULT = new Engine(Gradient.BFS, 0, Step.PACKED, 1, 0);
+
+    public Engine
+    {
+        if (gradient == null || step == null) throw new IllegalArgumentException("gradient and step must not be null");
+        if (gradient == Gradient.BUDGET && gradientParam <= 0) throw new IllegalArgumentException("budget must be positive");
+        if (gradient == Gradient.PIPELINED && gradientParam < 0) throw new IllegalArgumentException("staleness must be >= 0");
+        if (stepThreads <= 0) throw new IllegalArgumentException("simulator threads must be positive");
+        if (bandRows < 0) throw new IllegalArgumentException("band rows must be >= 0");
+    }
+
+    /**
+     * @param gradient bfs, mesh, bitboard, zones, budget:N or pipelined:S (null = bfs)
+     * @param simulator packed, parallel:T or parallel:T:R (null = packed)
+     */
+    public static Engine parse(String gradient, String simulator)
+    {
+        Gradient g = Gradient.BFS;
+        int gradientParam = 0;
+        if (gradient != null)
+        {
+            String[] parts = gradient.split(":");
+            g = switch (parts[0])
+            {
+                case "bfs" -> Gradient.BFS;
+                case "mesh" -> Gradient.MESH;
+                case "bitboard" -> Gradient.BITBOARD;
+                case "zones" -> Gradient.ZONES;
+                case "budget" -> Gradient.BUDGET;
+                case "pipelined" -> Gradient.PIPELINED;
+                default -> throw new IllegalArgumentException("unknown gradient engine: " + gradient);
+            };
+            boolean takesValue = (g == Gradient.BUDGET || g == Gradient.PIPELINED);
+            if (parts.length != (takesValue ? 2 : 1)) throw new IllegalArgumentException("bad gradient engine: " + gradient);
+            if (takesValue) gradientParam = Integer.parseInt(parts[1]);
+        }
+
+        Step s = Step.PACKED;
+        int threads = 1;
+        int bandRows = 0;
+        if (simulator != null)
+        {
+            String[] parts = simulator.split(":");
+            if (parts[0].equals("packed") && parts.length == 1)
+            {
+                s = Step.PACKED;
+            }
+            else if (parts[0].equals("parallel") && parts.length >= 2 && parts.length <= 3)
+            {
+                s = Step.PARALLEL;
+                threads = Integer.parseInt(parts[1]);
+                if (parts.length == 3) bandRows = Integer.parseInt(parts[2]);
+            }
+            else
+            {
+                throw new IllegalArgumentException("bad simulator: " + simulator);
+            }
+        }
+        return new Engine(g, gradientParam, s, threads, bandRows);
+    }
+
+    /** @param gradientThreads team fields computed at the same time (TeamGradients modes, pipelined worker) */
+    public GameController twoTeamController(World world, boolean[][] walls, int gradientThreads)
+    {
+        int w = walls[0].length;
+        int h = walls.length;
+        return switch (gradient)
+        {
+            case BUDGET -> GameController.withGradientBudget(world, walls, w, h, gradientParam, newSimulator());
+            case PIPELINED -> GameController.withPipelinedGradients(world, walls, w, h, gradientThreads, gradientParam,
+                    GradientComputer::new, newSimulator());
+            default -> new GameController(world, walls, w, h, gradientThreads, solverFactory(), newSimulator());
+        };
+    }
+
+    /** @param gradientThreads team fields computed at the same time (TeamGradients modes, pipelined worker) */
+    public MultiplayerGameController fourTeamController(World world, boolean[][] walls, int gradientThreads)
+    {
+        int w = walls[0].length;
+        int h = walls.length;
+        return switch (gradient)
+        {
+            case BUDGET -> MultiplayerGameController.withGradientBudget(world, walls, w, h, gradientParam, newSimulator());
+            case PIPELINED -> MultiplayerGameController.withPipelinedGradients(world, walls, w, h, gradientThreads, gradientParam,
+                    GradientComputer::new, newSimulator());
+            default -> new MultiplayerGameController(world, walls, w, h, gradientThreads, solverFactory(), newSimulator());
+        };
+    }
+
+    private Supplier<? extends GradientSolver> solverFactory()
+    {
+        return switch (gradient)
+        {
+            case MESH -> MeshGradientComputer::new;
+            case BITBOARD -> BitboardGradientComputer::new;
+            case ZONES -> ZoneGradientComputer::new;
+            default -> GradientComputer::new;
+        };
+    }
+
+    private Simulator newSimulator()
+    {
+        return (step == Step.PARALLEL) ? new ParallelStepSimulator(stepThreads, bandRows) : new PackedStepSimulator();
+    }
+
+    /** @return the engines as parse() reads them, e.g. "budget:2048 + parallel:4:8" */
+    @Override
+    public String toString()
+    {
+        String g = gradient.name().toLowerCase();
+        if (gradient == Gradient.BUDGET || gradient == Gradient.PIPELINED) g += ":" + gradientParam;
+        String s = (step == Step.PACKED) ? "packed" : "parallel:" + stepThreads + (bandRows > 0 ? ":" + bandRows : "");
+        return g + " + " + s;
+    }
+}
@@ -0,0 +1,255 @@
+package liquidwars;
+
+import liquidwars.ai.FreeCellIndex;
+import liquidwars.ai.MultiplayerAIManager;
+import liquidwars.ai.OpponentAI;
+import liquidwars.ai.OpponentManager;
+import liquidwars.model.TickStats;
+import liquidwars.model.World;
+import liquidwars.sim.PhaseTimes;
+import liquidwars.sim.TickClock;
+import liquidwars.ui.GameController;
+import liquidwars.ui.MultiplayerGameController;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * One match without Swing: same map loading, starting particles, controllers and bots as App,
+ * driven tick by tick on the calling thread as fast as possible.
+ *
+ * - the bots are updated every AI_EVERY_TICKS ticks (as in the game's SimulationLoop: 100 ms of 33 ms ticks)
+ *   and read a TickClock, with a Random seeded by the match seed: same seed, same match
+ * - team 0 (the human player in App) is played by a stand-in that aims at the centre of the
+ *   biggest enemy team
+ * - the match ends like in the panels: one team left, or the time limit (most particles wins,
+ *   lowest team id on a tie)
+ *
+ * The controller uses the given Engine (Engine.DEFAULT = the game's): HeadlessRunner compares them.
+ * Each call builds its own world, controller and bots: matches share nothing but the read-only
+ * map (walls, FreeCellIndex), so any number can run at once on different threads (Tournament).
+ * Used by HeadlessRunner to measure simulation throughput on machines without a display.
+ */
+public final class HeadlessMatch
+{
+    /** 5 minutes of 33 ms ticks: the panels' time limit. */
+    public static final int DEFAULT_MAX_TICKS = 5 * 60 * 1000 / 33;
+
+    /** Ticks between two bot decisions, headless and in App. */
+    static final int AI_EVERY_TICKS = 3;
+    static final long TICK_MILLIS = 33;
+
+    public enum Outcome { ELIMINATION, TIME_LIMIT }
+
+    /**
+     * @param winner team id of the winner
+     * @param counts particles per team at the end
+     * @param wallNanos real time spent in the tick loop (bots included)
+     * @param phases time per tick phase (gradients, step, stats)
+     */
+    public record Result(int teams, int winner, Outcome outcome, long ticks, int[] counts, long wallNanos, PhaseTimes phases)
+    {
+        public double ticksPerSecond()
+        {
+            return wallNanos == 0 ? 0 : ticks * 1e9 / wallNanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("winner=team %d (%s) after %d ticks, particles=%s", winner, outcome, ticks, Arrays.toString(counts));
+        }
+    }
+
+    private HeadlessMatch() { }
+
+    /**
+     * @param map bundled map number ("1".."5") or a resource path ("/levels/map3.png")
+     */
+    public static boolean[][] loadMap(String map) throws IOException
+    {
+        if (!map.matches("\\d+")) return LevelLoader.loadWallsFromResourceAnySize(map);
+
+        // Same fallback as App: .png then .PNG
+        try
+        {
+            return LevelLoader.loadWallsFromResourceAnySize("/levels/map" + map + ".png");
+        }
+        catch (IOException e)
+        {
+            return LevelLoader.loadWallsFromResourceAnySize("/levels/map" + map + ".PNG");
+        }
+    }
+
+    /** 2 teams: the stand-in (team 0) against the mirroring OpponentAI (team 1), as in App's vs-AI mode. */
+    public static Result runTwoTeams(boolean[][] walls, long seed, int maxTicks, int gradientThreads)
+    {
+        return runTwoTeams(walls, new FreeCellIndex(walls), seed, maxTicks, gradientThreads);
+    }
+
+    /** @param freeCells index of walls, shared by the matches on this map */
+    public static Result runTwoTeams(boolean[][] walls, FreeCellIndex freeCells, long seed, int maxTicks, int gradientThreads)
+    {
+        return runTwoTeams(walls, freeCells, seed, maxTicks, gradientThreads, Engine.DEFAULT);
+    }
+
+    /**
+     * @param freeCells index of walls, shared by the matches on this map
+     * @param engine gradient and step engines of the controller
+     */
+    public static Result runTwoTeams(boolean[][] walls, FreeCellIndex freeCells, long seed, int maxTicks, int gradientThreads,
+                                     Engine engine)
+    {
+        int h = walls.length;
+        int w = walls[0].length;
+        World world = new World(walls, App.makeInitialParticles(w, h, walls));
+        GameController controller = engine.twoTeamController(world, walls, gradientThreads);
+        try
+        {
+            TickClock clock = new TickClock(TICK_MILLIS);
+            OpponentAI ai = new OpponentAI(freeCells, OpponentAI.DEFAULT_RANDOM_INTERVAL_MS, OpponentAI.DEFAULT_RANDOM_DURATION_MS,
+                    new Random(seed), clock);
+            OpponentManager bot = new OpponentManager(controller, ai);
+
+            long start = System.nanoTime();
+            int winner = -1;
+            while (clock.ticks() < maxTicks && winner < 0)
+            {
+                if (clock.ticks() % AI_EVERY_TICKS == 0)
+                {
+                    aimAtBiggestEnemy(controller.getStats(), freeCells, 2, (x, y) -> controller.setTarget(0, x, y));
+                    bot.updateOnce();
+                }
+                controller.tick();
+                clock.advance();
+
+                int c0 = controller.getWorld().teamCount(0);
+                int c1 = controller.getWorld().teamCount(1);
+                if (c0 > 0 && c1 == 0) winner = 0;
+                else if (c1 > 0 && c0 == 0) winner = 1;
+            }
+            long wall = System.nanoTime() - start;
+
+            int[] counts = counts(controller.getWorld(), 2);
+            if (winner >= 0) return new Result(2, winner, Outcome.ELIMINATION, clock.ticks(), counts, wall, controller.getPhaseTimes());
+            return new Result(2, mostParticles(counts), Outcome.TIME_LIMIT, clock.ticks(), counts, wall, controller.getPhaseTimes());
+        }
+        finally
+        {
+            controller.shutdown();      // gradient and step threads of the match
+        }
+    }
+
+    /**
+     * 4 teams: the stand-in (team 0) against MultiplayerAIManager's 3 bots, as in App's multiplayer mode
+     * (bot roles shuffled with the seed).
+     */
+    public static Result runFourTeams(boolean[][] walls, long seed, int maxTicks, int gradientThreads)
+    {
+        return runFourTeams(walls, new FreeCellIndex(walls), null, seed, maxTicks, gradientThreads);
+    }
+
+    /**
+     * @param freeCells index of walls, shared by the matches on this map
+     * @param roles behaviors of teams 1, 2, 3, or null to shuffle them with the seed
+     */
+    public static Result runFourTeams(boolean[][] walls, FreeCellIndex freeCells, MultiplayerAIManager.Behavior[] roles,
+                                      long seed, int maxTicks, int gradientThreads)
+    {
+        return runFourTeams(walls, freeCells, roles, seed, maxTicks, gradientThreads, Engine.DEFAULT);
+    }
+
+    /**
+     * @param freeCells index of walls, shared by the matches on this map
+     * @param roles behaviors of teams 1, 2, 3, or null to shuffle them with the seed
+     * @param engine gradient and step engines of the controller
+     */
+    public static Result runFourTeams(boolean[][] walls, FreeCellIndex freeCells, MultiplayerAIManager.Behavior[] roles,
+                                      long seed, int maxTicks, int gradientThreads, Engine engine)
+    {
+        int h = walls.length;
+        int w = walls[0].length;
+        World world = new World(walls, App.makeMultiplayerParticles(w, h, walls));
+        MultiplayerGameController controller = engine.fourTeamController(world, walls, gradientThreads);
+        try
+        {
+            TickClock clock = new TickClock(TICK_MILLIS);
+            Random rnd = new Random(seed);
+            MultiplayerAIManager bots = (roles == null)
+                    ? new MultiplayerAIManager(controller, freeCells, rnd, clock)
+                    : new MultiplayerAIManager(controller, freeCells, roles, rnd, clock);
+
+            long start = System.nanoTime();
+            int winner = -1;
+            while (clock.ticks() < maxTicks && winner < 0)
+            {
+                if (clock.ticks() % AI_EVERY_TICKS == 0)
+                {
+                    aimAtBiggestEnemy(controller.getStats(), freeCells, 4, (x, y) -> controller.setTarget(0, x, y));
+                    bots.updateOnce();
+                }
+                controller.tick();
+                clock.advance();
+
+                int left = 0;
+                int last = -1;
+                for (int t = 0; t < 4; t++)
+                {
+                    if (controller.getWorld().teamCount(t) > 0)
+                    {
+                        left++;
+                        last = t;
+                    }
+                }
+                if (left == 1) winner = last;
+            }
+            long wall = System.nanoTime() - start;
+
+            int[] counts = counts(controller.getWorld(), 4);
+            if (winner >= 0) return new Result(4, winner, Outcome.ELIMINATION, clock.ticks(), counts, wall, controller.getPhaseTimes());
+            return new Result(4, mostParticles(counts), Outcome.TIME_LIMIT, clock.ticks(), counts, wall, controller.getPhaseTimes());
+        }
+        finally
+        {
+            controller.shutdown();      // gradient and step threads of the match
+        }
+    }
+
+    interface TargetSetter
+    {
+        void set(int x, int y);
+    }
+
+    // Team 0 stand-in: centre of the enemy team with the most particles (snapped out of walls)
+    private static void aimAtBiggestEnemy(TickStats stats, FreeCellIndex freeCells, int teams, TargetSetter target)
+    {
+        int best = -1;
+        for (int t = 1; t < teams; t++)
+        {
+            if (stats.count(t) > 0 && (best < 0 || stats.count(t) > stats.count(best))) best = t;
+        }
+        if (best < 0) return;
+
+        int cell = freeCells.nearestFree(stats.centroidX(best), stats.centroidY(best));
+        if (cell >= 0) target.set(cell % freeCells.width(), cell / freeCells.width());
+    }
+
+    private static int[] counts(World world, int teams)
+    {
+        int[] counts = new int[teams];
+        for (int t = 0; t < teams; t++) counts[t] = world.teamCount(t);
+        return counts;
+    }
+
+    // Most particles, lowest team id on a tie
+    private static int mostParticles(int[] counts)
+    {
+        int best = 0;
+        for (int t = 1; t < counts.length; t++)
+        {
+            if (counts[t] > counts[best]) best = t;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,96 @@
+package liquidwars;
+
+import liquidwars.ai.FreeCellIndex;
+import liquidwars.algo.TeamGradients;
+import liquidwars.sim.PhaseTimes;
+
+import java.io.IOException;
+
+/**
+ * Command-line entry point: plays matches without a display and reports simulation throughput.
+ *
+ * Usage (./gradlew :app:headless --args="..."):
+ *   --map N|/levels/x.png   bundled map number or resource path (default 1)
+ *   --teams 2|4             vs-AI mode or multiplayer mode (default 2)
+ *   --ticks N               time limit in ticks (default: 5 minutes of 33 ms ticks)
+ *   --matches N             matches to play one after the other (default 1)
+ *   --seed S                seed of the first match, then S+1, ... (default 1)
+ *   --gradient-threads N    threads for the team gradients (default: as in the game)
+ *   --gradient G            bfs, mesh, bitboard, zones, budget:N or pipelined:S (default bfs, see Engine)
+ *   --simulator S           packed, parallel:T or parallel:T:R (default packed, see Engine)
+ *
+ * Prints the engines, each result, then ticks per second and the mean time of each tick phase.
+ */
+public final class HeadlessRunner
+{
+    private HeadlessRunner() { }
+
+    public static void main(String[] args) throws IOException
+    {
+        String map = "1";
+        int teams = 2;
+        int ticks = HeadlessMatch.DEFAULT_MAX_TICKS;
+        int matches = 1;
+        long seed = 1;
+        int gradientThreads = -1;
+        String gradient = null;
+        String simulator = null;
+
+        for (int i = 0; i < args.length; i++)
+        {
+            String value = (i + 1 < args.length) ? args[i + 1] : null;
+            switch (args[i])
+            {
+                case "--map" -> map = require(args[i], value);
+                case "--teams" -> teams = Integer.parseInt(require(args[i], value));
+                case "--ticks" -> ticks = Integer.parseInt(require(args[i], value));
+                case "--matches" -> matches = Integer.parseInt(require(args[i], value));
+                case "--seed" -> seed = Long.parseLong(require(args[i], value));
+                case "--gradient-threads" -> gradientThreads = Integer.parseInt(require(args[i], value));
+                case "--gradient" -> gradient = require(args[i], value);
+                case "--simulator" -> simulator = require(args[i], value);
+                default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+            i++;
+        }
+        if (teams != 2 && teams != 4) throw new IllegalArgumentException("--teams must be 2 or 4");
+        if (ticks <= 0 || matches <= 0) throw new IllegalArgumentException("--ticks and --matches must be positive");
+        if (gradientThreads < 0) gradientThreads = TeamGradients.defaultThreads(teams);
+        Engine engine = Engine.parse(gradient, simulator);
+
+        boolean[][] walls = HeadlessMatch.loadMap(map);
+        FreeCellIndex freeCells = new FreeCellIndex(walls);
+        System.out.printf("map %s (%dx%d), %d teams, engine %s, %d gradient thread(s)%n",
+                map, walls[0].length, walls.length, teams, engine, gradientThreads);
+
+        long totalTicks = 0;
+        long totalWall = 0;
+        double[] phaseMicros = new double[PhaseTimes.Phase.values().length];
+        for (int m = 0; m < matches; m++)
+        {
+            HeadlessMatch.Result r = (teams == 2)
+                    ? HeadlessMatch.runTwoTeams(walls, freeCells, seed + m, ticks, gradientThreads, engine)
+                    : HeadlessMatch.runFourTeams(walls, freeCells, null, seed + m, ticks, gradientThreads, engine);
+
+            System.out.printf("match %d (seed %d): %s, %.0f ticks/s%n", m + 1, seed + m, r, r.ticksPerSecond());
+            totalTicks += r.ticks();
+            totalWall += r.wallNanos();
+            for (PhaseTimes.Phase p : PhaseTimes.Phase.values())
+            {
+                phaseMicros[p.ordinal()] += r.phases().totalNanos(p) / 1_000.0;
+            }
+        }
+
+        System.out.printf("total (%s): %d ticks in %.2f s = %.0f ticks/s%n", engine, totalTicks, totalWall / 1e9, totalTicks * 1e9 / totalWall);
+        for (PhaseTimes.Phase p : PhaseTimes.Phase.values())
+        {
+            System.out.printf("  %-8s %8.1f us/tick%n", p, phaseMicros[p.ordinal()] / totalTicks);
+        }
+    }
+
+    private static String require(String option, String value)
+    {
+        if (value == null) throw new IllegalArgumentException(option + " needs a value");
+        return value;
+    }
+}
@@ -0,0 +1,242 @@
+package liquidwars;
+
+import liquidwars.ai.FreeCellIndex;
+import liquidwars.ai.MultiplayerAIManager.Behavior;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Many independent 4-team headless matches at once, on a work-stealing ForkJoinPool.
+ *
+ * - a Fixture is one match: map, behaviors of bot teams 1-3, seed
+ * - roundRobin() lists every lineup of behaviors (repeats allowed, 3^3 = 27) on every map, for
+ *   several seeds
+ * - run() plays them all: each match builds its own world, controller and bots, and runs with a
+ *   TickClock and a Random seeded by its fixture, on a single thread (gradientThreads = 1: the
+ *   pool provides the parallelism). The only shared data is read-only (walls, FreeCellIndex of
+ *   each map), and each match writes its result into its own slot of an array, so the workers
+ *   never contend; the win-rate tables are built once everything is joined
+ *
+ * Same fixtures, same results, whatever the number of threads.
+ */
+public final class Tournament
+{
+    /** One match. @param roles behaviors of teams 1, 2, 3 */
+    public record Fixture(String map, Behavior[] roles, long seed)
+    {
+        public Fixture
+        {
+            Objects.requireNonNull(map, "map");
+            Objects.requireNonNull(roles, "roles");
+            if (roles.length != 3) throw new IllegalArgumentException("roles must give the behaviors of teams 1, 2, 3");
+            roles = roles.clone();
+        }
+
+        @Override
+        public Behavior[] roles()
+        {
+            return roles.clone();
+        }
+
+        @Override
+        public String toString()
+        {
+            return map + " " + Arrays.toString(roles) + " seed " + seed;
+        }
+    }
+
+    public record Played(Fixture fixture, HeadlessMatch.Result result) { }
+
+    // Read-only per-map data, shared by every match on that map
+    private record Arena(boolean[][] walls, FreeCellIndex freeCells) { }
+
+    private final Map<String, Arena> arenas = new LinkedHashMap<>();
+    private final int maxTicks;
+    private final int parallelism;
+
+    /**
+     * @param maps walls by map name
+     * @param maxTicks time limit of each match
+     * @param parallelism matches played at once (e.g. Runtime.availableProcessors())
+     */
+    public Tournament(Map<String, boolean[][]> maps, int maxTicks, int parallelism)
+    {
+        if (maps.isEmpty()) throw new IllegalArgumentException("no maps");
+        if (maxTicks <= 0) throw new IllegalArgumentException("maxTicks must be > 0");
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+
+        for (Map.Entry<String, boolean[][]> e : maps.entrySet())
+        {
+            arenas.put(e.getKey(), new Arena(e.getValue(), new FreeCellIndex(e.getValue())));
+        }
+        this.maxTicks = maxTicks;
+        this.parallelism = parallelism;
+    }
+
+    /** @return every lineup on every map, seeds baseSeed .. baseSeed + seedsPerLineup - 1 */
+    public static List<Fixture> roundRobin(List<String> maps, int seedsPerLineup, long baseSeed)
+    {
+        Behavior[] all = Behavior.values();
+        List<Fixture> fixtures = new ArrayList<>();
+        for (String map : maps)
+        {
+            for (Behavior a : all)
+            {
+                for (Behavior b : all)
+                {
+                    for (Behavior c : all)
+                    {
+                        for (int s = 0; s < seedsPerLineup; s++)
+                        {
+                            fixtures.add(new Fixture(map, new Behavior[] { a, b, c }, baseSeed + s));
+                        }
+                    }
+                }
+            }
+        }
+        return fixtures;
+    }
+
+    /** Plays every fixture; results are in fixture order. */
+    public List<Played> run(List<Fixture> fixtures)
+    {
+        for (Fixture f : fixtures)
+        {
+            if (!arenas.containsKey(f.map())) throw new IllegalArgumentException("unknown map: " + f.map());
+        }
+
+        Played[] results = new Played[fixtures.size()];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try
+        {
+            pool.invoke(new Matches(fixtures, results, 0, fixtures.size()));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        return List.of(results);
+    }
+
+    private Played play(Fixture f)
+    {
+        Arena arena = arenas.get(f.map());
+        HeadlessMatch.Result r = HeadlessMatch.runFourTeams(arena.walls(), arena.freeCells(), f.roles(), f.seed(), maxTicks, 1);
+        return new Played(f, r);
+    }
+
+    // Splits the fixture range in halves down to single matches; idle workers steal the halves
+    private final class Matches extends RecursiveAction
+    {
+        private final List<Fixture> fixtures;
+        private final Played[] results;
+        private final int from;
+        private final int to;
+
+        Matches(List<Fixture> fixtures, Played[] results, int from, int to)
+        {
+            this.fixtures = fixtures;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from == 1)
+            {
+                results[from] = play(fixtures.get(from));
+                return;
+            }
+            if (to == from) return;
+            int mid = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(new Matches(fixtures, results, from, mid), new Matches(fixtures, results, mid, to));
+        }
+    }
+
+    /**
+     * Win-rate tables of a set of matches, by behavior.
+     *
+     * - seats / wins: bot teams that had the behavior, and how many of them won their match
+     * - head to head [a][b]: over every pair of bot teams with behaviors a and b in the same match,
+     *   how often the a team finished with more particles than the b team (ties count for neither)
+     * - the team 0 stand-in is counted apart (playerWins)
+     */
+    public static final class Standings
+    {
+        private final int[] seats = new int[Behavior.values().length];
+        private final int[] wins = new int[Behavior.values().length];
+        private final int[][] meetings = new int[Behavior.values().length][Behavior.values().length];
+        private final int[][] ahead = new int[Behavior.values().length][Behavior.values().length];
+        private int matches;
+        private int playerWins;
+
+        public static Standings of(List<Played> played)
+        {
+            Standings s = new Standings();
+            for (Played p : played) s.add(p);
+            return s;
+        }
+
+        /** @return one table per map, in the order the maps first appear */
+        public static Map<String, Standings> byMap(List<Played> played)
+        {
+            Map<String, Standings> tables = new LinkedHashMap<>();
+            for (Played p : played)
+            {
+                tables.computeIfAbsent(p.fixture().map(), m -> new Standings()).add(p);
+            }
+            return tables;
+        }
+
+        public void add(Played p)
+        {
+            Behavior[] roles = p.fixture().roles();
+            int[] counts = p.result().counts();
+            matches++;
+            if (p.result().winner() == 0) playerWins++;
+
+            for (int team = 1; team <= 3; team++)
+            {
+                int b = roles[team - 1].ordinal();
+                seats[b]++;
+                if (p.result().winner() == team) wins[b]++;
+
+                for (int other = 1; other <= 3; other++)
+                {
+                    if (other == team) continue;
+                    int o = roles[other - 1].ordinal();
+                    meetings[b][o]++;
+                    if (counts[team] > counts[other]) ahead[b][o]++;
+                }
+            }
+        }
+
+        public int matches() { return matches; }
+        public int playerWins() { return playerWins; }
+        public int seats(Behavior b) { return seats[b.ordinal()]; }
+        public int wins(Behavior b) { return wins[b.ordinal()]; }
+
+        /** @return wins / seats, 0 if the behavior never played */
+        public double winRate(Behavior b)
+        {
+            return seats[b.ordinal()] == 0 ? 0 : (double) wins[b.ordinal()] / seats[b.ordinal()];
+        }
+
+        /** @return share of the meetings of a and b where a finished ahead, 0 if they never met */
+        public double headToHead(Behavior a, Behavior b)
+        {
+            int m = meetings[a.ordinal()][b.ordinal()];
+            return m == 0 ? 0 : (double) ahead[a.ordinal()][b.ordinal()] / m;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package liquidwars;
+
+import liquidwars.ai.MultiplayerAIManager.Behavior;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line entry point of Tournament: every lineup of bot behaviors on every map.
+ *
+ * Usage (./gradlew :app:tournament --args="..."):
+ *   --maps 1,2,3            bundled map numbers or resource paths (default: 1 to 5)
+ *   --seeds N               matches per lineup and map, seeds S .. S+N-1 (default 2)
+ *   --seed S                first seed (default 1)
+ *   --ticks N               time limit of each match (default: 5 minutes of 33 ms ticks)
+ *   --threads N             matches played at once (default: all cores)
+ *
+ * Prints the win rate of each behavior (overall and per map) and the head-to-head table.
+ */
+public final class TournamentRunner
+{
+    private TournamentRunner() { }
+
+    public static void main(String[] args) throws IOException
+    {
+        String maps = "1,2,3,4,5";
+        int seeds = 2;
+        long seed = 1;
+        int ticks = HeadlessMatch.DEFAULT_MAX_TICKS;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++)
+        {
+            String value = (i + 1 < args.length) ? args[i + 1] : null;
+            if (value == null) throw new IllegalArgumentException(args[i] + " needs a value");
+            switch (args[i])
+            {
+                case "--maps" -> maps = value;
+                case "--seeds" -> seeds = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--ticks" -> ticks = Integer.parseInt(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("unknown option: " + args[i]);
+            }
+            i++;
+        }
+        if (seeds <= 0) throw new IllegalArgumentException("--seeds must be positive");
+
+        Map<String, boolean[][]> walls = new LinkedHashMap<>();
+        for (String m : maps.split(",")) walls.put(m.trim(), HeadlessMatch.loadMap(m.trim()));
+
+        Tournament tournament = new Tournament(walls, ticks, threads);
+        List<Tournament.Fixture> fixtures = Tournament.roundRobin(List.copyOf(walls.keySet()), seeds, seed);
+        System.out.printf("%d matches (%d maps x %d lineups x %d seeds) on %d threads%n",
+                fixtures.size(), walls.size(), fixtures.size() / walls.size() / seeds, seeds, threads);
+
+        long start = System.nanoTime();
+        List<Tournament.Played> played = tournament.run(fixtures);
+        long wall = System.nanoTime() - start;
+
+        long totalTicks = 0;
+        for (Tournament.Played p : played) totalTicks += p.result().ticks();
+        System.out.printf("done in %.1f s: %.1f matches/s, %.0f ticks/s%n",
+                wall / 1e9, played.size() * 1e9 / wall, totalTicks * 1e9 / wall);
+
+        System.out.println();
+        printWinRates("all maps", Tournament.Standings.of(played));
+        for (Map.Entry<String, Tournament.Standings> e : Tournament.Standings.byMap(played).entrySet())
+        {
+            printWinRates("map " + e.getKey(), e.getValue());
+        }
+
+        Tournament.Standings all = Tournament.Standings.of(played);
+        System.out.println();
+        System.out.printf("%-16s", "ahead of ->");
+        for (Behavior b : Behavior.values()) System.out.printf(" %16s", b);
+        System.out.println();
+        for (Behavior a : Behavior.values())
+        {
+            System.out.printf("%-16s", a);
+            for (Behavior b : Behavior.values()) System.out.printf(" %15.1f%%", 100 * all.headToHead(a, b));
+            System.out.println();
+        }
+    }
+
+    private static void printWinRates(String title, Tournament.Standings s)
+    {
+        System.out.printf("%-12s %4d matches  player %5.1f%%", title, s.matches(), 100.0 * s.playerWins() / s.matches());
+        for (Behavior b : Behavior.values())
+        {
+            System.out.printf("  %s %5.1f%%", b, 100 * s.winRate(b));
+        }
+        System.out.println();
+    }
+}
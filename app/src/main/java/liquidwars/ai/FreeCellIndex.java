@@ -0,0 +1,132 @@
+package liquidwars.ai;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Static per-map index of the free (non-wall) cells, for the bots.
+ *
+ * Built once when the map is loaded, read-only afterwards, so one instance can be shared by
+ * every bot of a match (and by matches on the same map, from any thread):
+ * - freeCells: packed int[] of free cells (y * width + x) in row-major order, so a random pick
+ *   is one rnd.nextInt(freeCount()) and an array read: same RNG draw and same cell as picking
+ *   from a List built by scanning the grid
+ * - nearest: for every cell, the free cell a breadth-first search from it reaches first
+ *   (itself if it is free). The search order is the one OpponentAI used to run at each lookup
+ *   (right, left, down, up), so snapping a mirrored target out of a wall gives the same cell
+ *   and is now one array read
+ */
+public final class FreeCellIndex {
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DY = {0, 0, 1, -1};
+
+    private final int width;
+    private final int height;
+    private final boolean[][] walls;        // walls[y][x], not copied (maps never change)
+    private final int[] freeCells;
+    private final int[] nearest;            // -1 = no free cell at all
+
+    public FreeCellIndex(boolean[][] walls) {
+        Objects.requireNonNull(walls, "walls");
+        if (walls.length == 0 || walls[0].length == 0) throw new IllegalArgumentException("walls must be non-empty");
+
+        this.height = walls.length;
+        this.width = walls[0].length;
+        for (int y = 0; y < height; y++) {
+            if (walls[y] == null || walls[y].length != width) throw new IllegalArgumentException("walls must be rectangular");
+        }
+        this.walls = walls;
+
+        int count = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!walls[y][x]) count++;
+            }
+        }
+        this.freeCells = new int[count];
+        int k = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!walls[y][x]) freeCells[k++] = y * width + x;
+            }
+        }
+
+        this.nearest = new int[width * height];
+        buildNearest();
+    }
+
+    public int width() { return width; }
+    public int height() { return height; }
+
+    public boolean isFree(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && !walls[y][x];
+    }
+
+    public int freeCount() {
+        return freeCells.length;
+    }
+
+    /** @return k-th free cell in row-major order, as y * width + x */
+    public int freeCell(int k) {
+        return freeCells[k];
+    }
+
+    /** @return a uniformly random free cell (y * width + x), or -1 if the map has none */
+    public int randomFreeCell(Random rnd) {
+        if (freeCells.length == 0) return -1;
+        return freeCells[rnd.nextInt(freeCells.length)];
+    }
+
+    /** @return the free cell closest to (x, y) in breadth-first order (y * width + x), or -1 */
+    public int nearestFree(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return -1;
+        return nearest[y * width + x];
+    }
+
+    // Free cells map to themselves; each wall cell runs the bounded BFS once, with reused buffers
+    private void buildNearest() {
+        int n = width * height;
+        int[] queue = new int[n];
+        int[] seen = new int[n];            // seen[i] == stamp <=> visited by the current search
+        int stamp = 0;
+
+        for (int start = 0; start < n; start++) {
+            if (!walls[start / width][start % width]) {
+                nearest[start] = start;
+                continue;
+            }
+            if (freeCells.length == 0) {
+                nearest[start] = -1;
+                continue;
+            }
+
+            stamp++;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            seen[start] = stamp;
+            int found = -1;
+
+            while (head < tail) {
+                int cur = queue[head++];
+                int cx = cur % width;
+                int cy = cur / width;
+                if (!walls[cy][cx]) {
+                    found = cur;
+                    break;
+                }
+                for (int d = 0; d < 4; d++) {
+                    int nx = cx + DX[d];
+                    int ny = cy + DY[d];
+                    if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+                    int ni = ny * width + nx;
+                    if (seen[ni] == stamp) continue;
+                    seen[ni] = stamp;
+                    queue[tail++] = ni;
+                }
+            }
+            nearest[start] = found;
+        }
+    }
+}
@@ -1,14 +1,14 @@
 package liquidwars.ai;
 
-import liquidwars.model.Particle;
-import liquidwars.model.World;
+import liquidwars.model.TickStats;
 import liquidwars.ui.MultiplayerGameController;
 
-import javax.swing.Timer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Random;
+import java.util.function.LongSupplier;
 
 /**
  * Manages AI for 3 bot players in multiplayer mode.
@@ -17,21 +17,24 @@ import java.util.Random;
  * - ATTACK_CLOSEST: targets the closest enemy team's center with periodic randomization
  * - MIRROR_ATTACKER: mirrors the ATTACK_CLOSEST bot's target with periodic randomization
  * 
- * Roles are randomly assigned at initialization to add variety.
+ * Roles are randomly assigned at initialization to add variety (or given, for tournaments).
  * All behaviors include random target pickups at configurable intervals for liveliness.
+ * Randomness and time come from the Random and clock passed in (the game and headless matches
+ * pass a TickClock, so the bots follow the simulated time; a seeded headless match is reproducible).
+ * No timer of its own: whoever ticks the match calls updateOnce() between ticks.
  * Isolated from 2-team AI to maintain OOP separation.
  */
 public final class MultiplayerAIManager {
 
-    private enum Behavior { MIRROR_PLAYER, ATTACK_CLOSEST, MIRROR_ATTACKER }
+    public enum Behavior { MIRROR_PLAYER, ATTACK_CLOSEST, MIRROR_ATTACKER }
 
     private final MultiplayerGameController controller;
     private final OpponentAI mirrorAI;
-    private final Timer timer;
-    private final boolean[][] walls;
+    private final FreeCellIndex freeCells;     // shared with mirrorAI
     private final int width;
     private final int height;
     private final Random rnd;
+    private final LongSupplier clock;
 
     // Team assignments (1, 2, 3) -> behavior
     private final Behavior team1Behavior;
@@ -55,26 +58,48 @@ public final class MultiplayerAIManager {
     private int attackerTargetY;
 
     public MultiplayerAIManager(MultiplayerGameController controller, boolean[][] walls, int width, int height) {
-        this.controller = controller;
-        this.walls = walls;
-        this.width = width;
-        this.height = height;
-        this.rnd = new Random();
-        this.mirrorAI = new OpponentAI(walls);
+        this(controller, new FreeCellIndex(walls));
+    }
 
-        // Randomly assign behaviors to teams 1, 2, 3
-        List<Behavior> behaviors = new ArrayList<>();
-        behaviors.add(Behavior.MIRROR_PLAYER);
-        behaviors.add(Behavior.ATTACK_CLOSEST);
-        behaviors.add(Behavior.MIRROR_ATTACKER);
-        Collections.shuffle(behaviors, rnd);
+    /**
+     * Wall clock and unseeded Random (tests, tools); the game passes the simulation's clock.
+     * @param freeCells index of the map, built once when it was loaded
+     */
+    public MultiplayerAIManager(MultiplayerGameController controller, FreeCellIndex freeCells) {
+        this(controller, freeCells, new Random(), System::currentTimeMillis);
+    }
+
+    /** Roles shuffled with rnd: one of each behavior. */
+    public MultiplayerAIManager(MultiplayerGameController controller, FreeCellIndex freeCells, Random rnd, LongSupplier clock) {
+        this(controller, freeCells, shuffledRoles(rnd), rnd, clock);
+    }
+
+    /**
+     * Full constructor
+     * @param roles behaviors of teams 1, 2, 3 (repeats allowed)
+     * @param rnd random targets and the mirroring bot's randomization
+     * @param clock milliseconds (a TickClock advanced once per tick of the match)
+     */
+    public MultiplayerAIManager(MultiplayerGameController controller, FreeCellIndex freeCells,
+                                Behavior[] roles, Random rnd, LongSupplier clock) {
+        Objects.requireNonNull(roles, "roles");
+        if (roles.length != 3) throw new IllegalArgumentException("roles must give the behaviors of teams 1, 2, 3");
+        for (Behavior b : roles) Objects.requireNonNull(b, "roles");
 
-        this.team1Behavior = behaviors.get(0);
-        this.team2Behavior = behaviors.get(1);
-        this.team3Behavior = behaviors.get(2);
+        this.controller = controller;
+        this.freeCells = freeCells;
+        this.width = freeCells.width();
+        this.height = freeCells.height();
+        this.rnd = Objects.requireNonNull(rnd, "rnd");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.mirrorAI = new OpponentAI(freeCells, OpponentAI.DEFAULT_RANDOM_INTERVAL_MS, OpponentAI.DEFAULT_RANDOM_DURATION_MS, rnd, clock);
+
+        this.team1Behavior = roles[0];
+        this.team2Behavior = roles[1];
+        this.team3Behavior = roles[2];
 
         // Initialize random target tracking with staggered offsets
-        long now = System.currentTimeMillis();
+        long now = clock.getAsLong();
         for (int i = 0; i < 4; i++) {
             randomTargets[i] = null;
             randomExpiryTimes[i] = Long.MIN_VALUE;
@@ -85,20 +110,30 @@ public final class MultiplayerAIManager {
         // Initialize attacker target to center
         this.attackerTargetX = width / 2;
         this.attackerTargetY = height / 2;
-
-        // Timer to update AI every 100ms
-        this.timer = new Timer(100, e -> updateOnce());
     }
 
-    public void start() {
-        timer.start();
+    // Randomly assign behaviors to teams 1, 2, 3
+    private static Behavior[] shuffledRoles(Random rnd) {
+        List<Behavior> behaviors = new ArrayList<>();
+        behaviors.add(Behavior.MIRROR_PLAYER);
+        behaviors.add(Behavior.ATTACK_CLOSEST);
+        behaviors.add(Behavior.MIRROR_ATTACKER);
+        Collections.shuffle(behaviors, rnd);
+        return behaviors.toArray(new Behavior[0]);
     }
 
-    public void stop() {
-        timer.stop();
+    /** @return behavior of bot team 1, 2 or 3 */
+    public Behavior behaviorOf(int teamId) {
+        return switch (teamId) {
+            case 1 -> team1Behavior;
+            case 2 -> team2Behavior;
+            case 3 -> team3Behavior;
+            default -> throw new IllegalArgumentException("bot teams are 1, 2, 3: " + teamId);
+        };
     }
 
-    private void updateOnce() {
+    /** Perform a single update of the 3 bots (between two ticks: every few ticks in the game and headless) */
+    public void updateOnce() {
         // Get player's target (team 0)
         int playerX = controller.getTargetX(0);
         int playerY = controller.getTargetY(0);
@@ -135,7 +170,7 @@ public final class MultiplayerAIManager {
                     int my = attackerTargetY;
                     mx = clamp(mx, 0, width - 1);
                     my = clamp(my, 0, height - 1);
-                    if (walls[my][mx]) {
+                    if (!freeCells.isFree(mx, my)) {
                         mx = attackerTargetX;
                         my = attackerTargetY;
                     }
@@ -153,7 +188,7 @@ public final class MultiplayerAIManager {
      * Otherwise, return null to use default behavior.
      */
     private OpponentAI.Target getTargetWithRandomization(int teamId, long intervalMs) {
-        long now = System.currentTimeMillis();
+        long now = clock.getAsLong();
 
         // If a random target is currently active and not expired, keep using it
         if (randomTargets[teamId] != null && now < randomExpiryTimes[teamId]) {
@@ -183,7 +218,7 @@ public final class MultiplayerAIManager {
      * Find the center of mass of the closest enemy team (by particle count proximity)
      */
     private OpponentAI.Target findClosestEnemyCenter(int myTeamId) {
-        World world = controller.getWorld();
+        TickStats stats = controller.getStats();    // centroids of the last tick, no grid scan
         
         // Calculate center of mass for each enemy team
         int[] enemyTeams = {0, 1, 2, 3};
@@ -191,12 +226,12 @@ public final class MultiplayerAIManager {
         int closestEnemyTeam = -1;
 
         // Get my team's center first
-        OpponentAI.Target myCenter = getTeamCenter(myTeamId, world);
+        OpponentAI.Target myCenter = getTeamCenter(myTeamId, stats);
 
         for (int enemyTeam : enemyTeams) {
             if (enemyTeam == myTeamId) continue;
 
-            OpponentAI.Target enemyCenter = getTeamCenter(enemyTeam, world);
+            OpponentAI.Target enemyCenter = getTeamCenter(enemyTeam, stats);
             if (enemyCenter == null) continue;
 
             double dist = distance(myCenter.x(), myCenter.y(), enemyCenter.x(), enemyCenter.y());
@@ -211,35 +246,20 @@ public final class MultiplayerAIManager {
             return new OpponentAI.Target(width / 2, height / 2);
         }
 
-        return getTeamCenter(closestEnemyTeam, world);
+        return getTeamCenter(closestEnemyTeam, stats);
     }
 
     /**
-     * Calculate center of mass for a team's particles
+     * Center of mass of a team's particles (read from the tick statistics, O(1))
      */
-    private OpponentAI.Target getTeamCenter(int teamId, World world) {
-        long sumX = 0;
-        long sumY = 0;
-        int count = 0;
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                Particle p = world.get(x, y);
-                if (p != null && p.teamId() == teamId) {
-                    sumX += x;
-                    sumY += y;
-                    count++;
-                }
-            }
-        }
-
-        if (count == 0) {
+    private OpponentAI.Target getTeamCenter(int teamId, TickStats stats) {
+        if (stats.count(teamId) == 0) {
             // No particles for this team, return center of map
             return new OpponentAI.Target(width / 2, height / 2);
         }
 
-        int centerX = (int) (sumX / count);
-        int centerY = (int) (sumY / count);
+        int centerX = stats.centroidX(teamId);
+        int centerY = stats.centroidY(teamId);
 
         return new OpponentAI.Target(
             clamp(centerX, 0, width - 1),
@@ -248,19 +268,12 @@ public final class MultiplayerAIManager {
     }
 
     /**
-     * Pick a random free cell
+     * Pick a random free cell (from the map index: one array read)
      */
     private OpponentAI.Target chooseRandomFreeCell() {
-        List<OpponentAI.Target> free = new ArrayList<>();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (!walls[y][x]) {
-                    free.add(new OpponentAI.Target(x, y));
-                }
-            }
-        }
-        if (free.isEmpty()) return null;
-        return free.get(rnd.nextInt(free.size()));
+        int cell = freeCells.randomFreeCell(rnd);
+        if (cell < 0) return null;
+        return new OpponentAI.Target(cell % width, cell / width);
     }
 
     private double distance(int x1, int y1, int x2, int y2) {
@@ -1,9 +1,5 @@
 package liquidwars.ai;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.List;
 import java.util.Objects;
 import java.util.Random;
 import java.util.function.LongSupplier;
@@ -15,6 +11,8 @@ import java.util.function.LongSupplier;
  * Design notes:
  * - Keeps logic encapsulated for easy testing and reuse
  * - Uses dependency injection for Random and clock for deterministic tests
+ * - Free cells and wall snapping come from a FreeCellIndex built once per map
+ *   (pass the same index to every bot of the match), so a decision allocates nothing but its Target
  */
 public final class OpponentAI {
 
@@ -22,7 +20,7 @@ public final class OpponentAI {
     // How long a chosen random target persists before reverting to mirrored behavior
     public static final long DEFAULT_RANDOM_DURATION_MS = 2000L;
 
-    private final boolean[][] walls; // walls[y][x]
+    private final FreeCellIndex freeCells;
     private final int width;
     private final int height;
     private final long randomIntervalMillis;
@@ -35,10 +33,21 @@ public final class OpponentAI {
 
     public record Target(int x, int y) {}
 
+    /** Default settings on the wall clock (tests, tools); the game passes the simulation's clock. */
     public OpponentAI(boolean[][] walls) {
         this(walls, DEFAULT_RANDOM_INTERVAL_MS, DEFAULT_RANDOM_DURATION_MS, new Random(), System::currentTimeMillis);
     }
 
+    /** Default settings, on a map index shared with other bots, on the wall clock. */
+    public OpponentAI(FreeCellIndex freeCells) {
+        this(freeCells, System::currentTimeMillis);
+    }
+
+    /** Default settings, unseeded; @param clock milliseconds of the match (the game's TickClock) */
+    public OpponentAI(FreeCellIndex freeCells, LongSupplier clock) {
+        this(freeCells, DEFAULT_RANDOM_INTERVAL_MS, DEFAULT_RANDOM_DURATION_MS, new Random(), clock);
+    }
+
     public OpponentAI(boolean[][] walls, long randomIntervalMillis, Random rnd, LongSupplier clock) {
         this(walls, randomIntervalMillis, DEFAULT_RANDOM_DURATION_MS, rnd, clock);
     }
@@ -47,20 +56,20 @@ public final class OpponentAI {
      * Full constructor with configurable randomization interval and duration
      */
     public OpponentAI(boolean[][] walls, long randomIntervalMillis, long randomDurationMillis, Random rnd, LongSupplier clock) {
-        Objects.requireNonNull(walls, "walls");
+        this(new FreeCellIndex(walls), randomIntervalMillis, randomDurationMillis, rnd, clock);  // validates walls
+    }
+
+    /**
+     * Full constructor on a prebuilt map index (see FreeCellIndex)
+     */
+    public OpponentAI(FreeCellIndex freeCells, long randomIntervalMillis, long randomDurationMillis, Random rnd, LongSupplier clock) {
+        Objects.requireNonNull(freeCells, "freeCells");
         Objects.requireNonNull(rnd, "rnd");
         Objects.requireNonNull(clock, "clock");
 
-        if (walls.length == 0 || walls[0].length == 0) throw new IllegalArgumentException("walls must be non-empty");
-
-        this.height = walls.length;
-        this.width = walls[0].length;
-
-        for (int y = 0; y < height; y++) {
-            if (walls[y] == null || walls[y].length != width) throw new IllegalArgumentException("walls must be rectangular");
-        }
-
-        this.walls = walls;
+        this.freeCells = freeCells;
+        this.height = freeCells.height();
+        this.width = freeCells.width();
         this.randomIntervalMillis = randomIntervalMillis;
         this.randomDurationMillis = randomDurationMillis;
         this.rnd = rnd;
@@ -113,15 +122,11 @@ public final class OpponentAI {
         int mx = width - 1 - playerTx;
         int my = clamp(playerTy, 0, height - 1);
 
-        if (!isWall(mx, my)) return new Target(mx, my);
+        if (freeCells.isFree(mx, my)) return new Target(mx, my);
 
-        Target n = findNearestFree(mx, my);
-        return n != null ? n : new Target(mx, my);
-    }
-
-    private boolean isWall(int x, int y) {
-        if (x < 0 || x >= width || y < 0 || y >= height) return true;
-        return walls[y][x];
+        // Nearest free cell: precomputed, one lookup
+        int n = freeCells.nearestFree(mx, my);
+        return n >= 0 ? new Target(n % width, n / width) : new Target(mx, my);
     }
 
     private int clamp(int v, int lo, int hi) {
@@ -130,45 +135,10 @@ public final class OpponentAI {
         return v;
     }
 
-    // Gather all free cells and pick one at random
+    // Pick a random free cell (same draw as picking from the row-major list of free cells)
     private Target chooseRandomFreeCell() {
-        List<Target> free = new ArrayList<>();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (!walls[y][x]) free.add(new Target(x, y));
-            }
-        }
-        if (free.isEmpty()) return null;
-        int idx = rnd.nextInt(free.size());
-        return free.get(idx);
-    }
-
-    // BFS to find nearest free (non-wall) cell. Returns null if none found
-    private Target findNearestFree(int sx, int sy) {
-        boolean[][] seen = new boolean[height][width];
-        Deque<Target> q = new ArrayDeque<>();
-        if (sx >= 0 && sx < width && sy >= 0 && sy < height) {
-            q.addLast(new Target(sx, sy));
-            seen[sy][sx] = true;
-        }
-
-        int[] dx = {1, -1, 0, 0};
-        int[] dy = {0, 0, 1, -1};
-
-        while (!q.isEmpty()) {
-            Target cur = q.removeFirst();
-            if (!isWall(cur.x, cur.y)) return cur;
-
-            for (int i = 0; i < 4; i++) {
-                int nx = cur.x + dx[i];
-                int ny = cur.y + dy[i];
-                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
-                if (seen[ny][nx]) continue;
-                seen[ny][nx] = true;
-                q.addLast(new Target(nx, ny));
-            }
-        }
-
-        return null;
+        int cell = freeCells.randomFreeCell(rnd);
+        if (cell < 0) return null;
+        return new Target(cell % width, cell / width);
     }
 }
@@ -2,39 +2,26 @@ package liquidwars.ai;
 
 import liquidwars.ui.GameController;
 
-import javax.swing.Timer;
-
 /**
- * Runs the OpponentAI and updates team 1 target periodically.
- * Uses a Swing Timer so execution happens on the EDT (same as the UI loop).
+ * Runs the OpponentAI and updates team 1 target.
+ * Driven by whoever ticks the match: the panel's SimulationLoop (runEvery) in the game,
+ * HeadlessMatch headless, so the bot follows the simulated time.
  */
 public final class OpponentManager {
 
     private final GameController controller;
     private final OpponentAI ai;
-    private final Timer timer;
 
-    public OpponentManager(GameController controller, OpponentAI ai, int tickMs) {
+    public OpponentManager(GameController controller, OpponentAI ai) {
         this.controller = controller;
         this.ai = ai;
-        this.timer = new Timer(tickMs, e -> updateOnce());
     }
 
-    public OpponentManager(GameController controller, OpponentAI ai) {
-        this(controller, ai, 100);
-    }
-
-    /** Start periodic updating */
-    public void start() { timer.start(); }
-
-    /** Stop periodic updating */
-    public void stop() { timer.stop(); }
-
-    /** Perform a single update (extracted for testing) */
+    /** Perform a single update (between two ticks of the match) */
     public void updateOnce() {
         int px = controller.getTargetX(0);
         int py = controller.getTargetY(0);
         OpponentAI.Target t = ai.nextTarget(px, py);
         controller.setTarget(1, t.x(), t.y());
     }
-}
\ No newline at end of file
+}
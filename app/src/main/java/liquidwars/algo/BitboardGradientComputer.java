@@ -0,0 +1,165 @@
+package liquidwars.algo;
+
+import java.util.Arrays;
+
+/**
+ * GradientComputer (4-neighbourhood, unit steps) as a bit-parallel BFS: same output, exactly.
+ *
+ * Layout: each row is packed into 'words' longs (bit x % 64 of word x / 64), for
+ * - free:     cells that are not walls (built once per walls array, see below)
+ * - seen:     cells already reached
+ * - frontier: cells at the current distance d
+ *
+ * One BFS layer = one sweep over the rows of the frontier (plus one row above and below):
+ *   next = (frontier shifted east | west | from the row above | from the row below) & free & ~seen
+ * so 64 cells are expanded with a few shifts, ORs and AND-NOTs, and the cells of 'next' get
+ * d + 1 in dist (one write per set bit). No queue, no per-neighbour bounds or wall checks.
+ *
+ * Cost per layer is the words of the rows the frontier spans, however few cells it holds: the
+ * engine pays off when frontiers are dense (many target cells, wide straight fronts). Around a
+ * single target the frontier is a diamond with a couple of cells per row; on the bundled maps
+ * that is ~0.3 frontier cells per word and the queue BFS (GradientComputer) stays ahead, which
+ * is why the controllers keep it as their default and take this one through their solverFactory.
+ *
+ * Walls are compared by identity: the packed free mask is rebuilt only when a different
+ * walls array is passed (a map's walls never change once loaded, as for GradientCache).
+ * Not thread-safe (buffers are reused): one instance per thread.
+ */
+public final class BitboardGradientComputer extends GradientComputer {
+
+    private boolean[][] packedWalls;    // walls the free mask was built from
+    private int width;
+    private int height;
+    private int words;                  // longs per row
+    private int stride;                 // words + 1 guard word, always 0
+
+    private long[] free = new long[0];
+    private long[] seen = new long[0];
+    private long[] frontier = new long[0];
+    private long[] next = new long[0];
+
+    @Override
+    public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist)
+    {
+        int h = obstacles.length;
+        int w = obstacles[0].length;
+        if (obstacles != packedWalls || w != width || h != height) pack(obstacles, w, h);
+
+        for (int y = 0; y < h; y++)
+        {
+            Arrays.fill(dist[y], INF);
+        }
+        Arrays.fill(seen, 0L);
+
+        // Layer 0: the valid targets (frontier and next are all 0 between two calls)
+        int lo = h;
+        int hi = -1;
+        for (int cell : targetCells)
+        {
+            if (cell < 0 || cell >= w * h) continue;
+            int tx = cell % w;
+            int ty = cell / w;
+            if (obstacles[ty][tx]) continue;
+
+            dist[ty][tx] = 0;
+            int i = (ty + 1) * stride + (tx >>> 6);
+            frontier[i] |= 1L << tx;
+            seen[i] |= 1L << tx;
+            lo = Math.min(lo, ty);
+            hi = Math.max(hi, ty);
+        }
+
+        long[] f = frontier;
+        long[] n = next;
+        long[] free = this.free;
+        long[] seen = this.seen;
+        int stride = this.stride;
+        int words = this.words;
+        int d = 0;
+        while (lo <= hi)
+        {
+            d++;
+            int from = Math.max(0, lo - 1);
+            int to = Math.min(h - 1, hi + 1);
+            int nextLo = h;
+            int nextHi = -1;
+
+            for (int y = from; y <= to; y++)
+            {
+                int row = (y + 1) * stride;
+                int end = row + words;
+                long any = 0;
+                long left = 0;                  // f[i - 1], the guard word before the row is 0
+                long cur = f[row];
+                for (int i = row; i < end; i++)
+                {
+                    // Neighbours in the row (carries from the adjacent words; guard words are 0), above, below
+                    long right = f[i + 1];
+                    long reach = (cur << 1) | (left >>> 63) | (cur >>> 1) | (right << 63)
+                               | f[i - stride] | f[i + stride];
+                    long fresh = reach & free[i] & ~seen[i];
+                    n[i] = fresh;
+                    any |= fresh;
+                    left = cur;
+                    cur = right;
+                }
+                if (any != 0)
+                {
+                    if (nextLo == h) nextLo = y;
+                    nextHi = y;
+                    int[] distRow = dist[y];
+                    for (int i = row; i < end; i++)
+                    {
+                        long fresh = n[i];
+                        seen[i] |= fresh;
+                        int base = (i - row) << 6;
+                        while (fresh != 0)
+                        {
+                            distRow[base + Long.numberOfTrailingZeros(fresh)] = d;
+                            fresh &= fresh - 1;
+                        }
+                    }
+                }
+
+                // Frontier row y - 1 is not read again: clear it, so f is all 0 when it becomes 'next'
+                if (y > from)
+                {
+                    for (int i = row - stride; i < end - stride; i++) f[i] = 0;
+                }
+            }
+            for (int i = (to + 1) * stride, end = i + words; i < end; i++) f[i] = 0;
+
+            long[] t = f;
+            f = n;
+            n = t;
+            lo = nextLo;
+            hi = nextHi;
+        }
+        // The last layer found nothing: both buffers are all 0 again
+        frontier = f;
+        next = n;
+    }
+
+    // Free mask of the map, with a guard row above and below and a guard word after each row (all 0),
+    // so the shifts of the sweep never need bounds checks; padding bits past the last column stay 0 too
+    private void pack(boolean[][] obstacles, int w, int h)
+    {
+        words = (w + 63) >>> 6;
+        stride = words + 1;
+        int size = (h + 2) * stride;
+        free = new long[size];
+        seen = new long[size];
+        frontier = new long[size];
+        next = new long[size];
+        for (int y = 0; y < h; y++)
+        {
+            for (int x = 0; x < w; x++)
+            {
+                if (!obstacles[y][x]) free[(y + 1) * stride + (x >>> 6)] |= 1L << x;
+            }
+        }
+        packedWalls = obstacles;
+        width = w;
+        height = h;
+    }
+}
@@ -0,0 +1,210 @@
+package liquidwars.algo;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Cache of gradient fields keyed by (walls, target set, metric), with LRU eviction.
+ *
+ * Why:
+ * - the controllers need every team's gradient on every tick
+ * - most of the time the targets did not move since the last tick (AI updates every 3 ticks,
+ *   the player often holds still), so the field is identical
+ * - teams aiming at the same cell share one field
+ *
+ * Keys:
+ * - walls are compared by identity: a map's walls array never changes once loaded
+ *   (call invalidate(walls) if a caller does modify one)
+ * - the target set is order-insensitive
+ * - the metric comes from the solver, so GradientComputer and MeshGradientComputer
+ *   (or any other GradientSolver) can share one cache without mixing their fields
+ *
+ * Storage: 'capacity' fixed slots (keys copied into per-slot arrays, LRU by use stamp) scanned
+ * linearly - the capacity is a handful of entries, so the scan costs about a hash lookup, and
+ * neither hits nor misses allocate once the slots' target arrays have grown (a LinkedHashMap
+ * allocated a key copy and an entry per miss, i.e. per target move).
+ *
+ * Returned arrays belong to the cache: callers must only read them, and must not keep them
+ * after `capacity` further misses (evicted arrays are recycled for new entries).
+ * Not thread-safe.
+ */
+public final class GradientCache {
+
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final int capacity;
+
+    // Slot i is empty when lastUsed[i] == 0
+    private final boolean[][][] keyWalls;
+    private final GradientMetric[] keyMetric;
+    private final int[][] keyTargets;        // sorted, only the first keyCount[i] are used
+    private final int[] keyCount;
+    private final int[][][] fields;
+    private final long[] lastUsed;
+    private long useClock;
+    private int size;
+
+    private int[] probe = new int[4];        // sorted copy of the looked-up targets
+    private int probeCount;
+    private final ArrayDeque<int[][]> spare = new ArrayDeque<>(); // evicted arrays, ready for reuse
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public GradientCache()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public GradientCache(int capacity)
+    {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+
+        this.capacity = capacity;
+        this.keyWalls = new boolean[capacity][][];
+        this.keyMetric = new GradientMetric[capacity];
+        this.keyTargets = new int[capacity][4];
+        this.keyCount = new int[capacity];
+        this.fields = new int[capacity][][];
+        this.lastUsed = new long[capacity];
+    }
+
+    /**
+     * @param obstacles obstacles[y][x] == true means the cell is blocked
+     * @param targetCells target cells as flat indices (y * width + x)
+     * @param solver computes the field on a miss; its metric is part of the key
+     * @return the cached (read-only) field dist[y][x]
+     */
+    public int[][] get(boolean[][] obstacles, int[] targetCells, GradientSolver solver)
+    {
+        int[][] dist = lookup(obstacles, targetCells, solver.metric());
+        if (dist != null) return dist;
+
+        dist = borrowField(obstacles.length, obstacles[0].length);
+        solver.computeInto(obstacles, targetCells, dist);
+        store(obstacles, targetCells, solver.metric(), dist);
+        return dist;
+    }
+
+    /**
+     * First half of get(), for callers that compute the missing fields themselves
+     * (e.g. several teams in parallel): returns the cached field, or null on a miss.
+     */
+    public int[][] lookup(boolean[][] obstacles, int[] targetCells, GradientMetric metric)
+    {
+        setProbe(targetCells);
+
+        int slot = find(obstacles, metric);
+        if (slot < 0)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        lastUsed[slot] = ++useClock;
+        return fields[slot];
+    }
+
+    /** An array to compute a missing field into: recycled from an evicted entry when possible. */
+    public int[][] borrowField(int h, int w)
+    {
+        while (!spare.isEmpty())
+        {
+            int[][] recycled = spare.pollFirst();
+            if (recycled.length == h && recycled[0].length == w) return recycled;
+        }
+        return new int[h][w];
+    }
+
+    /** Second half of get(): adds a computed field (the cache owns it from now on). */
+    public void store(boolean[][] obstacles, int[] targetCells, GradientMetric metric, int[][] dist)
+    {
+        setProbe(targetCells);
+
+        int slot = find(obstacles, metric);
+        if (slot < 0) slot = freeSlot();
+
+        keyWalls[slot] = obstacles;
+        keyMetric[slot] = metric;
+        if (keyTargets[slot].length < probeCount) keyTargets[slot] = new int[probeCount];
+        System.arraycopy(probe, 0, keyTargets[slot], 0, probeCount);
+        keyCount[slot] = probeCount;
+        fields[slot] = dist;
+        lastUsed[slot] = ++useClock;
+    }
+
+    /** Drops every field computed for this walls array (to call after modifying it). */
+    public void invalidate(boolean[][] obstacles)
+    {
+        for (int i = 0; i < capacity; i++)
+        {
+            if (lastUsed[i] != 0 && keyWalls[i] == obstacles) drop(i);
+        }
+    }
+
+    public void clear()
+    {
+        for (int i = 0; i < capacity; i++)
+        {
+            if (lastUsed[i] != 0) drop(i);
+        }
+    }
+
+    public int size() { return size; }
+    public int capacity() { return capacity; }
+    public long hits() { return hits; }
+    public long misses() { return misses; }
+    public long evictions() { return evictions; }
+
+    // Sorted copy of the targets: the key is order-insensitive
+    private void setProbe(int[] targetCells)
+    {
+        if (probe.length < targetCells.length) probe = new int[targetCells.length];
+        System.arraycopy(targetCells, 0, probe, 0, targetCells.length);
+        probeCount = targetCells.length;
+        Arrays.sort(probe, 0, probeCount);
+    }
+
+    private int find(boolean[][] obstacles, GradientMetric metric)
+    {
+        for (int i = 0; i < capacity; i++)
+        {
+            if (lastUsed[i] != 0
+                && keyWalls[i] == obstacles
+                && keyMetric[i] == metric
+                && Arrays.equals(keyTargets[i], 0, keyCount[i], probe, 0, probeCount))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // An empty slot, or the least recently used one (its field goes to the spare arrays)
+    private int freeSlot()
+    {
+        int eldest = 0;
+        for (int i = 0; i < capacity; i++)
+        {
+            if (lastUsed[i] == 0)
+            {
+                size++;
+                return i;
+            }
+            if (lastUsed[i] < lastUsed[eldest]) eldest = i;
+        }
+        evictions++;
+        spare.addLast(fields[eldest]);
+        return eldest;
+    }
+
+    private void drop(int slot)
+    {
+        keyWalls[slot] = null;
+        keyMetric[slot] = null;
+        fields[slot] = null;
+        lastUsed[slot] = 0;
+        size--;
+    }
+}
@@ -1,7 +1,8 @@
 package liquidwars.algo;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import liquidwars.model.FreeCellGraph;
+
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,14 +19,30 @@ import java.util.List;
  * - obstacles are unreachable (INF)
  *
  * This is BFS (Breadth-First Search) from the targets outward.
+ *
+ * Performance:
+ * - the BFS queue is a flat int[] of cell indices (y * width + x), kept between calls
+ * - neighbours come from a FreeCellGraph of the obstacles (one byte of free-neighbour links
+ *   per cell): no bounds or obstacle test in the loop; the graph is built the first time an
+ *   obstacles array is seen and kept while the same array (by identity) is passed
+ * - computeInto() writes into a caller-owned dist array, so a steady-state call allocates nothing
+ * - compute() is kept for convenience and allocates a fresh dist array
+ * - an instance is NOT thread-safe (the queue is reused): use one instance per thread
  */
 
-public class GradientComputer {
+public class GradientComputer implements GradientSolver {
     public static final int INF = 1_000_000_000;
 
     // A grid coordinate: x = colun, y = row
     public record  Pos(int x, int y) {}
 
+    // Reusable BFS queue of flat cell indices (grown on demand)
+    private int[] queue = new int[0];
+
+    // Graph of the obstacles of the last call
+    private boolean[][] graphWalls;
+    private FreeCellGraph graph;
+
     /**
      * @param obstacles obstacles[y][x] == true means the cell is blocked
      * @param targets list of target cells (for one team)
@@ -37,65 +54,98 @@ public class GradientComputer {
         int h = obstacles.length;       // rows
         int w = obstacles[0].length;    // columns
 
-        // Initialise all distances to INF
-        int[][] dist = new int[h][w];
-        for (int y = 0; y < h; y++)
+        // Keep only targets inside the map, as flat indices
+        int[] cells = new int[targets.size()];
+        int n = 0;
+        for (Pos t : targets)
         {
-            for (int x = 0; x < w; x++)
-            {
-                dist[y][x] = INF;
-            }
+            if (inBounds(t.x, t.y, w, h)) cells[n++] = t.y * w + t.x;
         }
 
-        //BFS queue
-        Deque<Pos> q = new ArrayDeque<>();
+        int[][] dist = new int[h][w];
+        computeInto(obstacles, Arrays.copyOf(cells, n), dist);
+        return dist;
+    }
 
-        // Start BFS from all targets (multi-source BFS)
-        for (Pos t : targets)
+    @Override
+    public GradientMetric metric()
+    {
+        return GradientMetric.FOUR_NEIGHBOUR;
+    }
+
+    /**
+     * Allocation-free variant of compute().
+     *
+     * @param obstacles obstacles[y][x] == true means the cell is blocked
+     * @param targetCells target cells as flat indices (y * width + x); blocked or out-of-range cells are ignored
+     * @param dist output array [h][w], fully overwritten
+     */
+    @Override
+    public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist)
+    {
+        int h = obstacles.length;       // rows
+        int w = obstacles[0].length;    // columns
+        if (obstacles != graphWalls)
         {
-            if (inBounds(t.x, t.y, w, h) && !obstacles[t.y][t.x])
-            {
-                dist[t.y][t.x] = 0;
-                q.addLast(t);
-            }
+            graph = new FreeCellGraph(obstacles);
+            graphWalls = obstacles;
+        }
+        FreeCellGraph g = graph;
+
+        // Initialise all distances to INF (obstacles are never written again, so they stay INF)
+        for (int y = 0; y < h; y++)
+        {
+            Arrays.fill(dist[y], INF);
         }
 
-        // 4-neighbourhood (right, left, up, down)
-        int[] dx = {1, -1, 0, 0};
-        int[] dy = {0, 0, 1, -1};
+        if (queue.length < w * h) queue = new int[w * h];
+        int head = 0;
+        int tail = 0;
 
-        while (!q.isEmpty())
+        // Start BFS from all targets (multi-source BFS)
+        for (int cell : targetCells)
         {
-            Pos cur = q.removeFirst();
-            int base = dist[cur.y][cur.x];
+            if (cell < 0 || cell >= w * h) continue;
+            int tx = cell % w;
+            int ty = cell / w;
+            if (obstacles[ty][tx] || dist[ty][tx] == 0) continue;
 
-            for (int i = 0; i < 4; i++)
-            {
-                int nx = cur.x + dx[i];
-                int ny = cur.y + dy[i];
-
-                if (!inBounds(nx, ny, w, h)) continue;  // outside map
-                if (obstacles[ny][nx]) continue;        // blocked cell
-
-                int nd = base + 1;
-                if (nd < dist[ny][nx])                  // found a shorter path
-                {
-                    dist[ny][nx] = nd;
-                    q.addLast(new Pos(nx, ny));
-                }
-            }
+            dist[ty][tx] = 0;
+            queue[tail++] = cell;
         }
 
-        // Ensure obstacles stay INF (clarity)
-        for (int y = 0; y < h; y++)
+        // Each free cell is queued at most once: the first time it is reached is the shortest
+        while (head < tail)
         {
-            for (int x = 0; x < w; x++)
+            int cur = queue[head++];
+            int x = cur % w;
+            int y = cur / w;
+            int[] row = dist[y];
+            int nd = row[x] + 1;
+            int links = g.links(cur);
+
+            // Free 4-neighbours (right, left, down, up)
+            if ((links & 1) != 0 && row[x + 1] == INF)
+            {
+                row[x + 1] = nd;
+                queue[tail++] = cur + 1;
+            }
+            if ((links & 2) != 0 && row[x - 1] == INF)
+            {
+                row[x - 1] = nd;
+                queue[tail++] = cur - 1;
+            }
+            if ((links & 4) != 0 && dist[y + 1][x] == INF)
+            {
+                dist[y + 1][x] = nd;
+                queue[tail++] = cur + w;
+            }
+            if ((links & 8) != 0 && dist[y - 1][x] == INF)
             {
-                if (obstacles[y][x]) dist[y][x] = INF;
+                dist[y - 1][x] = nd;
+                queue[tail++] = cur - w;
             }
         }
-
-        return dist;
     }
 
     private boolean inBounds(int x, int y, int w, int h)
@@ -0,0 +1,23 @@
+package liquidwars.algo;
+
+/**
+ * Gradient fields of every team, tick after tick, as the controllers consume them.
+ *
+ * - TeamGradients: a complete field per team every tick (cached, misses computed in parallel)
+ * - SlicedGradients: persistent fields refined by a bounded amount of work per tick
+ *
+ * Fields are indexed [team][y][x] and only compared between neighbouring cells by the
+ * simulator; they are read-only for callers and valid until the next update().
+ */
+public interface GradientFields {
+
+    /**
+     * @param obstacles obstacles[y][x] == true means the cell is blocked
+     * @param cells cells[team] = target cell of the team (y * width + x)
+     * @return fields[team] = distance field of the team
+     */
+    int[][][] update(boolean[][] obstacles, int[] cells);
+
+    /** Releases worker threads, if any. */
+    void shutdown();
+}
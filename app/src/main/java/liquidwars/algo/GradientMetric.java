@@ -0,0 +1,17 @@
+package liquidwars.algo;
+
+/**
+ * Distance metric of a gradient field.
+ * Two solvers reporting the same metric produce identical dist arrays for the same input,
+ * so their results can be shared (see GradientCache).
+ */
+public enum GradientMetric {
+    /** 4-neighbourhood, every step costs 1 (GradientComputer). */
+    FOUR_NEIGHBOUR,
+
+    /** 8-neighbourhood, orthogonal step 10, diagonal step 14 (MeshGradientComputer). */
+    EIGHT_NEIGHBOUR,
+
+    /** 4-neighbour steps along the zone tree of a ZoneMesh (ZoneGradientComputer): >= FOUR_NEIGHBOUR. */
+    ZONE_MESH
+}
@@ -0,0 +1,17 @@
+package liquidwars.algo;
+
+/**
+ * Common entry point of the gradient computers, so callers (controllers, GradientCache)
+ * can switch between them.
+ *
+ * Conventions are the same as GradientComputer:
+ * - obstacles[y][x] == true means the cell is blocked
+ * - target cells are flat indices (y * width + x)
+ * - dist[y][x] is fully overwritten, targets get 0, blocked/unreachable cells get INF
+ */
+public interface GradientSolver {
+
+    GradientMetric metric();
+
+    void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist);
+}
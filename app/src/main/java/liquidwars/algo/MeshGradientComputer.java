@@ -1,8 +1,7 @@
 package liquidwars.algo;
 
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.PriorityQueue;
 
 /**
  * Improved gradient from initial 4-neighbours to 8 neighbours now, (BFS replaced with Dijktra algorithm)
@@ -14,8 +13,15 @@ import java.util.PriorityQueue;
  * Arrays are indexed as [y][x]:
  * - x = column
  * - y = row
+ *
+ * Priority queue:
+ * Edge costs are only 10 or 14, so instead of a binary heap we use a Dial bucket queue:
+ * a ring of (COST_DIAG + 1) buckets, bucket d % ring holds the cells whose tentative distance is d.
+ * Every key waiting in the queue lies in [d, d + COST_DIAG], so a bucket never mixes two distances.
+ * Buckets are flat int[] stacks of cell indices (y * width + x) kept between calls:
+ * a steady-state computeInto() allocates nothing. Not thread-safe (use one instance per thread).
  */
-public final class MeshGradientComputer {
+public final class MeshGradientComputer implements GradientSolver {
 
     public static final int INF = 1_000_000_000;
 
@@ -28,11 +34,14 @@ public final class MeshGradientComputer {
     private static final int[] DC = { COST_ORTHO, COST_ORTHO, COST_ORTHO, COST_ORTHO,
                                       COST_DIAG,  COST_DIAG,  COST_DIAG,  COST_DIAG };
 
+    // Ring of buckets: one per possible distance in the window [d, d + COST_DIAG]
+    private static final int RING = COST_DIAG + 1;
+
     // Position: x=col, y=row
     public record Pos(int x, int y) {}
 
-    // Priority queue node for Dijkstra
-    private record Node(int d, int x, int y) {}
+    private final int[][] buckets = new int[RING][16];
+    private final int[] bucketSize = new int[RING];
 
     /**
      * @param obstacles obstacles[y][x] == true means cell blocked
@@ -43,58 +52,92 @@ public final class MeshGradientComputer {
         int h = obstacles.length;
         int w = obstacles[0].length;
 
+        // Keep only targets inside the map, as flat indices
+        int[] cells = new int[targets.size()];
+        int n = 0;
+        for (Pos t : targets) {
+            if (inBounds(t.x(), t.y(), w, h)) cells[n++] = t.y() * w + t.x();
+        }
+
         int[][] dist = new int[h][w];
+        computeInto(obstacles, Arrays.copyOf(cells, n), dist);
+        return dist;
+    }
 
-        // Init all cells to INF
+    @Override
+    public GradientMetric metric() {
+        return GradientMetric.EIGHT_NEIGHBOUR;
+    }
+
+    /**
+     * Allocation-free variant of compute().
+     *
+     * @param obstacles obstacles[y][x] == true means cell blocked
+     * @param targetCells target cells as flat indices (y * width + x); blocked or out-of-range cells are ignored
+     * @param dist output array [h][w], fully overwritten
+     */
+    @Override
+    public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist) {
+        int h = obstacles.length;
+        int w = obstacles[0].length;
+
+        // Init all cells to INF (obstacles are never written again, so they stay INF)
         for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                dist[y][x] = INF;
-            }
+            Arrays.fill(dist[y], INF);
+        }
+        Arrays.fill(bucketSize, 0);
+        int queued = 0;
+
+        // Multi-source init: all targets start at distance 0
+        for (int cell : targetCells) {
+            if (cell < 0 || cell >= w * h) continue;
+            int tx = cell % w;
+            int ty = cell / w;
+            if (obstacles[ty][tx] || dist[ty][tx] == 0) continue;
+
+            dist[ty][tx] = 0;
+            push(0, cell);
+            queued++;
         }
 
-        PriorityQueue<Node> pq = new PriorityQueue<>(Comparator.comparingInt(Node::d));
+        // Dijkstra loop: visit distances in increasing order
+        for (int d = 0; queued > 0; d++) {
+            int b = d % RING;
 
-        // Multi-source init: push all targets with distance 0
-        for (Pos t : targets) {
-            if (inBounds(t.x(), t.y(), w, h) && !obstacles[t.y()][t.x()]) {
-                dist[t.y()][t.x()] = 0;
-                pq.add(new Node(0, t.x(), t.y()));
-            }
-        }
+            while (bucketSize[b] > 0) {
+                int cell = buckets[b][--bucketSize[b]];
+                queued--;
 
-        // Dijkstra loop
-        while (!pq.isEmpty()) {
-            Node cur = pq.poll();
-            int d = cur.d();
-            int x = cur.x();
-            int y = cur.y();
+                int x = cell % w;
+                int y = cell / w;
 
-            // Skip stale entries
-            if (d != dist[y][x]) continue;
+                // Skip stale entries (cell was improved after being pushed)
+                if (dist[y][x] != d) continue;
 
-            for (int i = 0; i < 8; i++) {
-                int nx = x + DX[i];
-                int ny = y + DY[i];
+                for (int i = 0; i < 8; i++) {
+                    int nx = x + DX[i];
+                    int ny = y + DY[i];
 
-                if (!inBounds(nx, ny, w, h)) continue;
-                if (obstacles[ny][nx]) continue;
+                    if (!inBounds(nx, ny, w, h)) continue;
+                    if (obstacles[ny][nx]) continue;
 
-                int nd = d + DC[i];
-                if (nd < dist[ny][nx]) {
-                    dist[ny][nx] = nd;
-                    pq.add(new Node(nd, nx, ny));
+                    int nd = d + DC[i];
+                    if (nd < dist[ny][nx]) {
+                        dist[ny][nx] = nd;
+                        push(nd, ny * w + nx);
+                        queued++;
+                    }
                 }
             }
         }
+    }
 
-        // Keep obstacles as INF (clarity)
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                if (obstacles[y][x]) dist[y][x] = INF;
-            }
+    private void push(int d, int cell) {
+        int b = d % RING;
+        if (bucketSize[b] == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], buckets[b].length * 2);
         }
-
-        return dist;
+        buckets[b][bucketSize[b]++] = cell;
     }
 
     private boolean inBounds(int x, int y, int w, int h) {
@@ -0,0 +1,293 @@
+package liquidwars.algo;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TeamGradients run one tick ahead, on a worker thread, while the caller steps the simulation
+ * with the latest completed fields.
+ *
+ * Per update() at tick N:
+ * 1) if the worker finished a job, its fields become the current ones
+ * 2) they are used if they are at most maxStaleness ticks old, i.e. computed for the targets of
+ *    tick N - maxStaleness or later (fields of targets that did not move are never stale);
+ *    otherwise the caller waits for the worker
+ * 3) if the worker is idle and the targets differ from those of the current fields, a job is
+ *    started for the targets of tick N: it runs while the caller steps (and renders) tick N
+ *
+ * maxStaleness = 0 gives exactly the fields of TeamGradients, tick for tick (the gradient is
+ * then only moved to another thread, not hidden); 1 or more lets a target move cost nothing on
+ * the ticking thread, at the price of particles following the previous target for that long.
+ *
+ * Two sets of fields: the caller reads one while the worker writes the other. The worker copies
+ * the fields TeamGradients returns (they belong to its cache, which may reuse them), skipping
+ * teams whose field did not change. Hand-off with volatile state and LockSupport: no allocation
+ * once both sets exist.
+ *
+ * Instrumentation, to confirm the overlap: workerNanos() is gradient time spent on the worker,
+ * waitNanos() the part of it the caller still waited for; ticksAtStaleness() counts how old the
+ * fields were. Read them on the ticking thread.
+ *
+ * The wrapped TeamGradients (and its cache) belong to the worker: do not use them directly.
+ * update() is called from one thread at a time, as for TeamGradients.
+ */
+public final class PipelinedGradients implements GradientFields {
+
+    private static final int IDLE = 0;
+    private static final int SUBMITTED = 1;
+    private static final int DONE = 2;
+
+    private final TeamGradients gradients;
+    private final int teams;
+    private final int maxStaleness;
+    private final Thread worker;
+
+    // Hand-off: the caller writes the job then sets SUBMITTED, the worker writes the back set then sets DONE
+    private volatile int state = IDLE;
+    private volatile boolean running = true;
+    private volatile Thread waiter;
+    private boolean[][] jobObstacles;
+    private final int[] jobCells;
+    private long jobNanos;
+    private Throwable failure;
+    private volatile boolean workerEnded;           // set as the worker thread exits, however it exits
+
+    // Field sets: sets[front] is returned, sets[1 - front] is the worker's
+    private final int[][][][] sets;
+    private final int[][] setCells;                 // target cells each set was computed for
+    private final int[][][][] setSources;           // TeamGradients arrays each set was copied from
+    private final boolean[][][] setWalls = new boolean[2][][];
+    private final long[] setTick = new long[2];     // tick whose targets the set was computed for
+    private int front = -1;                         // -1 before the first job completes
+
+    private long tick;
+    private long jobs;
+    private long waits;
+    private long waitNanos;
+    private long workerNanos;
+    private final long[] ticksAtStaleness;
+
+    /**
+     * @param gradients computes the fields (with its own cache, solvers and threads); owned by the worker from now on
+     * @param maxStaleness how many ticks old the returned fields may be, >= 0
+     */
+    public PipelinedGradients(TeamGradients gradients, int maxStaleness)
+    {
+        if (maxStaleness < 0) throw new IllegalArgumentException("maxStaleness must be >= 0");
+
+        this.gradients = gradients;
+        this.teams = gradients.teams();
+        this.maxStaleness = maxStaleness;
+        this.jobCells = new int[teams];
+        this.sets = new int[2][teams][][];
+        this.setCells = new int[2][teams];
+        this.setSources = new int[2][teams][][];
+        this.ticksAtStaleness = new long[maxStaleness + 1];
+
+        this.worker = new Thread(this::work, "gradient-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public int[][][] update(boolean[][] obstacles, int[] cells)
+    {
+        if (cells.length != teams) throw new IllegalArgumentException("expected one target per team");
+        if (!running) throw new IllegalStateException("gradient pipeline was shut down");
+        long now = tick++;
+
+        if (state == DONE) finish();
+        if (current(obstacles, cells)) setTick[front] = now;
+
+        // Too old (or none yet): wait for the job in flight, start one for tick N if it is not enough
+        if (front < 0 || now - setTick[front] > maxStaleness)
+        {
+            long t0 = System.nanoTime();
+            waits++;
+            do
+            {
+                if (state == IDLE) submit(obstacles, cells, now);
+                awaitDone();
+                finish();
+                if (current(obstacles, cells)) setTick[front] = now;
+            }
+            while (now - setTick[front] > maxStaleness);
+            waitNanos += System.nanoTime() - t0;
+        }
+
+        // Targets of tick N not computed yet: the worker starts on them while the caller steps
+        if (state == IDLE && !current(obstacles, cells)) submit(obstacles, cells, now);
+
+        ticksAtStaleness[(int) (now - setTick[front])]++;
+        return sets[front];
+    }
+
+    /**
+     * Stops the worker and the wrapped TeamGradients, and waits for the worker to end (after the
+     * job in progress, if any). update() may not be called afterwards.
+     */
+    @Override
+    public void shutdown()
+    {
+        running = false;
+        LockSupport.unpark(worker);
+
+        boolean interrupted = false;
+        while (worker.isAlive())
+        {
+            try
+            {
+                worker.join();
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        gradients.shutdown();       // after the worker's last job, which may use its pool
+    }
+
+    public int maxStaleness() { return maxStaleness; }
+
+    /** @return jobs completed by the worker */
+    public long jobs() { return jobs; }
+
+    /** @return update() calls that had to wait for the worker */
+    public long waits() { return waits; }
+
+    /** @return time update() spent waiting for the worker, in nanoseconds */
+    public long waitNanos() { return waitNanos; }
+
+    /** @return time the worker spent computing fields, in nanoseconds (completed jobs) */
+    public long workerNanos() { return workerNanos; }
+
+    /** @return update() calls whose fields were 'age' ticks old (0 <= age <= maxStaleness) */
+    public long ticksAtStaleness(int age) { return ticksAtStaleness[age]; }
+
+    // The current set was computed for these walls and targets
+    private boolean current(boolean[][] obstacles, int[] cells)
+    {
+        return front >= 0 && setWalls[front] == obstacles && Arrays.equals(setCells[front], cells);
+    }
+
+    private void submit(boolean[][] obstacles, int[] cells, long now)
+    {
+        jobObstacles = obstacles;
+        System.arraycopy(cells, 0, jobCells, 0, teams);
+        setTick[back()] = now;
+        state = SUBMITTED;
+        LockSupport.unpark(worker);
+    }
+
+    private void awaitDone()
+    {
+        waiter = Thread.currentThread();
+        try
+        {
+            while (state != DONE)
+            {
+                if (workerEnded || !worker.isAlive()) throw new IllegalStateException("gradient worker ended");
+                LockSupport.park(this);
+            }
+        }
+        finally
+        {
+            waiter = null;
+        }
+    }
+
+    // Takes the finished back set as the current one
+    private void finish()
+    {
+        if (failure != null)
+        {
+            Throwable e = failure;
+            failure = null;
+            state = IDLE;
+            throw new IllegalStateException("gradient worker failed", e);
+        }
+        front = back();
+        jobObstacles = null;
+        jobs++;
+        workerNanos += jobNanos;
+        state = IDLE;
+    }
+
+    private int back()
+    {
+        return (front == 1) ? 0 : 1;
+    }
+
+    private void work()
+    {
+        try
+        {
+            while (running)
+            {
+                if (state != SUBMITTED)
+                {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                long t0 = System.nanoTime();
+                try
+                {
+                    fill(back());
+                }
+                catch (Throwable e)
+                {
+                    failure = e;        // an Error too: the caller must not wait for a job that never ends
+                }
+                finally
+                {
+                    jobNanos = System.nanoTime() - t0;
+                    state = DONE;
+                    wakeWaiter();
+                }
+            }
+        }
+        finally
+        {
+            workerEnded = true;
+            wakeWaiter();
+        }
+    }
+
+    private void wakeWaiter()
+    {
+        Thread w = waiter;
+        if (w != null) LockSupport.unpark(w);
+    }
+
+    // Worker side: fields of the job into set b, copying only the teams whose field changed
+    private void fill(int b)
+    {
+        boolean[][] obstacles = jobObstacles;
+        int[][][] fields = gradients.update(obstacles, jobCells);
+        int h = obstacles.length;
+        int w = obstacles[0].length;
+        boolean sameWalls = setWalls[b] == obstacles;
+
+        for (int t = 0; t < teams; t++)
+        {
+            // A cache field keeps its content while it holds the same target: same array + same target = same values
+            if (sameWalls && setSources[b][t] == fields[t] && setCells[b][t] == jobCells[t]) continue;
+
+            int[][] dst = sets[b][t];
+            if (dst == null || dst.length != h || dst[0].length != w)
+            {
+                dst = new int[h][w];
+                sets[b][t] = dst;
+            }
+            for (int y = 0; y < h; y++)
+            {
+                System.arraycopy(fields[t][y], 0, dst[y], 0, w);
+            }
+            setSources[b][t] = fields[t];
+            setCells[b][t] = jobCells[t];
+        }
+        setWalls[b] = obstacles;
+    }
+}
@@ -0,0 +1,173 @@
+package liquidwars.algo;
+
+import java.util.Arrays;
+
+/**
+ * Time-sliced gradient fields: each team's field persists between ticks and is refined by at
+ * most visitsPerTick cell visits per tick, as the original game spreads its gradient over
+ * several frames. The cost of a tick is bounded by the budget, whatever the map size.
+ *
+ * Per team, a BFS wave from the target, advanced across ticks:
+ * - a target move starts a new wave (the unfinished part of the previous one is dropped)
+ * - cells the wave has reached hold base + d, d = exact 4-neighbour distance to the target;
+ *   the others keep the values of earlier waves, so particles there keep moving meanwhile
+ * - every wave starts below all the values of the earlier ones (base -= cells), so at the edge
+ *   of the wave the fresh values are the lowest and particles are drawn into the updated area
+ * - once the wave is complete the field is GradientComputer's plus the constant base on the
+ *   target's side of the map (the simulator only compares neighbours: the offset is invisible);
+ *   walls and cells no wave has reached are INF
+ * - if the next base would overflow (after ~2^31 / cells target moves) the field is reset to
+ *   INF and the bases start again from 0
+ *
+ * Teams are independent (no cache, no sharing) and run on the calling thread: the budget
+ * already bounds the work. Allocation-free once the buffers exist for the map.
+ * Not thread-safe (one instance per controller).
+ */
+public final class SlicedGradients implements GradientFields {
+
+    public static final int INF = GradientComputer.INF;
+
+    private final int teams;
+    private final int visitsPerTick;
+    private final Wave[] waves;            // waves[team]
+    private final int[][][] fields;        // fields[team] = waves[team].dist, returned by update()
+
+    /**
+     * @param teams number of teams (one target cell each)
+     * @param visitsPerTick cells a team's wave may visit per update(); a field converges within
+     *                      (reachable cells / visitsPerTick) ticks of a target move
+     */
+    public SlicedGradients(int teams, int visitsPerTick)
+    {
+        if (teams <= 0) throw new IllegalArgumentException("teams must be positive");
+        if (visitsPerTick <= 0) throw new IllegalArgumentException("visitsPerTick must be positive");
+
+        this.teams = teams;
+        this.visitsPerTick = visitsPerTick;
+        this.waves = new Wave[teams];
+        for (int t = 0; t < teams; t++) waves[t] = new Wave();
+        this.fields = new int[teams][][];
+    }
+
+    public int visitsPerTick()
+    {
+        return visitsPerTick;
+    }
+
+    @Override
+    public int[][][] update(boolean[][] obstacles, int[] cells)
+    {
+        if (cells.length != teams) throw new IllegalArgumentException("expected one target per team");
+
+        for (int t = 0; t < teams; t++)
+        {
+            Wave wave = waves[t];
+            wave.advance(obstacles, cells[t], visitsPerTick);
+            fields[t] = wave.dist;
+        }
+        return fields;
+    }
+
+    /** Nothing to stop: the waves run on the calling thread. */
+    @Override
+    public void shutdown() { }
+
+    /** @return true when the team's field is complete for its current target */
+    public boolean converged(int team)
+    {
+        return waves[team].head == waves[team].tail;
+    }
+
+    /** @return cells visited by the team's waves since it was created */
+    public long visits(int team)
+    {
+        return waves[team].visits;
+    }
+
+    // One team's persistent field and the BFS queue of its current wave
+    private static final class Wave
+    {
+        private boolean[][] walls;
+        private int width;
+        private int height;
+
+        private int[][] dist = new int[0][0];
+        private int[] reachedBy = new int[0];     // id of the last wave that reached the cell
+        private int[] queue = new int[0];         // each cell at most once per wave
+        private int head;
+        private int tail;
+
+        private int id;                           // current wave, 0 = none yet
+        private int base;
+        private int target = -1;
+        private long visits;
+
+        void advance(boolean[][] obstacles, int cell, int budget)
+        {
+            if (obstacles != walls) reset(obstacles);
+            if (cell != target) start(cell);
+
+            int w = width;
+            int h = height;
+            while (budget > 0 && head < tail)
+            {
+                int c = queue[head++];
+                budget--;
+                visits++;
+
+                int x = c % w;
+                int y = c / w;
+                int next = dist[y][x] + 1;
+                if (x + 1 < w) reach(c + 1, x + 1, y, next);
+                if (x > 0) reach(c - 1, x - 1, y, next);
+                if (y + 1 < h) reach(c + w, x, y + 1, next);
+                if (y > 0) reach(c - w, x, y - 1, next);
+            }
+        }
+
+        private void reach(int c, int x, int y, int d)
+        {
+            if (walls[y][x] || reachedBy[c] == id) return;
+            reachedBy[c] = id;
+            dist[y][x] = d;
+            queue[tail++] = c;
+        }
+
+        private void start(int cell)
+        {
+            target = cell;
+            head = 0;
+            tail = 0;
+            int cells = width * height;
+            if (cell < 0 || cell >= cells || walls[cell / width][cell % width]) return;    // no wave: the field stays
+
+            if (id > 0 && base < Integer.MIN_VALUE + 2 * cells) clear();
+            base = (id == 0) ? 0 : base - cells;
+            id++;
+
+            reachedBy[cell] = id;
+            dist[cell / width][cell % width] = base;
+            queue[tail++] = cell;
+        }
+
+        private void reset(boolean[][] obstacles)
+        {
+            walls = obstacles;
+            height = obstacles.length;
+            width = obstacles[0].length;
+            dist = new int[height][width];
+            reachedBy = new int[width * height];
+            queue = new int[width * height];
+            target = -1;
+            clear();
+        }
+
+        private void clear()
+        {
+            for (int[] row : dist) Arrays.fill(row, INF);
+            Arrays.fill(reachedBy, 0);
+            id = 0;
+            base = 0;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package liquidwars.algo;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Gradient fields of every team for one tick, with the missing ones computed concurrently.
+ *
+ * Per update():
+ * 1) cache lookups, in team order (on the calling thread)
+ * 2) the fields that missed are computed at the same time: one solver per team, so no
+ *    solver buffer is shared; teams aiming at the same cell compute it only once. The calling
+ *    thread computes one field, then takes back the fields no worker has started (each task is
+ *    claimed once, by a worker or by the caller), and parks until the workers finish theirs:
+ *    it never spins against a worker, even with fewer free cores than threads
+ * 3) the new fields are stored in the cache, in team order
+ *
+ * Each field only depends on (walls, target), so the fields, the cache contents and the
+ * hit/miss counters are exactly those of the sequential loop. With threads == 1 (or a single miss) everything runs on
+ * the calling thread and no pool is created.
+ *
+ * The returned array and the fields belong to this object and the cache: read-only for callers.
+ * Once warm an update() allocates nothing, hits or misses (the pool tasks are reused).
+ * Not thread-safe (one instance per controller).
+ */
+public final class TeamGradients implements GradientFields {
+
+    private final int teams;
+    private final int threads;
+    private final GradientCache cache;
+    private final GradientSolver[] solvers;        // solvers[team]
+    private final ForkJoinPool pool;               // null when threads == 1
+
+    private final int[][] targetCells;             // targetCells[team] = { cell }, reused as cache key
+    private final int[][][] fields;                // fields[team], returned by update()
+    private final int[] missing;                   // teams whose field is computed this tick
+    private final FieldTask[] tasks;               // tasks[team], reinitialized for each use
+    private volatile Thread waiter;                // calling thread while it waits for the workers
+
+    /**
+     * @param teams number of teams (one target cell each)
+     * @param cache shared field cache, must hold at least one field per team
+     * @param solverFactory creates one solver per team (all with the same metric)
+     * @param threads maximum number of fields computed at the same time, 1 = sequential
+     */
+    public TeamGradients(int teams, GradientCache cache, Supplier<? extends GradientSolver> solverFactory, int threads)
+    {
+        if (teams <= 0) throw new IllegalArgumentException("teams must be positive");
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive");
+        if (cache.capacity() < teams) throw new IllegalArgumentException("cache capacity must be >= teams");
+
+        this.teams = teams;
+        this.threads = Math.min(threads, teams);
+        this.cache = cache;
+        this.solvers = new GradientSolver[teams];
+        for (int t = 0; t < teams; t++)
+        {
+            solvers[t] = solverFactory.get();
+            if (solvers[t].metric() != solvers[0].metric()) throw new IllegalArgumentException("solvers must share one metric");
+        }
+        this.pool = (this.threads > 1) ? new ForkJoinPool(this.threads) : null;
+
+        this.targetCells = new int[teams][1];
+        this.fields = new int[teams][][];
+        this.missing = new int[teams];
+        this.tasks = new FieldTask[teams];
+        for (int t = 0; t < teams; t++) tasks[t] = new FieldTask(t);
+    }
+
+    /** Default thread count: one per team, bounded by the available cores. */
+    public static int defaultThreads(int teams)
+    {
+        return Math.max(1, Math.min(teams, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public int threads()
+    {
+        return threads;
+    }
+
+    public int teams()
+    {
+        return teams;
+    }
+
+    /**
+     * @param obstacles obstacles[y][x] == true means the cell is blocked
+     * @param cells cells[team] = target cell of the team (y * width + x)
+     * @return fields[team] = distance field of the team (read-only)
+     */
+    @Override
+    public int[][][] update(boolean[][] obstacles, int[] cells)
+    {
+        if (cells.length != teams) throw new IllegalArgumentException("expected one target per team");
+
+        int h = obstacles.length;
+        int w = obstacles[0].length;
+        GradientMetric metric = solvers[0].metric();
+
+        // 1) Lookups, in team order
+        int missCount = 0;
+        for (int t = 0; t < teams; t++)
+        {
+            targetCells[t][0] = cells[t];
+            fields[t] = null;
+
+            // Same target as an earlier team: share its field, resolved in step 3
+            if (sameTargetBefore(t) >= 0) continue;
+
+            fields[t] = cache.lookup(obstacles, targetCells[t], metric);
+            if (fields[t] != null) continue;
+
+            missing[missCount++] = t;
+        }
+
+        // 2) Compute the misses concurrently (the first one on the calling thread)
+        for (int k = 0; k < missCount; k++)
+        {
+            fields[missing[k]] = cache.borrowField(h, w);
+        }
+        if (pool == null || missCount <= 1)
+        {
+            for (int k = 0; k < missCount; k++) compute(obstacles, missing[k]);
+        }
+        else
+        {
+            for (int k = 1; k < missCount; k++)
+            {
+                FieldTask task = tasks[missing[k]];
+                if (task.forked && !task.isDone())
+                {
+                    // Still queued from an earlier tick (the caller claimed it then): it claims this one when it runs
+                    task.prepare(obstacles);
+                    continue;
+                }
+                task.reinitialize();
+                task.prepare(obstacles);
+                task.forked = true;
+                pool.execute(task);
+            }
+            compute(obstacles, missing[0]);
+
+            // Fields no worker has started yet: computed here rather than waited for
+            for (int k = 1; k < missCount; k++)
+            {
+                FieldTask task = tasks[missing[k]];
+                if (task.claim()) task.computeField();
+            }
+            // The others are in progress on a worker: park until each is done (a blocking join()
+            // from outside the pool would allocate a wait node); failures come back through finish()
+            waiter = Thread.currentThread();
+            for (int k = 1; k < missCount; k++)
+            {
+                FieldTask task = tasks[missing[k]];
+                while (!task.fieldDone) LockSupport.park(this);
+            }
+            waiter = null;
+            for (int k = 1; k < missCount; k++)
+            {
+                tasks[missing[k]].finish();
+            }
+        }
+
+        // 3) Store in team order; duplicate targets are now hits, as in the sequential loop
+        for (int k = 0; k < missCount; k++)
+        {
+            int team = missing[k];
+            cache.store(obstacles, targetCells[team], metric, fields[team]);
+        }
+        for (int t = 0; t < teams; t++)
+        {
+            if (fields[t] == null) fields[t] = cache.lookup(obstacles, targetCells[t], metric);
+        }
+        return fields;
+    }
+
+    /** Stops the worker threads (they are daemon threads, so this is optional). */
+    @Override
+    public void shutdown()
+    {
+        if (pool != null) pool.shutdown();
+    }
+
+    private void compute(boolean[][] obstacles, int team)
+    {
+        solvers[team].computeInto(obstacles, targetCells[team], fields[team]);
+    }
+
+    // One per team, computed by whichever of a worker or the calling thread claims it first
+    private final class FieldTask extends RecursiveAction
+    {
+        private final int team;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private boolean[][] obstacles;
+        private Throwable failure;              // any throwable: an Error must not leave the caller parked
+        private boolean forked;                 // submitted to the pool at least once
+        private volatile boolean fieldDone;     // written after the field: publishes it to the caller
+
+        FieldTask(int team)
+        {
+            this.team = team;
+        }
+
+        // claimed is reset last: a worker that claims the task sees the new obstacles
+        void prepare(boolean[][] obstacles)
+        {
+            this.obstacles = obstacles;
+            this.failure = null;
+            this.fieldDone = false;
+            claimed.set(false);
+        }
+
+        boolean claim()
+        {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (claim()) computeField();
+        }
+
+        void computeField()
+        {
+            try
+            {
+                TeamGradients.this.compute(obstacles, team);
+            }
+            catch (Throwable e)
+            {
+                failure = e;
+            }
+            finally
+            {
+                fieldDone = true;
+                Thread w = waiter;
+                if (w != null) LockSupport.unpark(w);
+            }
+        }
+
+        // Caller side, once fieldDone: rethrows a failure of the worker as it was
+        void finish()
+        {
+            obstacles = null;
+            Throwable e = failure;
+            if (e == null) return;
+            failure = null;
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            if (e instanceof Error) throw (Error) e;
+            throw new IllegalStateException("gradient worker failed", e);
+        }
+    }
+
+    private int sameTargetBefore(int team)
+    {
+        for (int t = 0; t < team; t++)
+        {
+            if (targetCells[t][0] == targetCells[team][0]) return t;
+        }
+        return -1;
+    }
+}
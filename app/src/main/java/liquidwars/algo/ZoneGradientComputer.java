@@ -0,0 +1,300 @@
+package liquidwars.algo;
+
+import java.util.Arrays;
+
+/**
+ * Gradient solved on the zones of a ZoneMesh instead of on every cell.
+ *
+ * 1. Zone level: Dijkstra over the zone graph, from the zones holding a target, with edge
+ *    weight = Manhattan distance between zone centres. Gives each reachable zone its parent,
+ *    the neighbour it leaves through towards the target. Cost depends on the number of zones,
+ *    not on the map resolution: an open area is one node however many cells it has.
+ * 2. Cell level (expansion), zone by zone, parents first:
+ *    - in a zone holding targets: Manhattan distance to the nearest of them (a square has no
+ *      walls, so this is also the exact BFS distance)
+ *    - elsewhere: walk to the border shared with the parent (straight, then along it to the
+ *      closest border cell), step across, and add the distance of the cell reached
+ *    Every value is the length of a real 4-neighbour path, so it is >= the exact BFS distance
+ *    (GradientComputer), and every free cell except the targets has a neighbour one step lower:
+ *    particles never get stuck in a local minimum.
+ *
+ * computeInto() expands every zone (GradientSolver contract: dist fully overwritten). solve()
+ * only runs the zone level, and distanceAt() then expands the zones it is asked about (and their
+ * parents) on demand: a caller that only needs the cells around a few particles never pays for
+ * the rest of the map.
+ *
+ * Limitation: the controllers (solverFactory, GradientCache) and the simulators work on full
+ * int[][] fields, so in play this engine only runs through computeInto(). The zone level is
+ * still cheap there, but the expansion writes every free cell: a tick costs O(cells), as with
+ * the BFS, only without the queue. The lazy path is for callers that query a few cells
+ * (tests, GradientBenchmark); feeding it to the step would need a simulator reading distances
+ * through a query instead of an array.
+ *
+ * Same reachability and INF conventions as GradientComputer, metric ZONE_MESH. The mesh is built
+ * the first time a walls array is seen and kept while the same array (by identity) is passed.
+ * A steady-state call allocates nothing. Not thread-safe (use one instance per thread).
+ */
+public final class ZoneGradientComputer implements GradientSolver {
+
+    public static final int INF = GradientComputer.INF;
+
+    private boolean[][] meshWalls;
+    private ZoneMesh mesh;
+
+    // Zone level, per solve()
+    private int[] zoneDist = new int[0];    // doubled units (centres may fall between cells)
+    private int[] parent = new int[0];      // -1 for target zones and unreachable zones
+    private int[] settled = new int[0];     // reachable zones, in the order Dijkstra settled them
+    private int settledCount;
+    private long[] heap = new long[0];      // (distance << 32) | zone, lazy deletion
+    private int[] targets = new int[4];     // valid target cells of the last solve()
+    private int targetCount;
+
+    // Lazy expansion (distanceAt): a zone is expanded when expandedIn[z] == epoch
+    private int[][] lazyDist = new int[0][0];
+    private int[] expandedIn = new int[0];
+    private int[] chain = new int[0];
+    private int epoch;
+    private int zonesExpanded;
+
+    @Override
+    public GradientMetric metric()
+    {
+        return GradientMetric.ZONE_MESH;
+    }
+
+    @Override
+    public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist)
+    {
+        solve(obstacles, targetCells);
+        for (int y = 0; y < dist.length; y++)
+        {
+            Arrays.fill(dist[y], INF);
+        }
+        for (int i = 0; i < settledCount; i++)
+        {
+            fill(settled[i], dist);
+        }
+    }
+
+    /**
+     * Zone level only: distances between zones and the parent of each zone. Cells are expanded
+     * later, on demand, by distanceAt().
+     *
+     * @param targetCells flat indices (y * width + x); blocked or out-of-range cells are ignored
+     */
+    public void solve(boolean[][] obstacles, int[] targetCells)
+    {
+        if (obstacles != meshWalls) useMesh(obstacles);
+        ZoneMesh m = mesh;
+        int cells = m.width() * m.height();
+
+        Arrays.fill(zoneDist, INF);
+        Arrays.fill(parent, -1);
+        settledCount = 0;
+        targetCount = 0;
+        epoch++;
+        zonesExpanded = 0;
+
+        int size = 0;
+        for (int cell : targetCells)
+        {
+            if (cell < 0 || cell >= cells) continue;
+            int z = m.zoneOf(cell);
+            if (z < 0) continue;
+
+            if (targetCount == targets.length) targets = Arrays.copyOf(targets, targetCount * 2);
+            targets[targetCount++] = cell;
+            if (zoneDist[z] != 0)
+            {
+                zoneDist[z] = 0;
+                size = push(size, 0, z);
+            }
+        }
+
+        while (size > 0)
+        {
+            long top = heap[0];
+            size = pop(size);
+            int d = (int) (top >>> 32);
+            int z = (int) top;
+            if (d != zoneDist[z]) continue;     // stale entry
+            settled[settledCount++] = z;
+
+            int cx = centre2(m.x0(z), m.side(z));
+            int cy = centre2(m.y0(z), m.side(z));
+            for (int i = m.neighbourStart(z), end = m.neighbourEnd(z); i < end; i++)
+            {
+                int n = m.neighbour(i);
+                int nd = d + Math.abs(centre2(m.x0(n), m.side(n)) - cx) + Math.abs(centre2(m.y0(n), m.side(n)) - cy);
+                if (nd < zoneDist[n])
+                {
+                    zoneDist[n] = nd;
+                    parent[n] = z;
+                    size = push(size, nd, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * Distance of one cell for the targets of the last solve(), expanding its zone (and the
+     * parents it depends on) the first time a cell of that zone is asked for.
+     *
+     * @return same value computeInto() would write at dist[y][x]
+     * @throws IllegalStateException if solve() (or computeInto()) was never called
+     */
+    public int distanceAt(int x, int y)
+    {
+        if (mesh == null) throw new IllegalStateException("solve() must be called before distanceAt()");
+        int z = mesh.zoneOf(y * mesh.width() + x);
+        if (z < 0 || zoneDist[z] == INF) return INF;
+
+        int n = 0;
+        while (z >= 0 && expandedIn[z] != epoch)
+        {
+            chain[n++] = z;
+            z = parent[z];
+        }
+        while (n > 0)
+        {
+            int c = chain[--n];
+            fill(c, lazyDist);
+            expandedIn[c] = epoch;
+            zonesExpanded++;
+        }
+        return lazyDist[y][x];
+    }
+
+    /** @return mesh of the walls of the last call */
+    public ZoneMesh mesh() { return mesh; }
+
+    /** @return zones expanded by distanceAt() since the last solve() */
+    public int zonesExpanded() { return zonesExpanded; }
+
+    private void useMesh(boolean[][] obstacles)
+    {
+        ZoneMesh m = ZoneMesh.of(obstacles);
+        int zones = m.zoneCount();
+        zoneDist = new int[zones];
+        parent = new int[zones];
+        settled = new int[zones];
+        heap = new long[zones + m.neighbourEntries()];
+        lazyDist = new int[m.height()][m.width()];
+        expandedIn = new int[zones];
+        chain = new int[zones];
+        epoch = 0;
+        mesh = m;
+        meshWalls = obstacles;
+    }
+
+    // Cell distances of zone z into out; its parent's cells must already be there
+    private void fill(int z, int[][] out)
+    {
+        ZoneMesh m = mesh;
+        int zx0 = m.x0(z);
+        int zy0 = m.y0(z);
+        int s = m.side(z);
+        int zx1 = zx0 + s;
+        int zy1 = zy0 + s;
+        int p = parent[z];
+
+        if (p < 0)
+        {
+            // Zone holding targets: nearest of its targets
+            for (int y = zy0; y < zy1; y++)
+            {
+                for (int x = zx0; x < zx1; x++)
+                {
+                    int best = INF;
+                    for (int i = 0; i < targetCount; i++)
+                    {
+                        int t = targets[i];
+                        if (m.zoneOf(t) != z) continue;
+                        best = Math.min(best, Math.abs(t % m.width() - x) + Math.abs(t / m.width() - y));
+                    }
+                    out[y][x] = best;
+                }
+            }
+            return;
+        }
+
+        int px0 = m.x0(p);
+        int py0 = m.y0(p);
+        int px1 = px0 + m.side(p);
+        int py1 = py0 + m.side(p);
+
+        if (px0 == zx1 || px1 == zx0)
+        {
+            // Parent on the right or left: shared rows [lo, hi], cross at column exitX -> entryX
+            int lo = Math.max(zy0, py0);
+            int hi = Math.min(zy1, py1) - 1;
+            int exitX = (px0 == zx1) ? zx1 - 1 : zx0;
+            int entryX = (px0 == zx1) ? px0 : px1 - 1;
+            for (int y = zy0; y < zy1; y++)
+            {
+                int sy = Math.max(lo, Math.min(hi, y));
+                int base = Math.abs(y - sy) + 1 + out[sy][entryX];
+                for (int x = zx0; x < zx1; x++)
+                {
+                    out[y][x] = base + Math.abs(exitX - x);
+                }
+            }
+        }
+        else
+        {
+            // Parent below or above: shared columns [lo, hi], cross at row exitY -> entryY
+            int lo = Math.max(zx0, px0);
+            int hi = Math.min(zx1, px1) - 1;
+            int exitY = (py0 == zy1) ? zy1 - 1 : zy0;
+            int entryY = (py0 == zy1) ? py0 : py1 - 1;
+            for (int y = zy0; y < zy1; y++)
+            {
+                int toBorder = Math.abs(exitY - y) + 1;
+                for (int x = zx0; x < zx1; x++)
+                {
+                    int sx = Math.max(lo, Math.min(hi, x));
+                    out[y][x] = toBorder + Math.abs(x - sx) + out[entryY][sx];
+                }
+            }
+        }
+    }
+
+    // Twice the centre coordinate of a side-long span starting at v0 (an integer even for even sides)
+    private static int centre2(int v0, int side)
+    {
+        return 2 * v0 + side - 1;
+    }
+
+    private int push(int size, int d, int zone)
+    {
+        long key = ((long) d << 32) | zone;
+        int i = size;
+        while (i > 0)
+        {
+            int up = (i - 1) >>> 1;
+            if (heap[up] <= key) break;
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = key;
+        return size + 1;
+    }
+
+    private int pop(int size)
+    {
+        long last = heap[--size];
+        int i = 0;
+        while (true)
+        {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= last) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return size;
+    }
+}
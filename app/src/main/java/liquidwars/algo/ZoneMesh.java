@@ -0,0 +1,153 @@
+package liquidwars.algo;
+
+import java.util.Arrays;
+
+/**
+ * Free area of a map cut into square zones, as in the original Liquid Wars mesh.
+ *
+ * Built once per map (of()), then read-only: it can be shared by any number of threads.
+ * - zones are greedy maximal squares: scanning row by row, the first free cell not yet covered
+ *   starts a square that grows while its next row and column are free and uncovered; open areas
+ *   collapse to a few big squares, narrow passages to small ones
+ * - every free cell belongs to exactly one zone (zoneOf), walls to none (-1)
+ * - two zones are neighbours when a cell of one is 4-adjacent to a cell of the other, so they
+ *   always share a border segment; the zone graph is connected exactly where the free cells are
+ * - neighbours are stored as one flat list (CSR): the neighbours of z are
+ *   neighbour(i) for i in [neighbourStart(z), neighbourEnd(z))
+ *
+ * Arrays are indexed as [y][x], cells as flat indices (y * width + x).
+ */
+public final class ZoneMesh {
+
+    private final int width;
+    private final int height;
+    private final int[] zoneOf;         // cell -> zone, -1 for walls
+
+    // Zone z covers x0[z] <= x < x0[z] + side[z], y0[z] <= y < y0[z] + side[z]
+    private final int[] x0;
+    private final int[] y0;
+    private final int[] side;
+
+    private final int[] neighbourStart; // zones + 1 entries
+    private final int[] neighbours;
+
+    private ZoneMesh(int width, int height, int[] zoneOf, int[] x0, int[] y0, int[] side, int[] neighbourStart, int[] neighbours)
+    {
+        this.width = width;
+        this.height = height;
+        this.zoneOf = zoneOf;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.side = side;
+        this.neighbourStart = neighbourStart;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * @param walls walls[y][x] == true means the cell is blocked
+     */
+    public static ZoneMesh of(boolean[][] walls)
+    {
+        int h = walls.length;
+        int w = walls[0].length;
+        int[] zoneOf = new int[w * h];
+        Arrays.fill(zoneOf, -1);
+
+        int[] x0 = new int[16];
+        int[] y0 = new int[16];
+        int[] side = new int[16];
+        int zones = 0;
+
+        for (int y = 0; y < h; y++)
+        {
+            for (int x = 0; x < w; x++)
+            {
+                if (walls[y][x] || zoneOf[y * w + x] >= 0) continue;
+
+                int s = 1;
+                while (canGrow(walls, zoneOf, w, h, x, y, s)) s++;
+
+                if (zones == x0.length)
+                {
+                    x0 = Arrays.copyOf(x0, zones * 2);
+                    y0 = Arrays.copyOf(y0, zones * 2);
+                    side = Arrays.copyOf(side, zones * 2);
+                }
+                x0[zones] = x;
+                y0[zones] = y;
+                side[zones] = s;
+                for (int yy = y; yy < y + s; yy++)
+                {
+                    Arrays.fill(zoneOf, yy * w + x, yy * w + x + s, zones);
+                }
+                zones++;
+            }
+        }
+
+        // Neighbours: zones of the cells just outside each border, without repeats
+        int[] start = new int[zones + 1];
+        int[] list = new int[4 * zones];
+        int[] lastSeenBy = new int[zones];
+        Arrays.fill(lastSeenBy, -1);
+        int n = 0;
+        for (int z = 0; z < zones; z++)
+        {
+            start[z] = n;
+            int s = side[z];
+            for (int i = 0; i < s; i++)
+            {
+                int[] outside = {
+                        zoneAt(zoneOf, w, h, x0[z] + i, y0[z] - 1),
+                        zoneAt(zoneOf, w, h, x0[z] + i, y0[z] + s),
+                        zoneAt(zoneOf, w, h, x0[z] - 1, y0[z] + i),
+                        zoneAt(zoneOf, w, h, x0[z] + s, y0[z] + i) };
+                for (int other : outside)
+                {
+                    if (other < 0 || lastSeenBy[other] == z) continue;
+                    lastSeenBy[other] = z;
+                    if (n == list.length) list = Arrays.copyOf(list, n * 2);
+                    list[n++] = other;
+                }
+            }
+        }
+        start[zones] = n;
+
+        return new ZoneMesh(w, h, zoneOf, Arrays.copyOf(x0, zones), Arrays.copyOf(y0, zones),
+                Arrays.copyOf(side, zones), start, Arrays.copyOf(list, n));
+    }
+
+    // Square of side s at (x, y) can take one more row and column: all free and not covered yet
+    private static boolean canGrow(boolean[][] walls, int[] zoneOf, int w, int h, int x, int y, int s)
+    {
+        if (x + s >= w || y + s >= h) return false;
+        for (int i = 0; i <= s; i++)
+        {
+            if (walls[y + s][x + i] || zoneOf[(y + s) * w + x + i] >= 0) return false;
+            if (walls[y + i][x + s] || zoneOf[(y + i) * w + x + s] >= 0) return false;
+        }
+        return true;
+    }
+
+    private static int zoneAt(int[] zoneOf, int w, int h, int x, int y)
+    {
+        return (x >= 0 && x < w && y >= 0 && y < h) ? zoneOf[y * w + x] : -1;
+    }
+
+    public int width() { return width; }
+    public int height() { return height; }
+    public int zoneCount() { return side.length; }
+
+    /** @return zone of the cell (y * width + x), -1 for a wall */
+    public int zoneOf(int cell) { return zoneOf[cell]; }
+
+    public int x0(int zone) { return x0[zone]; }
+    public int y0(int zone) { return y0[zone]; }
+    public int side(int zone) { return side[zone]; }
+
+    public int neighbourStart(int zone) { return neighbourStart[zone]; }
+    public int neighbourEnd(int zone) { return neighbourStart[zone + 1]; }
+    public int neighbour(int i) { return neighbours[i]; }
+
+    /** @return total number of neighbour entries (each adjacency counted from both sides) */
+    public int neighbourEntries() { return neighbours.length; }
+}
@@ -0,0 +1,57 @@
+package liquidwars.model;
+
+/**
+ * A pair of worlds used by the tick loop instead of copying the whole grid every tick.
+ *
+ * - front = last completed frame (what getWorld() / the renderer sees)
+ * - back  = reusable buffer the simulator writes the next frame into
+ *
+ * Both worlds share the same walls array. The back buffer is brought up to date by
+ * copying only the cells the front logged as changed (see World's change log),
+ * so a tick costs O(changed cells) instead of O(W*H) and allocates nothing.
+ *
+ * Usage per tick:
+ *      World next = buffers.prepareBack();
+ *      simulator.stepInto(buffers.front(), next, gradients);
+ *      buffers.swap();
+ */
+public final class DoubleBufferedWorld {
+
+    private World front;
+    private World back;
+
+    public DoubleBufferedWorld(World initial)
+    {
+        if (initial == null) throw new IllegalArgumentException("initial world must not be null");
+
+        this.front = initial;
+        this.back = initial.copy();
+        this.front.clearChanges(); // back already matches front
+    }
+
+    /** @return the last completed frame */
+    public World front()
+    {
+        return front;
+    }
+
+    /**
+     * Makes the back buffer identical to the front and returns it.
+     * Only cells changed in the front since the previous call are copied.
+     */
+    public World prepareBack()
+    {
+        back.copyChangedCellsFrom(front);
+        front.clearChanges();
+        back.clearChanges();
+        return back;
+    }
+
+    /** Publishes the back buffer as the new front. */
+    public void swap()
+    {
+        World t = front;
+        front = back;
+        back = t;
+    }
+}
@@ -0,0 +1,101 @@
+package liquidwars.model;
+
+import java.util.Arrays;
+
+/**
+ * Per-team running totals of a World, updated by every particle write (World.store / remove).
+ *
+ * Kept per team: particle count, energy, sum of x and y (centroid), particles per row and
+ * per column (bounding box without scanning the grid), plus one energy histogram for all teams.
+ * Row/column arrays are created the first time a team appears, then reused.
+ *
+ * Package-private: read through World.teamCount() / teamEnergy() or a TickStats snapshot.
+ */
+final class TeamTotals {
+
+    static final int TEAMS = World.MAX_TEAM_ID + 1;
+    static final int ENERGY_VALUES = World.MAX_ENERGY - World.MIN_ENERGY + 1;
+
+    final int width;
+    final int height;
+
+    final int[] count = new int[TEAMS];
+    final int[] energy = new int[TEAMS];
+    final long[] sumX = new long[TEAMS];
+    final long[] sumY = new long[TEAMS];
+    final int[][] perRow = new int[TEAMS][];        // perRow[team][y] = particles of team in row y
+    final int[][] perColumn = new int[TEAMS][];     // perColumn[team][x]
+    final int[] histogram = new int[ENERGY_VALUES]; // histogram[energy - MIN_ENERGY]
+    int teamLimit;                                  // 1 + highest team id ever stored
+
+    TeamTotals(int width, int height)
+    {
+        this.width = width;
+        this.height = height;
+    }
+
+    void add(int x, int y, int team, int e)
+    {
+        if (perRow[team] == null)
+        {
+            perRow[team] = new int[height];
+            perColumn[team] = new int[width];
+            if (team >= teamLimit) teamLimit = team + 1;
+        }
+        count[team]++;
+        energy[team] += e;
+        sumX[team] += x;
+        sumY[team] += y;
+        perRow[team][y]++;
+        perColumn[team][x]++;
+        histogram[e - World.MIN_ENERGY]++;
+    }
+
+    void remove(int x, int y, int team, int e)
+    {
+        count[team]--;
+        energy[team] -= e;
+        sumX[team] -= x;
+        sumY[team] -= y;
+        perRow[team][y]--;
+        perColumn[team][x]--;
+        histogram[e - World.MIN_ENERGY]--;
+    }
+
+    TeamTotals copy()
+    {
+        TeamTotals c = new TeamTotals(width, height);
+        c.copyFrom(this);
+        return c;
+    }
+
+    /** Same size required; allocates only for teams this instance never saw. */
+    void copyFrom(TeamTotals o)
+    {
+        System.arraycopy(o.count, 0, count, 0, TEAMS);
+        System.arraycopy(o.energy, 0, energy, 0, TEAMS);
+        System.arraycopy(o.sumX, 0, sumX, 0, TEAMS);
+        System.arraycopy(o.sumY, 0, sumY, 0, TEAMS);
+        System.arraycopy(o.histogram, 0, histogram, 0, ENERGY_VALUES);
+
+        for (int t = 0; t < TEAMS; t++)
+        {
+            if (o.perRow[t] != null)
+            {
+                if (perRow[t] == null)
+                {
+                    perRow[t] = new int[height];
+                    perColumn[t] = new int[width];
+                }
+                System.arraycopy(o.perRow[t], 0, perRow[t], 0, height);
+                System.arraycopy(o.perColumn[t], 0, perColumn[t], 0, width);
+            }
+            else if (perRow[t] != null)
+            {
+                Arrays.fill(perRow[t], 0);
+                Arrays.fill(perColumn[t], 0);
+            }
+        }
+        teamLimit = Math.max(teamLimit, o.teamLimit);
+    }
+}
@@ -0,0 +1,145 @@
+package liquidwars.model;
+
+/**
+ * Statistics of a World after a tick: per-team particle count, energy, centroid and bounding
+ * box, plus the energy histogram of all particles.
+ *
+ * capture() does not scan the grid: the World keeps running per-team totals, updated by every
+ * write the simulator makes during its step. Copying them is O(teams), and each bounding box
+ * costs O(width + height) from the per-row / per-column counts. Everything is read in O(1)
+ * afterwards, and a snapshot is reused from tick to tick (no allocation).
+ *
+ * A snapshot is plain mutable data: share it between threads through a TripleBuffer, not directly.
+ */
+public final class TickStats {
+
+    private static final int TEAMS = TeamTotals.TEAMS;
+
+    private long tick;
+    private int teamLimit;
+    private int particleCount;
+    private int totalEnergy;
+
+    private final int[] count = new int[TEAMS];
+    private final int[] energy = new int[TEAMS];
+    private final long[] sumX = new long[TEAMS];
+    private final long[] sumY = new long[TEAMS];
+    private final int[] minX = new int[TEAMS];
+    private final int[] minY = new int[TEAMS];
+    private final int[] maxX = new int[TEAMS];
+    private final int[] maxY = new int[TEAMS];
+    private final int[] histogram = new int[TeamTotals.ENERGY_VALUES];
+
+    /** Snapshots 'world' as tick number 'tick'. */
+    public void capture(World world, long tick)
+    {
+        TeamTotals t = world.totals();
+        this.tick = tick;
+        this.teamLimit = t.teamLimit;
+        this.particleCount = world.particleCount();
+        this.totalEnergy = world.totalEnergy();
+
+        System.arraycopy(t.count, 0, count, 0, TEAMS);
+        System.arraycopy(t.energy, 0, energy, 0, TEAMS);
+        System.arraycopy(t.sumX, 0, sumX, 0, TEAMS);
+        System.arraycopy(t.sumY, 0, sumY, 0, TEAMS);
+        System.arraycopy(t.histogram, 0, histogram, 0, histogram.length);
+
+        for (int team = 0; team < TEAMS; team++)
+        {
+            if (count[team] == 0)
+            {
+                minX[team] = minY[team] = maxX[team] = maxY[team] = -1;
+                continue;
+            }
+            int[] rows = t.perRow[team];
+            int[] cols = t.perColumn[team];
+            minY[team] = firstNonZero(rows);
+            maxY[team] = lastNonZero(rows);
+            minX[team] = firstNonZero(cols);
+            maxX[team] = lastNonZero(cols);
+        }
+    }
+
+    /** @return tick number given to capture() */
+    public long tick() { return tick; }
+
+    /** @return 1 + highest team id that ever had a particle in the world (teams to loop over) */
+    public int teamLimit() { return teamLimit; }
+
+    public int particleCount() { return particleCount; }
+
+    public int totalEnergy() { return totalEnergy; }
+
+    public int count(int teamId) { return count[checkTeam(teamId)]; }
+
+    public int energy(int teamId) { return energy[checkTeam(teamId)]; }
+
+    /** @return number of teams that still have at least one particle */
+    public int teamsAlive()
+    {
+        int alive = 0;
+        for (int team = 0; team < teamLimit; team++)
+        {
+            if (count[team] > 0) alive++;
+        }
+        return alive;
+    }
+
+    /** @return number of particles (all teams) with exactly this energy */
+    public int energyCount(int energy)
+    {
+        if (energy < World.MIN_ENERGY || energy > World.MAX_ENERGY)
+        {
+            throw new IllegalArgumentException("energy out of range: " + energy);
+        }
+        return histogram[energy - World.MIN_ENERGY];
+    }
+
+    /** @return mean x of the team's particles (rounded down), or -1 if it has none */
+    public int centroidX(int teamId)
+    {
+        int n = count[checkTeam(teamId)];
+        return (n == 0) ? -1 : (int) (sumX[teamId] / n);
+    }
+
+    /** @return mean y of the team's particles (rounded down), or -1 if it has none */
+    public int centroidY(int teamId)
+    {
+        int n = count[checkTeam(teamId)];
+        return (n == 0) ? -1 : (int) (sumY[teamId] / n);
+    }
+
+    /** Bounding box of the team's particles, inclusive; -1 if it has none. */
+    public int minX(int teamId) { return minX[checkTeam(teamId)]; }
+    public int minY(int teamId) { return minY[checkTeam(teamId)]; }
+    public int maxX(int teamId) { return maxX[checkTeam(teamId)]; }
+    public int maxY(int teamId) { return maxY[checkTeam(teamId)]; }
+
+    private static int firstNonZero(int[] a)
+    {
+        for (int i = 0; i < a.length; i++)
+        {
+            if (a[i] != 0) return i;
+        }
+        return -1;
+    }
+
+    private static int lastNonZero(int[] a)
+    {
+        for (int i = a.length - 1; i >= 0; i--)
+        {
+            if (a[i] != 0) return i;
+        }
+        return -1;
+    }
+
+    private static int checkTeam(int teamId)
+    {
+        if (teamId < 0 || teamId >= TEAMS)
+        {
+            throw new IllegalArgumentException("teamId out of range: " + teamId);
+        }
+        return teamId;
+    }
+}
@@ -1,5 +1,7 @@
 package liquidwars.model;
 
+import java.util.Arrays;
+
 /**
  * Represents the whole grid at a given instant.
  *
@@ -12,19 +14,61 @@ package liquidwars.model;
  * - a wall (obstacle) OR
  * - a particle OR
  * - be empty
+ *
+ * Storage (struct-of-arrays):
+ * - particles are not kept as objects, but as two flat primitive arrays
+ *   indexed by y * width + x: one byte for the team id, one byte for the energy
+ * - the hot path (simulator, renderers, AI) uses teamAt / energyAt / setParticle / clear
+ *   and never allocates
+ * - get / set(Particle) are kept as a compatibility view on top of the arrays
+ *
+ * Walls never change after construction, so copies share them by reference, and so does
+ * their FreeCellGraph (free-neighbour links of every cell, built once per map).
+ *
+ * Occupied index: a bitset with one bit per occupied cell, kept up to date by every write
+ * (move, conversion, removal). nextOccupied() walks it in row-major order, so loops over the
+ * particles skip empty cells and walls 64 at a time while keeping the plain scan order
+ * (deterministic replays). particleCount() and totalEnergy() are running totals, and so are
+ * the per-team figures (teamCount(), teamEnergy(), and the centroid / bounding box /
+ * energy histogram snapshotted by TickStats): statistics never need a scan of the grid.
+ *
+ * Every write through the public API is recorded in a change log (each cell at most once)
+ * until clearChanges() is called. DoubleBufferedWorld uses it to keep its back buffer
+ * in sync without copying the whole grid.
  */
 
 public final class World {
 
+    /** Team id reported by teamAt() for a cell without particle. */
+    public static final int EMPTY = -1;
+
+    /** Largest team id / energy that fits in the byte storage. */
+    public static final int MAX_TEAM_ID = Byte.MAX_VALUE;
+    public static final int MAX_ENERGY = Byte.MAX_VALUE;
+    public static final int MIN_ENERGY = Byte.MIN_VALUE;
+
     private final int width;
     private final int height;
 
     private final boolean[][] walls;        // walls[y][x]
-    private final Particle[][] particles;   // particles[y][x] (null = empty)
+    private final FreeCellGraph graph;      // links of the free cells, from walls
+    private final byte[] teams;             // teams[y * width + x] (EMPTY = no particle)
+    private final byte[] energies;          // energies[y * width + x] (only meaningful when occupied)
+
+    // Occupied index + running totals
+    private final long[] occupied;          // bit i set <=> teams[i] != EMPTY
+    private int particleCount;
+    private int totalEnergy;
+    private final TeamTotals totals;        // per-team counts, energy, centroid, bounding box
 
-    public World(boolean[][] walls, Particle[][] particles) 
+    // Change log: cells written since the last clearChanges()
+    private final long[] changedBits;       // one bit per cell, avoids logging a cell twice
+    private int[] changed = new int[64];    // grows on demand, reused afterwards
+    private int changedCount;
+
+    public World(boolean[][] walls, Particle[][] particles)
     {
-        if (walls == null || walls.length == 0 || walls[0].length == 0) 
+        if (walls == null || walls.length == 0 || walls[0].length == 0)
         {
             throw new IllegalArgumentException("walls must be a non-empty 2D array");
         }
@@ -33,21 +77,21 @@ public final class World {
         this.width = walls[0].length; // FIX: width is number of columns
 
         // Validate rectangle
-        for (int y = 0; y < height; y++) 
+        for (int y = 0; y < height; y++)
         {
-            if (walls[y] == null || walls[y].length != width) 
+            if (walls[y] == null || walls[y].length != width)
             {
                 throw new IllegalArgumentException("walls must be rectangular");
             }
         }
 
-        if (particles == null || particles.length != height) 
+        if (particles == null || particles.length != height)
         {
             throw new IllegalArgumentException("particles must match walls height");
         }
-        for (int y = 0; y < height; y++) 
+        for (int y = 0; y < height; y++)
         {
-            if (particles[y] == null || particles[y].length != width) 
+            if (particles[y] == null || particles[y].length != width)
             {
                 throw new IllegalArgumentException("particles must match walls width");
             }
@@ -55,68 +99,333 @@ public final class World {
 
         // Defensive copy
         this.walls = new boolean[height][width];
-        this.particles = new Particle[height][width];
+        this.teams = new byte[width * height];
+        this.energies = new byte[width * height];
+        this.occupied = new long[(width * height + 63) >>> 6];
+        this.changedBits = new long[(width * height + 63) >>> 6];
+        this.totals = new TeamTotals(width, height);
+        Arrays.fill(teams, (byte) EMPTY);
 
-        for (int y = 0; y < height; y++) 
+        for (int y = 0; y < height; y++)
         {
             System.arraycopy(walls[y], 0, this.walls[y], 0, width);
-            System.arraycopy(particles[y], 0, this.particles[y], 0, width);
+            for (int x = 0; x < width; x++)
+            {
+                Particle p = particles[y][x];
+                if (p != null) write(y * width + x, p.teamId(), p.energy());
+            }
         }
+        this.graph = new FreeCellGraph(this.walls);
+    }
+
+    // Copy constructor: particles are copied in bulk, walls are shared (never modified)
+    private World(World other)
+    {
+        this.width = other.width;
+        this.height = other.height;
+        this.walls = other.walls;
+        this.graph = other.graph;
+        this.teams = other.teams.clone();
+        this.energies = other.energies.clone();
+        this.occupied = other.occupied.clone();
+        this.particleCount = other.particleCount;
+        this.totalEnergy = other.totalEnergy;
+        this.totals = other.totals.copy();
+        this.changedBits = new long[other.changedBits.length];
     }
 
     public int width() { return width; }
     public int height() { return height; }
 
-    public boolean inBounds(int x, int y) 
+    public boolean inBounds(int x, int y)
     {
         return x >= 0 && x < width && y >= 0 && y < height;
     }
 
-    public boolean isWall(int x, int y) 
+    public boolean isWall(int x, int y)
     {
         return walls[y][x];
     }
 
-    public Particle get(int x, int y) 
+    /** @return free-neighbour links of every cell (shared by all copies of this world) */
+    public FreeCellGraph freeCellGraph()
+    {
+        return graph;
+    }
+
+    // ---- Primitive accessors (hot path, no allocation) ----
+
+    public boolean isOccupied(int x, int y)
+    {
+        return teams[y * width + x] != EMPTY;
+    }
+
+    /** @return team id of the particle at (x, y), or EMPTY */
+    public int teamAt(int x, int y)
+    {
+        return teams[y * width + x];
+    }
+
+    /** @return energy of the particle at (x, y); only meaningful if the cell is occupied */
+    public int energyAt(int x, int y)
+    {
+        return energies[y * width + x];
+    }
+
+    /** teamAt() by flat index (y * width + x), e.g. for cells returned by nextOccupied() */
+    public int teamAtCell(int cell)
+    {
+        return teams[cell];
+    }
+
+    /** energyAt() by flat index (y * width + x) */
+    public int energyAtCell(int cell)
+    {
+        return energies[cell];
+    }
+
+    public void setParticle(int x, int y, int teamId, int energy)
+    {
+        int i = y * width + x;
+        write(i, teamId, energy);
+        logChange(i);
+    }
+
+    public void clear(int x, int y)
+    {
+        int i = y * width + x;
+        remove(i);
+        logChange(i);
+    }
+
+    /**
+     * @param from flat index (y * width + x) to start from, inclusive
+     * @return flat index of the first occupied cell at or after 'from' (row-major order), or -1
+     */
+    public int nextOccupied(int from)
+    {
+        if (from < 0) from = 0;
+        int word = from >>> 6;
+        if (word >= occupied.length) return -1;
+
+        long bits = occupied[word] & (-1L << from);   // shift uses from & 63
+        while (true)
+        {
+            if (bits != 0) return (word << 6) + Long.numberOfTrailingZeros(bits);
+            if (++word == occupied.length) return -1;
+            bits = occupied[word];
+        }
+    }
+
+    // ---- Compatibility view (allocates a Particle per call) ----
+
+    public Particle get(int x, int y)
+    {
+        int i = y * width + x;
+        if (teams[i] == EMPTY) return null;
+        return new Particle(teams[i], energies[i]);
+    }
+
+    public void set(int x, int y, Particle p)
+    {
+        if (p == null) clear(x, y);
+        else setParticle(x, y, p.teamId(), p.energy());
+    }
+
+    /** Deep copy of the grid state (walls are shared, the change log starts empty). */
+    public World copy()
+    {
+        return new World(this);
+    }
+
+    /** @return true if both worlds use the very same walls array (copies of each other) */
+    public boolean sharesWallsWith(World other)
     {
-        return particles[y][x];
+        return walls == other.walls;
     }
 
-    public void set(int x, int y, Particle p) 
+    // ---- Change log ----
+
+    /** @return number of cells written since the last clearChanges() */
+    public int changeCount()
     {
-        particles[y][x] = p;
+        return changedCount;
     }
 
-    /** Deep copy of the grid state. */
-    public World copy() 
+    /** @return flat index (y * width + x) of the k-th changed cell, 0 <= k < changeCount() */
+    public int changedIndex(int k)
     {
-        return new World(this.walls, this.particles);
+        return changed[k];
     }
 
-    public int particleCount() 
+    public void clearChanges()
     {
-        int count = 0;
-        for (int y = 0; y < height; y++) 
+        for (int k = 0; k < changedCount; k++)
         {
-            for (int x = 0; x < width; x++) 
-            {
-                if (particles[y][x] != null) count++;
-            }
+            int i = changed[k];
+            changedBits[i >>> 6] &= ~(1L << i);
         }
-        return count;
+        changedCount = 0;
     }
 
-    public int totalEnergy() 
+    /**
+     * Copies into this world every cell that src logged as changed.
+     * The copied cells are NOT logged here: this is how a stale buffer catches up.
+     */
+    public void copyChangedCellsFrom(World src)
     {
-        int sum = 0;
-        for (int y = 0; y < height; y++) 
+        if (!sharesWallsWith(src))
         {
-            for (int x = 0; x < width; x++) 
-            {
-                Particle p = particles[y][x];
-                if (p != null) sum += p.energy();
-            }
+            throw new IllegalArgumentException("worlds must share the same walls");
+        }
+
+        for (int k = 0; k < src.changedCount; k++)
+        {
+            int i = src.changed[k];
+            if (src.teams[i] == EMPTY) remove(i);
+            else store(i, src.teams[i], src.energies[i]);
+        }
+    }
+
+    /**
+     * Adds to this change log every cell that src logged, without copying the cells.
+     * Used to merge the change logs of several ticks into one frame.
+     */
+    public void logChangesFrom(World src)
+    {
+        if (!sharesWallsWith(src))
+        {
+            throw new IllegalArgumentException("worlds must share the same walls");
+        }
+
+        for (int k = 0; k < src.changedCount; k++)
+        {
+            logChange(src.changed[k]);
+        }
+    }
+
+    /**
+     * Makes this world an exact copy of src: particles, totals AND change log.
+     * Bulk copy, no allocation once the change log has grown; used to snapshot frames.
+     */
+    public void copyFrom(World src)
+    {
+        if (!sharesWallsWith(src))
+        {
+            throw new IllegalArgumentException("worlds must share the same walls");
+        }
+
+        System.arraycopy(src.teams, 0, teams, 0, teams.length);
+        System.arraycopy(src.energies, 0, energies, 0, energies.length);
+        System.arraycopy(src.occupied, 0, occupied, 0, occupied.length);
+        particleCount = src.particleCount;
+        totalEnergy = src.totalEnergy;
+        totals.copyFrom(src.totals);
+
+        clearChanges();
+        for (int k = 0; k < src.changedCount; k++)
+        {
+            logChange(src.changed[k]);
+        }
+    }
+
+    private void write(int i, int teamId, int energy)
+    {
+        if (teamId < 0 || teamId > MAX_TEAM_ID)
+        {
+            throw new IllegalArgumentException("teamId out of range: " + teamId);
+        }
+        if (energy < MIN_ENERGY || energy > MAX_ENERGY)
+        {
+            throw new IllegalArgumentException("energy out of range: " + energy);
+        }
+
+        store(i, teamId, energy);
+    }
+
+    // All particle writes go through store/remove so the index and totals stay exact
+    private void store(int i, int teamId, int energy)
+    {
+        int x = i % width;
+        int y = i / width;
+        if (teams[i] == EMPTY)
+        {
+            occupied[i >>> 6] |= 1L << i;
+            particleCount++;
+        }
+        else
+        {
+            totalEnergy -= energies[i];
+            totals.remove(x, y, teams[i], energies[i]);
+        }
+        teams[i] = (byte) teamId;
+        energies[i] = (byte) energy;
+        totalEnergy += energy;
+        totals.add(x, y, teamId, energy);
+    }
+
+    private void remove(int i)
+    {
+        if (teams[i] != EMPTY)
+        {
+            occupied[i >>> 6] &= ~(1L << i);
+            particleCount--;
+            totalEnergy -= energies[i];
+            totals.remove(i % width, i / width, teams[i], energies[i]);
+        }
+        teams[i] = EMPTY;
+        energies[i] = 0;
+    }
+
+    private void logChange(int i)
+    {
+        long bit = 1L << i;
+        if ((changedBits[i >>> 6] & bit) != 0) return;
+        changedBits[i >>> 6] |= bit;
+
+        if (changedCount == changed.length)
+        {
+            changed = Arrays.copyOf(changed, Math.min(changed.length * 2, teams.length));
+        }
+        changed[changedCount++] = i;
+    }
+
+    /** O(1): maintained by every write. */
+    public int particleCount()
+    {
+        return particleCount;
+    }
+
+    /** O(1): maintained by every write. */
+    public int totalEnergy()
+    {
+        return totalEnergy;
+    }
+
+    /** O(1): number of particles of a team (0 for a team that has none). */
+    public int teamCount(int teamId)
+    {
+        return totals.count[checkTeam(teamId)];
+    }
+
+    /** O(1): total energy of a team's particles. */
+    public int teamEnergy(int teamId)
+    {
+        return totals.energy[checkTeam(teamId)];
+    }
+
+    /** Running per-team totals, snapshotted by TickStats. */
+    TeamTotals totals()
+    {
+        return totals;
+    }
+
+    private static int checkTeam(int teamId)
+    {
+        if (teamId < 0 || teamId > MAX_TEAM_ID)
+        {
+            throw new IllegalArgumentException("teamId out of range: " + teamId);
         }
-        return sum;
+        return teamId;
     }
 }
@@ -0,0 +1,133 @@
+package liquidwars.sim;
+
+/**
+ * Fixed-timestep scheduler: decides how many simulation steps to run for the real time elapsed.
+ *
+ * Accumulator:
+ * - each advance(now) adds (now - last) * speed to the accumulator
+ * - every full 'stepNanos' in it is one step to run, the remainder carries over
+ * So a late or slow tick is caught up by the next call(s) instead of dropping real time,
+ * and the simulation rate no longer depends on the frame rate.
+ *
+ * Catch-up cap: at most 'maxCatchUpSteps' steps of lateness per call (times the speed).
+ * Beyond that the extra time is dropped, so a long stall (debugger, GC, machine too slow)
+ * does not turn into a burst of ticks that would stall even more.
+ *
+ * Speed: 1x, 4x, 16x real time, or UNBOUNDED (one step per call, never waits).
+ *
+ * Pure logic on caller-supplied nanoTime values, not thread-safe; SimulationLoop owns one.
+ */
+public final class FixedTimestep {
+
+    /** Simulation speed relative to real time. */
+    public enum Speed {
+        X1(1), X4(4), X16(16), UNBOUNDED(0);
+
+        private final int multiplier;
+
+        Speed(int multiplier)
+        {
+            this.multiplier = multiplier;
+        }
+
+        /** @return steps per real step period, 0 for UNBOUNDED */
+        public int multiplier()
+        {
+            return multiplier;
+        }
+
+        /** @return the next speed, wrapping around after UNBOUNDED */
+        public Speed next()
+        {
+            Speed[] all = values();
+            return all[(ordinal() + 1) % all.length];
+        }
+    }
+
+    private final long stepNanos;
+    private final int maxCatchUpSteps;
+
+    private volatile Speed speed = Speed.X1;   // may be changed from the UI thread
+    private long last;
+    private long accumulator;
+    private boolean started;
+
+    /**
+     * @param stepNanos simulated time of one step (real time at 1x)
+     * @param maxCatchUpSteps how many late steps may be caught up at once (at 1x), >= 1
+     */
+    public FixedTimestep(long stepNanos, int maxCatchUpSteps)
+    {
+        if (stepNanos <= 0) throw new IllegalArgumentException("stepNanos must be positive");
+        if (maxCatchUpSteps < 1) throw new IllegalArgumentException("maxCatchUpSteps must be >= 1");
+
+        this.stepNanos = stepNanos;
+        this.maxCatchUpSteps = maxCatchUpSteps;
+    }
+
+    public long stepNanos() { return stepNanos; }
+
+    public Speed speed() { return speed; }
+
+    public void setSpeed(Speed speed)
+    {
+        if (speed == null) throw new IllegalArgumentException("speed must not be null");
+        this.speed = speed;
+    }
+
+    /** Restarts the clock at 'now' with an empty accumulator (e.g. when the loop starts). */
+    public void reset(long now)
+    {
+        last = now;
+        accumulator = 0;
+        started = true;
+    }
+
+    /**
+     * Consumes the time elapsed since the last call.
+     * @return number of steps to run now (0 = too early)
+     */
+    public int advance(long now)
+    {
+        if (!started) reset(now);
+
+        Speed s = speed;
+        if (s == Speed.UNBOUNDED)
+        {
+            last = now;
+            accumulator = 0;
+            return 1;
+        }
+
+        long elapsed = Math.max(0, now - last);
+        last = now;
+
+        // Cap before multiplying: a long stall must not overflow the accumulator
+        long maxNanos = (maxCatchUpSteps + 1) * stepNanos;
+        accumulator += Math.min(elapsed, maxNanos) * s.multiplier();
+
+        long steps = accumulator / stepNanos;
+        long maxSteps = (long) maxCatchUpSteps * s.multiplier();
+        if (steps > maxSteps)
+        {
+            steps = maxSteps;
+            accumulator = 0;            // too late: drop the rest
+        }
+        else
+        {
+            accumulator -= steps * stepNanos;
+        }
+        return (int) steps;
+    }
+
+    /** @return real time until the next step is due, 0 if it is due already (or UNBOUNDED) */
+    public long nanosUntilNextStep(long now)
+    {
+        Speed s = speed;
+        if (s == Speed.UNBOUNDED) return 0;
+
+        long missing = stepNanos - accumulator;                     // simulated nanos
+        long real = (missing + s.multiplier() - 1) / s.multiplier(); // real nanos
+        return Math.max(0, real - Math.max(0, now - last));
+    }
+}
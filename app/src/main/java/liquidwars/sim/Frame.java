@@ -0,0 +1,56 @@
+package liquidwars.sim;
+
+import liquidwars.model.World;
+
+/**
+ * A completed simulation frame, as handed to the renderer by SimulationLoop.
+ *
+ * The world is a private snapshot (World.copyFrom), so the simulation keeps running while
+ * the frame is drawn. seq numbers the ticks, and the change log lists the cells of every tick
+ * since the previously published frame (previousSeq): several ticks per frame (4x, 16x,
+ * catch-up) still give one merged log. A consumer whose last shown frame is not previousSeq
+ * has skipped frames and must redraw everything.
+ *
+ * Frames are recycled through a TripleBuffer: read them, never modify them.
+ */
+public final class Frame {
+
+    private final World world;
+    private long previousSeq;
+    private long seq;
+
+    /** @param template any world of the match (same size and walls) */
+    public Frame(World template)
+    {
+        this.world = template.copy();
+    }
+
+    /**
+     * Snapshots 'source' as tick number 'seq', for ticks previousSeq + 1 .. seq.
+     * @param earlierChanges cells changed by the ticks before the last one (merged into the log of source)
+     */
+    public void capture(World source, World earlierChanges, long previousSeq, long seq)
+    {
+        world.copyFrom(source);
+        world.logChangesFrom(earlierChanges);
+        this.previousSeq = previousSeq;
+        this.seq = seq;
+    }
+
+    public World world()
+    {
+        return world;
+    }
+
+    /** @return number of the tick this frame shows (0 = nothing captured yet) */
+    public long seq()
+    {
+        return seq;
+    }
+
+    /** @return seq of the frame published before this one: the change log covers the ticks after it */
+    public long previousSeq()
+    {
+        return previousSeq;
+    }
+}
@@ -0,0 +1,274 @@
+package liquidwars.sim;
+
+import liquidwars.model.FreeCellGraph;
+import liquidwars.model.World;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Same rules and same result as StepSimulator, without allocating.
+ *
+ * Differences with the reference engine:
+ * - the plan is a reusable int[], one packed int per particle that does something:
+ *      cell << 4 | type << 2 | direction
+ *   (cell = y * width + x, type = MOVE / ATTACK / TRANSFER, direction = index in DX/DY)
+ * - NONE decisions are not stored at all (applying them does nothing)
+ * - each team's gradient is looked up once per tick instead of once per particle
+ * - no wall/bounds test: the free neighbours of a particle are one 4-bit mask, read from
+ *   the world's FreeCellGraph
+ *
+ * Decisions are taken in the same row-major order and applied in that order, so the
+ * outcome is bit-identical. A steady-state stepInto() allocates nothing (step() still
+ * allocates its result copy). Not thread-safe: one instance per thread.
+ */
+public final class PackedStepSimulator implements Simulator {
+
+    // Deterministic tie-break order: right, left, down, up (same as StepSimulator)
+    private static final int[] DX = { 1, -1, 0, 0 };
+    private static final int[] DY = { 0,  0, 1, -1 };
+
+    // Packed action: type in bits 2-3, direction in bits 0-1, cell above
+    static final int NONE = 0;
+    static final int MOVE = 1;
+    static final int ATTACK = 2;
+    static final int TRANSFER = 3;
+
+    /** Largest grid (in cells) whose indices fit in a packed action. */
+    public static final int MAX_CELLS = 1 << 27;
+
+    private final int[][][] gradByTeam = new int[World.MAX_TEAM_ID + 1][][];
+    private Map<Integer, int[][]> gradientSource;   // only set during a Map-based call
+    private int[] plan = new int[256];
+
+    @Override
+    public World step(World current, Map<Integer, int[][]> gradientsByTeam)
+    {
+        World next = current.copy();
+        stepInto(current, next, gradientsByTeam);
+        return next;
+    }
+
+    @Override
+    public void stepInto(World current, World next, Map<Integer, int[][]> gradientsByTeam)
+    {
+        Arrays.fill(gradByTeam, null);
+        gradientSource = gradientsByTeam;
+        try
+        {
+            run(current, next);
+        }
+        finally
+        {
+            gradientSource = null;
+        }
+    }
+
+    /**
+     * Same as stepInto(current, next, Map) with the gradients indexed by team id
+     * (gradientsByTeam[teamId]), which avoids building a Map every tick.
+     */
+    @Override
+    public void stepInto(World current, World next, int[][][] gradientsByTeam)
+    {
+        Arrays.fill(gradByTeam, null);
+        System.arraycopy(gradientsByTeam, 0, gradByTeam, 0, Math.min(gradientsByTeam.length, gradByTeam.length));
+        run(current, next);
+    }
+
+    private void run(World current, World next)
+    {
+        int w = current.width();
+        if ((long) w * current.height() > MAX_CELLS)
+        {
+            throw new IllegalArgumentException("grid too large for packed actions: " + w + "x" + current.height());
+        }
+        if (plan.length < current.particleCount()) plan = new int[Math.max(current.particleCount(), plan.length * 2)];
+
+        // Decide all actions using CURRENT, in row-major order
+        int n = 0;
+        for (int i = current.nextOccupied(0); i >= 0; i = current.nextOccupied(i + 1))
+        {
+            int x = i % w;
+            int y = i / w;
+            int teamId = current.teamAt(x, y);
+
+            int code = decide(current, gradient(teamId), x, y, teamId);
+            if (code != NONE) plan[n++] = (i << 4) | code;
+        }
+
+        // Apply on NEXT, in the same order
+        for (int k = 0; k < n; k++)
+        {
+            apply(next, plan[k]);
+        }
+    }
+
+    private int[][] gradient(int teamId)
+    {
+        int[][] grad = gradByTeam[teamId];
+        if (grad == null && gradientSource != null)
+        {
+            grad = gradientSource.get(teamId);
+            gradByTeam[teamId] = grad;
+        }
+        if (grad == null)
+        {
+            throw new IllegalArgumentException("Missing gradient for teamId=" + teamId);
+        }
+        return grad;
+    }
+
+    /**
+     * The priority list of StepSimulator.decide(), returning a packed (type << 2 | direction),
+     * or NONE. Only reads 'world' and 'grad', so it may run concurrently.
+     */
+    static int decide(World world, int[][] grad, int x, int y, int teamId)
+    {
+        int g0 = grad[y][x];
+
+        // Bit i set = neighbour i is inside the map and not a wall
+        int valid = world.freeCellGraph().links(y * world.width() + x) & FreeCellGraph.ORTHOGONAL;
+        if (valid == 0) return NONE;
+        int minG = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++)
+        {
+            if ((valid & (1 << i)) == 0) continue;
+            minG = Math.min(minG, grad[y + DY[i]][x + DX[i]]);
+        }
+
+        // 1) main free -> move
+        for (int i = 0; i < 4; i++)
+        {
+            if ((valid & (1 << i)) == 0) continue;
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (grad[ny][nx] == minG && !world.isOccupied(nx, ny)) return (MOVE << 2) | i;
+        }
+
+        // 2) good free -> move (strictly smaller than current)
+        for (int i = 0; i < 4; i++)
+        {
+            if ((valid & (1 << i)) == 0) continue;
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (grad[ny][nx] < g0 && !world.isOccupied(nx, ny)) return (MOVE << 2) | i;
+        }
+
+        // 3) acceptable free -> move (equal to current)
+        for (int i = 0; i < 4; i++)
+        {
+            if ((valid & (1 << i)) == 0) continue;
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (grad[ny][nx] == g0 && !world.isOccupied(nx, ny)) return (MOVE << 2) | i;
+        }
+
+        // 4) main enemy -> attack
+        for (int i = 0; i < 4; i++)
+        {
+            if ((valid & (1 << i)) == 0) continue;
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (grad[ny][nx] == minG && isEnemy(world, nx, ny, teamId)) return (ATTACK << 2) | i;
+        }
+
+        // 5) good enemy -> attack
+        for (int i = 0; i < 4; i++)
+        {
+            if ((valid & (1 << i)) == 0) continue;
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+            if (grad[ny][nx] < g0 && isEnemy(world, nx, ny, teamId)) return (ATTACK << 2) | i;
+        }
+
+        // 6) main friend -> transfer
+        if (minG < g0)
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                if ((valid & (1 << i)) == 0) continue;
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+                if (grad[ny][nx] == minG && world.teamAt(nx, ny) == teamId) return (TRANSFER << 2) | i;
+            }
+        }
+
+        // 7) else nothing
+        return NONE;
+    }
+
+    private static boolean isEnemy(World world, int x, int y, int myTeam)
+    {
+        int other = world.teamAt(x, y);
+        return other != World.EMPTY && other != myTeam;
+    }
+
+    /** StepSimulator.apply() for one packed plan entry (cell << 4 | type << 2 | direction). */
+    static void apply(World next, int entry)
+    {
+        int w = next.width();
+        int cell = entry >>> 4;
+        int x = cell % w;
+        int y = cell / w;
+
+        int actorTeam = next.teamAt(x, y);
+        if (actorTeam == World.EMPTY) return; // might have moved away already
+        int actorEnergy = next.energyAt(x, y);
+
+        int dir = entry & 3;
+        int tx = x + DX[dir];
+        int ty = y + DY[dir];
+
+        switch ((entry >>> 2) & 3)
+        {
+            case MOVE ->
+            {
+                // Only move if destination still empty in NEXT (conflict resolution)
+                if (!next.isOccupied(tx, ty))
+                {
+                    next.setParticle(tx, ty, actorTeam, actorEnergy);
+                    next.clear(x, y);
+                }
+            }
+            case ATTACK ->
+            {
+                int targetTeam = next.teamAt(tx, ty);
+                if (targetTeam == World.EMPTY || targetTeam == actorTeam) return;
+                int targetEnergy = next.energyAt(tx, ty);
+
+                // Steal 1 energy if possible
+                if (targetEnergy > StepSimulator.ENERGY_MIN)
+                {
+                    targetEnergy -= 1;
+                    next.setParticle(x, y, actorTeam, Math.min(actorEnergy + 1, World.MAX_ENERGY));
+                }
+
+                // Convert if target has no energy left
+                if (targetEnergy <= StepSimulator.ENERGY_MIN)
+                {
+                    targetTeam = actorTeam;
+                    targetEnergy = StepSimulator.ENERGY_MIN;
+                }
+
+                next.setParticle(tx, ty, targetTeam, targetEnergy);
+            }
+            case TRANSFER ->
+            {
+                int friendEnergy = next.energyAt(tx, ty);
+                if (next.teamAt(tx, ty) != actorTeam) return;
+
+                // Transfer 1 energy if donor > min and friend < max
+                if (actorEnergy > StepSimulator.ENERGY_MIN && friendEnergy < StepSimulator.ENERGY_MAX)
+                {
+                    next.setParticle(x, y, actorTeam, actorEnergy - 1);
+                    next.setParticle(tx, ty, actorTeam, friendEnergy + 1);
+                }
+            }
+            default ->
+            {
+                // NONE entries are never stored
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package liquidwars.sim;
+
+import liquidwars.model.World;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * PackedStepSimulator with the decide phase split across threads.
+ *
+ * The grid is cut into horizontal bands of 'bandRows' rows:
+ * 1) decide (parallel): each band walks its own occupied cells in row-major order and fills
+ *    its own plan buffer; decisions only READ 'current' and the gradients
+ * 2) apply (sequential): band 0's plan, then band 1's, ... which is exactly the row-major
+ *    order of the single-threaded engine, so the result is bit-identical
+ *
+ * Moves and attacks between neighbours of two bands are resolved in phase 2, which is why it
+ * stays sequential: its cost is one pass over the plan, the expensive rule checks are in phase 1.
+ *
+ * Band tasks are reused between ticks, so a steady-state stepInto() allocates nothing.
+ * threads == 1 runs everything on the calling thread. Not thread-safe (one caller at a time).
+ */
+public final class ParallelStepSimulator implements Simulator {
+
+    /** Rows per band when not given: a few bands per thread, so uneven bands still balance. */
+    private static final int BANDS_PER_THREAD = 4;
+
+    private final int threads;
+    private final int bandRowsSetting;          // 0 = automatic
+    private final ForkJoinPool pool;            // null when threads == 1
+
+    private final int[][][] gradByTeam = new int[World.MAX_TEAM_ID + 1][][];
+
+    // Per-tick inputs, read by the band tasks
+    private World current;
+
+    // Bands (rebuilt when the grid size changes)
+    private int gridW = -1;
+    private int gridH = -1;
+    private Band[] bands = new Band[0];
+    private final RecursiveAction decideAll = new RecursiveAction() {
+        @Override
+        protected void compute()
+        {
+            ForkJoinTask.invokeAll(bands);
+        }
+    };
+
+    /** Uses every available core and automatic band height. */
+    public ParallelStepSimulator()
+    {
+        this(Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    /**
+     * @param threads number of threads for the decide phase, 1 = sequential
+     * @param bandRows rows per band (tile height), 0 = automatic
+     */
+    public ParallelStepSimulator(int threads, int bandRows)
+    {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive");
+        if (bandRows < 0) throw new IllegalArgumentException("bandRows must be >= 0");
+
+        this.threads = threads;
+        this.bandRowsSetting = bandRows;
+        this.pool = (threads > 1) ? new ForkJoinPool(threads) : null;
+    }
+
+    public int threads() { return threads; }
+
+    /** @return rows per band used for the last grid (0 before the first step) */
+    public int bandRows()
+    {
+        return bands.length == 0 ? 0 : bands[0].rows;
+    }
+
+    @Override
+    public World step(World current, Map<Integer, int[][]> gradientsByTeam)
+    {
+        World next = current.copy();
+        stepInto(current, next, gradientsByTeam);
+        return next;
+    }
+
+    @Override
+    public void stepInto(World current, World next, Map<Integer, int[][]> gradientsByTeam)
+    {
+        // Resolved up front: the band tasks must not touch the Map concurrently
+        Arrays.fill(gradByTeam, null);
+        for (Map.Entry<Integer, int[][]> e : gradientsByTeam.entrySet())
+        {
+            int team = e.getKey();
+            if (team >= 0 && team < gradByTeam.length) gradByTeam[team] = e.getValue();
+        }
+        run(current, next);
+    }
+
+    /** Same as stepInto(current, next, Map) with gradientsByTeam[teamId]. */
+    @Override
+    public void stepInto(World current, World next, int[][][] gradientsByTeam)
+    {
+        Arrays.fill(gradByTeam, null);
+        System.arraycopy(gradientsByTeam, 0, gradByTeam, 0, Math.min(gradientsByTeam.length, gradByTeam.length));
+        run(current, next);
+    }
+
+    /** Stops the worker threads (they are daemon threads, so this is optional). */
+    @Override
+    public void shutdown()
+    {
+        if (pool != null) pool.shutdown();
+    }
+
+    private void run(World current, World next)
+    {
+        if ((long) current.width() * current.height() > PackedStepSimulator.MAX_CELLS)
+        {
+            throw new IllegalArgumentException("grid too large for packed actions: " + current.width() + "x" + current.height());
+        }
+        layoutBands(current.width(), current.height());
+        this.current = current;
+
+        try
+        {
+            // 1) Decide, band by band (concurrently when there is more than one band and thread)
+            for (Band b : bands) b.reinitialize();
+            if (pool == null || bands.length == 1)
+            {
+                for (Band b : bands) b.compute();
+            }
+            else
+            {
+                decideAll.reinitialize();
+                pool.invoke(decideAll);
+            }
+
+            // 2) Apply in band order = row-major order
+            for (Band b : bands)
+            {
+                for (int k = 0; k < b.count; k++)
+                {
+                    PackedStepSimulator.apply(next, b.plan[k]);
+                }
+            }
+        }
+        finally
+        {
+            this.current = null;
+        }
+    }
+
+    private void layoutBands(int w, int h)
+    {
+        if (w == gridW && h == gridH) return;
+
+        int rows = bandRowsSetting;
+        if (rows == 0) rows = Math.max(1, (h + threads * BANDS_PER_THREAD - 1) / (threads * BANDS_PER_THREAD));
+        rows = Math.min(rows, h);
+
+        int count = (h + rows - 1) / rows;
+        bands = new Band[count];
+        for (int b = 0; b < count; b++)
+        {
+            int y0 = b * rows;
+            bands[b] = new Band(y0 * w, Math.min(h, y0 + rows) * w, Math.min(rows, h - y0), w);
+        }
+        gridW = w;
+        gridH = h;
+    }
+
+    // One horizontal band: cells [from, to) in flat indices
+    private final class Band extends RecursiveAction {
+        final int from;
+        final int to;
+        final int rows;
+        final int[] plan;       // a band holds at most rows * width particles
+        int count;
+
+        Band(int from, int to, int rows, int width)
+        {
+            this.from = from;
+            this.to = to;
+            this.rows = rows;
+            this.plan = new int[rows * width];
+        }
+
+        @Override
+        protected void compute()
+        {
+            World world = current;
+            int w = world.width();
+            int n = 0;
+
+            for (int i = world.nextOccupied(from); i >= 0 && i < to; i = world.nextOccupied(i + 1))
+            {
+                int x = i % w;
+                int y = i / w;
+                int teamId = world.teamAt(x, y);
+
+                int[][] grad = gradByTeam[teamId];
+                if (grad == null)
+                {
+                    throw new IllegalArgumentException("Missing gradient for teamId=" + teamId);
+                }
+
+                int code = PackedStepSimulator.decide(world, grad, x, y, teamId);
+                if (code != PackedStepSimulator.NONE) plan[n++] = (i << 4) | code;
+            }
+            count = n;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package liquidwars.sim;
+
+import java.util.Arrays;
+
+/**
+ * Time spent in each phase of a controller tick, summed over the ticks since the last reset().
+ *
+ * Phases:
+ * - GRADIENT: team gradients (cache lookups + computing the fields of targets that moved)
+ * - STEP: the simulator step and the buffer swap
+ * - STATS: the TickStats snapshot
+ *
+ * Recorded by the ticking thread (4 System.nanoTime() calls per tick); read it on that thread
+ * too, e.g. from a headless runner between ticks.
+ */
+public final class PhaseTimes {
+
+    public enum Phase { GRADIENT, STEP, STATS }
+
+    private final long[] nanos = new long[Phase.values().length];
+    private long ticks;
+
+    /** Adds one tick. */
+    public void record(long gradientNanos, long stepNanos, long statsNanos)
+    {
+        nanos[Phase.GRADIENT.ordinal()] += gradientNanos;
+        nanos[Phase.STEP.ordinal()] += stepNanos;
+        nanos[Phase.STATS.ordinal()] += statsNanos;
+        ticks++;
+    }
+
+    public long ticks()
+    {
+        return ticks;
+    }
+
+    public long totalNanos(Phase phase)
+    {
+        return nanos[phase.ordinal()];
+    }
+
+    /** @return sum of all phases */
+    public long totalNanos()
+    {
+        long sum = 0;
+        for (long n : nanos) sum += n;
+        return sum;
+    }
+
+    /** @return mean time of a phase per tick, in microseconds (0 before the first tick) */
+    public double averageMicros(Phase phase)
+    {
+        return ticks == 0 ? 0 : nanos[phase.ordinal()] / 1_000.0 / ticks;
+    }
+
+    public void reset()
+    {
+        Arrays.fill(nanos, 0L);
+        ticks = 0;
+    }
+}
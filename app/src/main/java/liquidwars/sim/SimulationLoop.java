@@ -0,0 +1,194 @@
+package liquidwars.sim;
+
+import liquidwars.model.World;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Runs the simulation on its own thread, at a fixed timestep, and hands completed frames
+ * to the UI through a TripleBuffer.
+ *
+ * Loop, on the "simulation" thread:
+ * 1) ask the FixedTimestep how many steps are due (accumulator: late ticks are caught up,
+ *    up to MAX_CATCH_UP_STEPS; at 4x / 16x several steps are due per period)
+ * 2) run tick.run() that many times    (e.g. controller::tick), merging the change log of
+ *    each tick into the pending changes
+ * 3) snapshot source.get() and the pending changes into the back Frame, with the tick number,
+ *    and publish it (lock-free, never waits for the UI)
+ * 4) sleep until the next step is due (no sleep at all at UNBOUNDED speed)
+ *
+ * At UNBOUNDED speed each advance() is one step, but a frame is only captured once a period
+ * has passed since the last one: the ticks in between do not each pay a full snapshot.
+ *
+ * The UI thread calls poll() when it wants to draw: it gets the newest frame, or null if
+ * nothing was published since the last poll. A slow tick no longer freezes painting and
+ * input; a slow paint no longer slows the simulation (intermediate frames are dropped).
+ *
+ * Input: targets are plain volatile fields of the controller, read at the start of each tick,
+ * so a click reaches the simulation within one period plus one tick.
+ *
+ * Bots: runEvery() runs them on the simulation thread between ticks, and clock() is a TickClock
+ * advanced once per tick, so they follow the simulated time like in HeadlessMatch: at 4x or
+ * UNBOUNDED they decide as often per tick as at 1x, and stop with the loop.
+ *
+ * A frame's change log covers every tick since the previous published frame, so 4x, 16x and
+ * UNBOUNDED still redraw only the changed cells; only a consumer that skipped frames
+ * (frame.previousSeq() is not the last seq it showed) must redraw everything.
+ */
+public final class SimulationLoop {
+
+    /** Late steps caught up at once (at 1x); about 150 ms with the panels' 33 ms step. */
+    public static final int MAX_CATCH_UP_STEPS = 5;
+
+    private final Runnable tick;
+    private final Supplier<World> source;
+    private final FixedTimestep timestep;
+    private final TripleBuffer<Frame> frames;
+    private final World pendingChanges;  // change logs of the ticks since the last frame
+    private final TickClock clock;       // ticks run so far; simulation thread only once started
+
+    private Runnable every;             // set before start()
+    private int everyTicks;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+    private long publishedSeq;          // simulation thread only
+
+    /**
+     * @param tick advances the simulation by one step
+     * @param source the world to publish after each tick (read on the simulation thread)
+     * @param periodNanos simulated time of one tick (real time at 1x)
+     */
+    public SimulationLoop(Runnable tick, Supplier<World> source, long periodNanos)
+    {
+        if (periodNanos <= 0) throw new IllegalArgumentException("periodNanos must be positive");
+
+        this.tick = tick;
+        this.source = source;
+        this.timestep = new FixedTimestep(periodNanos, MAX_CATCH_UP_STEPS);
+
+        World template = source.get();
+        this.frames = new TripleBuffer<>(new Frame(template), new Frame(template), new Frame(template));
+        this.pendingChanges = template.copy();
+        this.clock = new TickClock(Math.max(1, periodNanos / 1_000_000L));
+    }
+
+    /**
+     * Simulated time of the loop (ticks x period), e.g. the bots' clock.
+     * Read it on the simulation thread (in a runEvery() task) once the loop has started.
+     */
+    public TickClock clock()
+    {
+        return clock;
+    }
+
+    /**
+     * Runs task on the simulation thread before every n-th tick, the first tick included
+     * (e.g. the bots' updateOnce()). Call before start(); replaces the previous task.
+     */
+    public synchronized void runEvery(int ticks, Runnable task)
+    {
+        if (ticks <= 0) throw new IllegalArgumentException("ticks must be positive");
+        if (running) throw new IllegalStateException("runEvery() must be called before start()");
+        this.every = task;
+        this.everyTicks = ticks;
+    }
+
+    /** Starts the simulation thread (no effect if already running). */
+    public synchronized void start()
+    {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the simulation thread and waits for the tick in progress to finish. */
+    public synchronized void stop()
+    {
+        running = false;
+        Thread t = thread;
+        thread = null;
+        if (t == null || t == Thread.currentThread()) return;
+
+        LockSupport.unpark(t);
+        try
+        {
+            t.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRunning()
+    {
+        return running;
+    }
+
+    public FixedTimestep.Speed speed()
+    {
+        return timestep.speed();
+    }
+
+    /** Changes the simulation speed (any thread), applied from the next step on. */
+    public void setSpeed(FixedTimestep.Speed speed)
+    {
+        timestep.setSpeed(speed);
+        LockSupport.unpark(thread);     // do not sleep out a 1x period after speeding up
+    }
+
+    /**
+     * Consumer side (one thread, e.g. the EDT).
+     * @return the newest frame not returned yet, or null; valid until the next poll()
+     */
+    public Frame poll()
+    {
+        return frames.acquire() ? frames.front() : null;
+    }
+
+    private void run()
+    {
+        try
+        {
+            long capturedAt = System.nanoTime();
+            timestep.reset(capturedAt);
+            while (running)
+            {
+                int steps = timestep.advance(System.nanoTime());
+                for (int k = 0; k < steps && running; k++)
+                {
+                    if (every != null && clock.ticks() % everyTicks == 0) every.run();
+                    tick.run();
+                    clock.advance();
+                    pendingChanges.logChangesFrom(source.get());
+                }
+
+                // One frame per batch of steps; at UNBOUNDED, one per period (ticks run until it is due)
+                long now = System.nanoTime();
+                boolean due = timestep.speed() != FixedTimestep.Speed.UNBOUNDED || now - capturedAt >= timestep.stepNanos();
+                long ticks = clock.ticks();
+                if (ticks > publishedSeq && due)
+                {
+                    Frame frame = frames.back();
+                    frame.capture(source.get(), pendingChanges, publishedSeq, ticks);
+                    frames.publish();
+                    pendingChanges.clearChanges();
+                    publishedSeq = ticks;
+                    capturedAt = now;
+                }
+
+                // Sleep until the next step is due (parkNanos may return early: re-check)
+                long wait = timestep.nanosUntilNextStep(System.nanoTime());
+                if (running && wait > 0) LockSupport.parkNanos(wait);
+            }
+        }
+        finally
+        {
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package liquidwars.sim;
+
+import liquidwars.model.World;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One simulation tick, whatever the engine (StepSimulator = readable reference,
+ * PackedStepSimulator = allocation-free, ParallelStepSimulator = decide phase in parallel bands).
+ * All engines give the same result.
+ */
+public interface Simulator {
+
+    /** @return a NEW world holding the state after one tick */
+    World step(World current, Map<Integer, int[][]> gradientsByTeam);
+
+    /**
+     * Same as step(), but writes into 'next', which must hold the same particles as 'current'
+     * (e.g. the back buffer returned by DoubleBufferedWorld.prepareBack()).
+     */
+    void stepInto(World current, World next, Map<Integer, int[][]> gradientsByTeam);
+
+    /**
+     * Same as stepInto(current, next, Map) with gradientsByTeam[teamId], as the controllers call it.
+     * The engines meant for the controllers override it to avoid building a Map every tick.
+     */
+    default void stepInto(World current, World next, int[][][] gradientsByTeam)
+    {
+        Map<Integer, int[][]> byTeam = new HashMap<>();
+        for (int t = 0; t < gradientsByTeam.length; t++)
+        {
+            if (gradientsByTeam[t] != null) byTeam.put(t, gradientsByTeam[t]);
+        }
+        stepInto(current, next, byTeam);
+    }
+
+    /** Releases worker threads, if any (ParallelStepSimulator). */
+    default void shutdown()
+    {
+    }
+}
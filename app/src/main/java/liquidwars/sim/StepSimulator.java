@@ -1,6 +1,5 @@
 package liquidwars.sim;
 
-import liquidwars.model.Particle;
 import liquidwars.model.World;
 
 import java.util.Map;
@@ -15,11 +14,14 @@ import java.util.List;
  * - gradients per team: gradients.get(teamId[y][x] gives the distance to that team's target)
  * 
  * Output:
- * - a NEW World instance 
+ * - a NEW World instance (step), or
+ * - the caller's back buffer, updated in place (stepInto, used with DoubleBufferedWorld)
  * 
  * The rule priority list is taken from the project statement. :contentReference[oaicite:4]{index=4}
+ *
+ * This is the readable reference engine; PackedStepSimulator applies the same rules without allocating.
  */
-public final class StepSimulator {
+public final class StepSimulator implements Simulator {
 
     public static final int ENERGY_MIN = 0;
     public static final int ENERGY_MAX = 10;
@@ -29,28 +31,39 @@ public final class StepSimulator {
     private static final int[] DX = { 1, -1, 0, 0 };
     private static final int[] DY = { 0,  0, 1, -1 };
 
+    @Override
     public World step(World current, Map<Integer, int[][]> gradientsByTeam) {
         World next = current.copy();
+        stepInto(current, next, gradientsByTeam);
+        return next;
+    }
 
+    /**
+     * Same rules as step(), but writes the result into 'next' instead of a fresh copy.
+     * 'next' must hold the same particles as 'current' when called
+     * (e.g. the back buffer returned by DoubleBufferedWorld.prepareBack()).
+     */
+    @Override
+    public void stepInto(World current, World next, Map<Integer, int[][]> gradientsByTeam) {
         // Decide all actions using CURRENT (so decisions aren't affected by earlier updates)
         List<PlannedAction> plan = new ArrayList<>();
+        int w = current.width();
 
-        for (int y = 0; y < current.height(); y++) 
+        // Only occupied cells are visited, in the same row-major order as a full scan
+        for (int i = current.nextOccupied(0); i >= 0; i = current.nextOccupied(i + 1)) 
         {
-            for (int x = 0; x < current.width(); x++) 
-            {
-                Particle p = current.get(x, y);
-                if (p == null) continue;
-
-                int[][] grad = gradientsByTeam.get(p.teamId());
-                if (grad == null) 
-                {
-                    throw new IllegalArgumentException("Missing gradient for teamId=" + p.teamId());
-                }
+            int x = i % w;
+            int y = i / w;
+            int teamId = current.teamAt(x, y);
 
-                Action a = decide(current, grad, x, y, p.teamId());
-                plan.add(new PlannedAction(x, y, a));
+            int[][] grad = gradientsByTeam.get(teamId);
+            if (grad == null) 
+            {
+                throw new IllegalArgumentException("Missing gradient for teamId=" + teamId);
             }
+
+            Action a = decide(current, grad, x, y, teamId);
+            plan.add(new PlannedAction(x, y, a));
         }
 
         // Apply on NEXT
@@ -58,8 +71,6 @@ public final class StepSimulator {
         {
             apply(next, pa.x(), pa.y(), pa.action());
         }
-
-        return next;
     }
 
     private enum ActionType { MOVE, ATTACK, TRANSFER, NONE }
@@ -154,25 +165,26 @@ public final class StepSimulator {
 
     private boolean isFree(World world, int x, int y) 
     {
-        return world.get(x, y) == null;
+        return !world.isOccupied(x, y);
     }
 
     private boolean isEnemy(World world, int x, int y, int myTeam) 
     {
-        Particle other = world.get(x, y);
-        return other != null && other.teamId() != myTeam;
+        int other = world.teamAt(x, y);
+        return other != World.EMPTY && other != myTeam;
     }
 
     private boolean isFriend(World world, int x, int y, int myTeam) 
     {
-        Particle other = world.get(x, y);
-        return other != null && other.teamId() == myTeam;
+        return world.teamAt(x, y) == myTeam;
     }
 
+    // Works directly on the primitive cells of NEXT: no Particle is allocated
     private void apply(World next, int x, int y, Action action) 
     {
-        Particle actor = next.get(x, y);
-        if (actor == null) return; // might have moved away already
+        int actorTeam = next.teamAt(x, y);
+        if (actorTeam == World.EMPTY) return; // might have moved away already
+        int actorEnergy = next.energyAt(x, y);
 
         if (action.type() == ActionType.MOVE) 
         {
@@ -180,10 +192,10 @@ public final class StepSimulator {
             int ny = action.ty();
 
             // Only move if destination still empty in NEXT (conflict resolution)
-            if (next.inBounds(nx, ny) && !next.isWall(nx, ny) && next.get(nx, ny) == null) 
+            if (next.inBounds(nx, ny) && !next.isWall(nx, ny) && !next.isOccupied(nx, ny)) 
             {
-                next.set(nx, ny, actor);
-                next.set(x, y, null);
+                next.setParticle(nx, ny, actorTeam, actorEnergy);
+                next.clear(x, y);
             }
             return;
         }
@@ -193,25 +205,28 @@ public final class StepSimulator {
             int tx = action.tx();
             int ty = action.ty();
 
-            Particle target = next.get(tx, ty);
-            if (target == null) return;
-            if (target.teamId() == actor.teamId()) return;
+            int targetTeam = next.teamAt(tx, ty);
+            if (targetTeam == World.EMPTY) return;
+            if (targetTeam == actorTeam) return;
+            int targetEnergy = next.energyAt(tx, ty);
 
             // Steal 1 energy if possible
-            if (target.energy() > ENERGY_MIN) 
+            if (targetEnergy > ENERGY_MIN) 
             {
-                target = target.withEnergy(target.energy() - ENERGY_DELTA);
-                actor = actor.withEnergy(actor.energy() + ENERGY_DELTA);
-                next.set(x, y, actor);
+                targetEnergy -= ENERGY_DELTA;
+                // Attacks are not capped by ENERGY_MAX, only by what a World cell can store
+                actorEnergy = Math.min(actorEnergy + ENERGY_DELTA, World.MAX_ENERGY);
+                next.setParticle(x, y, actorTeam, actorEnergy);
             }
 
             // Convert if target has no energy left
-            if (target.energy() <= ENERGY_MIN) 
+            if (targetEnergy <= ENERGY_MIN) 
             {
-                target = target.withTeam(actor.teamId()).withEnergy(ENERGY_MIN);
+                targetTeam = actorTeam;
+                targetEnergy = ENERGY_MIN;
             }
 
-            next.set(tx, ty, target);
+            next.setParticle(tx, ty, targetTeam, targetEnergy);
             return;
         }
 
@@ -220,18 +235,16 @@ public final class StepSimulator {
             int tx = action.tx();
             int ty = action.ty();
 
-            Particle friend = next.get(tx, ty);
-            if (friend == null) return;
-            if (friend.teamId() != actor.teamId()) return;
+            int friendTeam = next.teamAt(tx, ty);
+            if (friendTeam != actorTeam) return;
+            int friendEnergy = next.energyAt(tx, ty);
 
             // Transfer 1 energy if donor > min and friend < max
-            if (actor.energy() > ENERGY_MIN && friend.energy() < ENERGY_MAX) 
+            if (actorEnergy > ENERGY_MIN && friendEnergy < ENERGY_MAX) 
             {
-                actor = actor.withEnergy(actor.energy() - ENERGY_DELTA);
-                friend = friend.withEnergy(friend.energy() + ENERGY_DELTA);
-                next.set(x, y, actor);
-                next.set(tx, ty, friend);
+                next.setParticle(x, y, actorTeam, actorEnergy - ENERGY_DELTA);
+                next.setParticle(tx, ty, friendTeam, friendEnergy + ENERGY_DELTA);
             }
         }
     }
-}
\ No newline at end of file
+}
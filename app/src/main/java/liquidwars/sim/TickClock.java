@@ -0,0 +1,44 @@
+package liquidwars.sim;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Simulated clock for the bots: milliseconds = ticks run so far x tick length.
+ *
+ * The bots take a LongSupplier clock: the game (SimulationLoop.clock()) and HeadlessMatch give
+ * them this one, so their random phases follow the match and not the machine. A match driven
+ * headless at thousands of ticks per second, or played at 4x, behaves like the same match played
+ * at 30 ticks/s, and a seeded match replays identically.
+ *
+ * Advanced by the thread that ticks the match; one clock per match, not thread-safe.
+ */
+public final class TickClock implements LongSupplier {
+
+    private final long tickMillis;
+    private long ticks;
+
+    /** @param tickMillis simulated duration of one tick, > 0 */
+    public TickClock(long tickMillis)
+    {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be > 0");
+        this.tickMillis = tickMillis;
+    }
+
+    /** Call once per controller tick. */
+    public void advance()
+    {
+        ticks++;
+    }
+
+    public long ticks()
+    {
+        return ticks;
+    }
+
+    /** @return simulated milliseconds since the start of the match */
+    @Override
+    public long getAsLong()
+    {
+        return ticks * tickMillis;
+    }
+}
@@ -0,0 +1,76 @@
+package liquidwars.sim;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free hand-off of the latest value from ONE producer thread to ONE consumer thread.
+ *
+ * Three slots are allocated once and never change owner concurrently:
+ * - back: owned by the producer, filled in place, then publish()ed
+ * - middle: the last published slot, swapped atomically by publish() and acquire()
+ * - front: owned by the consumer, stays valid (untouched by the producer) until the next acquire()
+ *
+ * The producer never waits for the consumer: when it publishes faster than the consumer reads,
+ * the unread middle value is simply overwritten (only the latest value matters).
+ */
+public final class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;         // middle holds a value the consumer has not acquired yet
+
+    private final Object[] slots;
+    private final AtomicInteger middle;         // slot index | FRESH
+    private int back;                           // producer side only
+    private int front;                          // consumer side only
+
+    public TripleBuffer(T first, T second, T third)
+    {
+        if (first == null || second == null || third == null)
+        {
+            throw new IllegalArgumentException("slots must not be null");
+        }
+        if (first == second || first == third || second == third)
+        {
+            throw new IllegalArgumentException("slots must be three distinct objects");
+        }
+        this.slots = new Object[] { first, second, third };
+        this.front = 0;
+        this.middle = new AtomicInteger(1);
+        this.back = 2;
+    }
+
+    // ---- Producer side ----
+
+    /** @return the slot to fill before the next publish() */
+    @SuppressWarnings("unchecked")
+    public T back()
+    {
+        return (T) slots[back];
+    }
+
+    /** Makes the filled back slot the latest value, and takes the old middle slot as new back. */
+    public void publish()
+    {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // ---- Consumer side ----
+
+    /**
+     * Takes the latest published value, if there is one not acquired yet.
+     * @return true if front() changed
+     */
+    public boolean acquire()
+    {
+        if ((middle.get() & FRESH) == 0) return false;
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+
+    /** @return the slot the consumer is reading (the initial first slot before any acquire) */
+    @SuppressWarnings("unchecked")
+    public T front()
+    {
+        return (T) slots[front];
+    }
+}
@@ -1,5 +1,7 @@
 package liquidwars.ui;
 
+import liquidwars.model.World;
+
 import java.awt.Color;
 
 /**
@@ -28,6 +30,18 @@ public final class ColourUtil {
     private static final Color TEAM2 = new Color(60, 255, 60);   // green-ish
     private static final Color TEAM3 = new Color(255, 255, 60);  // yellow-ish
     
+    // Every (team, energy) a World cell can hold, precomputed: PALETTE[teamId << 8 | (energy & 0xFF)]
+    private static final int[] PALETTE = buildPalette();
+
+    /**
+     * Same value as particleRGB(), read from the precomputed table (no floating point).
+     * Valid for any team id / energy a World can store.
+     */
+    public static int paletteRGB(int teamId, int energy)
+    {
+        return PALETTE[(teamId << 8) | (energy & 0xFF)];
+    }
+
     // Returns a packed RGB int (0xRRGGBB) for a particle
     public static int particleRGB(int teamId, int energy)
     {
@@ -54,6 +68,19 @@ public final class ColourUtil {
         return (r << 16) | (g << 8) | b;
     }
 
+    private static int[] buildPalette()
+    {
+        int[] table = new int[(World.MAX_TEAM_ID + 1) << 8];
+        for (int team = 0; team <= World.MAX_TEAM_ID; team++)
+        {
+            for (int energy = World.MIN_ENERGY; energy <= World.MAX_ENERGY; energy++)
+            {
+                table[(team << 8) | (energy & 0xFF)] = particleRGB(team, energy);
+            }
+        }
+        return table;
+    }
+
     private static int clamp255(int v)
     {
         if (v < 0) return 0;
@@ -1,56 +1,195 @@
 package liquidwars.ui;
 
+import liquidwars.algo.GradientCache;
 import liquidwars.algo.GradientComputer;
+import liquidwars.algo.GradientFields;
+import liquidwars.algo.GradientSolver;
+import liquidwars.algo.PipelinedGradients;
+import liquidwars.algo.SlicedGradients;
+import liquidwars.algo.TeamGradients;
+import liquidwars.model.DoubleBufferedWorld;
+import liquidwars.model.TickStats;
 import liquidwars.model.World;
-import liquidwars.sim.StepSimulator;
+import liquidwars.sim.PackedStepSimulator;
+import liquidwars.sim.PhaseTimes;
+import liquidwars.sim.Simulator;
+import liquidwars.sim.TripleBuffer;
 
-import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public final class GameController {
     private final int width;
     private final int height;
     private final boolean[][] wallsStable;  // [y][x], never changes
 
-    private final GradientComputer gradientComputer = new GradientComputer();
-    private final StepSimulator stepSimulator = new StepSimulator();
+    private final Simulator stepSimulator;      // PackedStepSimulator unless one is given
 
-    // Targets (mouse-controlled)
-    private volatile int target0x;
-    private volatile int target0y;
-    private volatile int target1x;
-    private volatile int target1y;
+    // Gradients are only recomputed when a target moves; teams on the same cell share one field
+    private final GradientCache gradientCache = new GradientCache();
+    private final GradientFields teamGradients;  // TeamGradients (missing fields in parallel) or SlicedGradients
+    private final int[] targetCells = new int[2];
 
+    // Targets (mouse-controlled), as cell index y * width + x:
+    // one volatile write per move, so the simulation thread never sees a half-updated target
+    private volatile int target0;
+    private volatile int target1;
+
+    // front = completed frame, back = buffer the simulator writes into
+    private final DoubleBufferedWorld buffers;
     private volatile World world;
 
+    // Per-tick statistics (counts, energy, centroid, bounding box), handed to one reader thread
+    private final TripleBuffer<TickStats> stats = new TripleBuffer<>(new TickStats(), new TickStats(), new TickStats());
+    private long ticks;
+    private final PhaseTimes phaseTimes = new PhaseTimes();
+
     public GameController (World initialWorld, boolean[][] wallsStable, int width, int height)
     {
+        this(initialWorld, wallsStable, width, height, TeamGradients.defaultThreads(2));
+    }
+
+    /**
+     * @param gradientThreads how many team gradients may be computed at the same time (1 = sequential)
+     */
+    public GameController (World initialWorld, boolean[][] wallsStable, int width, int height, int gradientThreads)
+    {
+        this(initialWorld, wallsStable, width, height, gradientThreads, GradientComputer::new);
+    }
+
+    /**
+     * @param gradientThreads how many team gradients may be computed at the same time (1 = sequential)
+     * @param solverFactory gradient engine, one instance per thread (e.g. BitboardGradientComputer::new)
+     */
+    public GameController (World initialWorld, boolean[][] wallsStable, int width, int height, int gradientThreads,
+                           Supplier<? extends GradientSolver> solverFactory)
+    {
+        this(initialWorld, wallsStable, width, height, gradientThreads, solverFactory, new PackedStepSimulator());
+    }
+
+    /**
+     * @param gradientThreads how many team gradients may be computed at the same time (1 = sequential)
+     * @param solverFactory gradient engine, one instance per thread (e.g. BitboardGradientComputer::new)
+     * @param simulator step engine (e.g. new ParallelStepSimulator(threads, bandRows)); owned by the controller,
+     *                  shutdown() stops its threads
+     */
+    public GameController (World initialWorld, boolean[][] wallsStable, int width, int height, int gradientThreads,
+                           Supplier<? extends GradientSolver> solverFactory, Simulator simulator)
+    {
+        this(initialWorld, wallsStable, width, height, cache -> new TeamGradients(2, cache, solverFactory, gradientThreads), simulator);
+    }
+
+    /**
+     * Time-sliced gradients (SlicedGradients): each team's field persists between ticks and is refined
+     * by at most visitsPerTick cell visits per tick, so the gradient phase costs the same on any map.
+     */
+    public static GameController withGradientBudget(World initialWorld, boolean[][] wallsStable, int width, int height, int visitsPerTick)
+    {
+        return withGradientBudget(initialWorld, wallsStable, width, height, visitsPerTick, new PackedStepSimulator());
+    }
+
+    /** Same with another step engine (owned by the controller). */
+    public static GameController withGradientBudget(World initialWorld, boolean[][] wallsStable, int width, int height, int visitsPerTick,
+                                                    Simulator simulator)
+    {
+        return new GameController(initialWorld, wallsStable, width, height, cache -> new SlicedGradients(2, visitsPerTick), simulator);
+    }
+
+    /**
+     * Pipelined gradients (PipelinedGradients): the fields of tick N + 1 are computed on a worker thread
+     * while tick N steps; the fields used may be up to maxStaleness ticks old (0 = never stale).
+     * @param gradientThreads threads of the worker's TeamGradients (1 = the worker alone)
+     */
+    public static GameController withPipelinedGradients(World initialWorld, boolean[][] wallsStable, int width, int height,
+                                                        int gradientThreads, int maxStaleness)
+    {
+        return withPipelinedGradients(initialWorld, wallsStable, width, height, gradientThreads, maxStaleness,
+                GradientComputer::new, new PackedStepSimulator());
+    }
+
+    /** Same with another gradient engine for the worker and another step engine (owned by the controller). */
+    public static GameController withPipelinedGradients(World initialWorld, boolean[][] wallsStable, int width, int height,
+                                                        int gradientThreads, int maxStaleness,
+                                                        Supplier<? extends GradientSolver> solverFactory, Simulator simulator)
+    {
+        return new GameController(initialWorld, wallsStable, width, height,
+                cache -> new PipelinedGradients(new TeamGradients(2, cache, solverFactory, gradientThreads), maxStaleness), simulator);
+    }
+
+    // gradients: builds the field source, given this controller's cache
+    private GameController (World initialWorld, boolean[][] wallsStable, int width, int height,
+                            Function<GradientCache, GradientFields> gradients, Simulator simulator)
+    {
+        this.stepSimulator = simulator;
+        this.teamGradients = gradients.apply(gradientCache);
+        this.buffers = new DoubleBufferedWorld(initialWorld);
         this.world = initialWorld;
         this.wallsStable = wallsStable;
         this.width = width;
         this.height = height;
+        publishStats();
 
         // Default targets
-        this.target0x = width / 4;
-        this.target0y = height / 2;
-
-        this.target1x = 3 * width / 4;
-        this.target1y = height / 2;
+        this.target0 = (height / 2) * width + width / 4;
+        this.target1 = (height / 2) * width + 3 * width / 4;
     }
 
+    /**
+     * World of the latest completed tick. It becomes the back buffer at the next swap and is
+     * rewritten when the tick after that starts: only the simulation thread may keep reading it.
+     * Other threads copy() it before the simulation starts, or read the published Frames.
+     */
     public World getWorld()
     {
         return world;
     }
 
+    /**
+     * Statistics of the latest completed tick (of the initial world before the first tick), O(1) to read.
+     * One reader thread only (e.g. the AI timer): the snapshot stays valid until its next call.
+     */
+    public TickStats getStats()
+    {
+        stats.acquire();
+        return stats.front();
+    }
+
+    /** Time spent per tick phase; read it on the ticking thread. */
+    public PhaseTimes getPhaseTimes()
+    {
+        return phaseTimes;
+    }
+
+    /** Cache of the TeamGradients mode (empty with a gradient budget; owned by the worker when pipelined). */
+    public GradientCache getGradientCache()
+    {
+        return gradientCache;
+    }
+
+    /** Source of the fields (TeamGradients, SlicedGradients or PipelinedGradients), e.g. for its counters. */
+    public GradientFields getGradientFields()
+    {
+        return teamGradients;
+    }
+
+    /**
+     * Stops the gradient threads (pool or pipeline worker) and those of the step engine once the match
+     * is over or left. Call after the last tick() (e.g. after SimulationLoop.stop()); tick() must not be called afterwards.
+     */
+    public void shutdown()
+    {
+        teamGradients.shutdown();
+        stepSimulator.shutdown();
+    }
+
     public int getTargetX (int teamId)
     {
-        return (teamId == 0) ? target0x : target1x;
+        return ((teamId == 0) ? target0 : target1) % width;
     }
 
     public int getTargetY (int teamId)
     {
-        return (teamId == 0) ? target0y : target1y;
+        return ((teamId == 0) ? target0 : target1) / width;
     }
 
     public void setTarget(int teamId, int x, int y)
@@ -63,34 +202,48 @@ public final class GameController {
 
         if (teamId == 0)
         {
-            target0x = x;
-            target0y = y;
+            target0 = y * width + x;
         }
         else 
         {
-            target1x = x;
-            target1y = y;
+            target1 = y * width + x;
         }
     }
 
     /**
-     * One frame step:
-     * 1) compute gradients for each team
-     * 2) apply StepSimulator.step(...)
+     * One frame step (call from one thread at a time, e.g. the SimulationLoop thread;
+     * setTarget() may be called from any thread and is picked up by the next tick):
+     * 1) get gradients for each team (from the cache when targets did not move, computed in parallel otherwise;
+     *    with a gradient budget: each persistent field refined by at most the budget;
+     *    pipelined: the latest fields of the worker, at most maxStaleness ticks old)
+     * 2) apply the step (PackedStepSimulator or the given engine, same rules as StepSimulator) on the back buffer and swap
+     * 3) snapshot the statistics (getStats()); each phase is timed in getPhaseTimes()
      */
     public void tick()
     {
-        World cur = world;
-
-        int[][] g0 = gradientComputer.compute(wallsStable, 
-            List.of(new GradientComputer.Pos(target0x, target0y))
-        );
-
-        int [][] g1 = gradientComputer.compute(wallsStable, 
-            List.of(new GradientComputer.Pos(target1x, target1y))
-        );
+        long t0 = System.nanoTime();
+        targetCells[0] = target0;
+        targetCells[1] = target1;
+        int[][][] gradients = teamGradients.update(wallsStable, targetCells);   // gradients[teamId]
+        long t1 = System.nanoTime();
+
+        // Write the next frame into the back buffer, then publish it
+        World next = buffers.prepareBack();
+        stepSimulator.stepInto(buffers.front(), next, gradients);
+        buffers.swap();
+        world = buffers.front();
+        long t2 = System.nanoTime();
+
+        ticks++;
+        publishStats();
+        phaseTimes.record(t1 - t0, t2 - t1, System.nanoTime() - t2);
+    }
 
-        world = stepSimulator.step(cur, Map.of(0, g0, 1, g1));
+    // Snapshot of the running totals the step just updated: no grid scan, no allocation
+    private void publishStats()
+    {
+        stats.back().capture(buffers.front(), ticks);
+        stats.publish();
     }
 
     private int clamp(int v, int lo, int hi) {
@@ -1,9 +1,15 @@
 package liquidwars.ui;
 
-import liquidwars.model.Particle;
 import liquidwars.model.World;
+import liquidwars.sim.FixedTimestep;
+import liquidwars.sim.Frame;
+import liquidwars.sim.SimulationLoop;
+import liquidwars.sim.TickClock;
 
+import javax.swing.AbstractAction;
 import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
@@ -13,23 +19,21 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.IntStream;
 
 /**
  * GamePanel = the Swing visual component.
  *
  * Responsibilities:
- * 1) Run a Swing Timer loop:
- *      controller.tick();
- *      repaint();
+ * 1) Run the game loop:
+ *      - the simulation ticks on its own thread (SimulationLoop), ~30 ticks/s
+ *      - a Swing Timer (EDT) takes the latest completed frame and repaints what changed;
+ *        frames finished while the EDT was busy are skipped, never queued
  *
  * 2) Render the world grid:
  *      - walls drawn dark gray
@@ -42,7 +46,7 @@ import java.util.stream.IntStream;
  *      - Mouse move updates team 0 target live (optional behavior)
  *
  * Rendering performance:
- * - We draw into a small BufferedImage buffer of size (gridW x gridH)
+ * - We draw into a small BufferedImage buffer of size (gridW x gridH), see WorldRenderer
  * - Then scale it up on screen (gridW*cellSize x gridH*cellSize)
  * This is faster and simpler than drawing thousands of rectangles every frame.
  */
@@ -55,11 +59,17 @@ public final class GamePanel extends JPanel {
     private final int gridH;    // number of rows
     private final int cellSize; // pixel size of one cell when displayed
 
-    // Offscreen image we draw the world into each frame
-    private final BufferedImage buffer;
+    // Offscreen image (1 pixel per cell) we draw the world into each frame
+    private final WorldRenderer renderer;
+    private final WorldRenderer.RegionListener repaintCells;   // cell rectangle -> gameArea.repaint
+    private final int[] drawnTargetX = new int[2];              // where the markers were last repainted
+    private final int[] drawnTargetY = new int[2];
 
-    // Swing timer = our "game loop"
+    // Simulation thread + Swing timer that draws its latest frame
+    private final SimulationLoop simulation;
     private final Timer timer;
+    private World shownWorld;       // world of the frame on screen (owned by the EDT until the next poll)
+    private long shownSeq;          // its tick number, 0 = initial world
     
     // Small leave button in corner
     private final JButton leaveButton;
@@ -73,9 +83,10 @@ public final class GamePanel extends JPanel {
     private boolean redPlayerWon = false;
     private boolean bluePlayerWon = false;
     
-    // Timer state
-    private final long gameStartTime;
+    // Timer state (simulated time: the match clock follows the simulation speed)
     private static final long GAME_DURATION_MS = 5 * 60 * 1000; // 5 minutes
+    private static final int TEAMS = 2;
+    private static final long FRAME_NANOS = 33_000_000L;        // simulation period, ~30 ticks/s
     
     // AI and keyboard control
     private final boolean aiEnabled;
@@ -90,10 +101,22 @@ public final class GamePanel extends JPanel {
         this.gridH = gridH;
         this.cellSize = cellSize;
         this.aiEnabled = aiEnabled;
-        this.gameStartTime = System.currentTimeMillis();
 
-        // Buffer is 1 pixel per cell
-        this.buffer = new BufferedImage(gridW, gridH, BufferedImage.TYPE_INT_RGB);
+        // Image is 1 pixel per cell, walls are baked once
+        // Private snapshot: the controller's world turns into its back buffer after the first swap
+        this.shownWorld = controller.getWorld().copy();
+        this.renderer = new WorldRenderer(shownWorld);
+        renderer.render(shownWorld);
+        this.simulation = new SimulationLoop(controller::tick, controller::getWorld, FRAME_NANOS);
+
+        // F = fast-forward: cycles 1x -> 4x -> 16x -> unbounded -> 1x (works in any mode, whatever has focus)
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F, 0), "cycleSpeed");
+        getActionMap().put("cycleSpeed", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setSimulationSpeed(simulation.speed().next());
+            }
+        });
 
         setLayout(new BorderLayout());
         
@@ -107,6 +130,7 @@ public final class GamePanel extends JPanel {
         };
         gameArea.setPreferredSize(new Dimension(gridW * cellSize, gridH * cellSize));
         gameArea.setLayout(null); // For absolute positioning of leave button
+        repaintCells = (x, y, w, h) -> gameArea.repaint(x * cellSize, y * cellSize, w * cellSize, h * cellSize);
         
         // Small leave button in top-right corner of game area
         leaveButton = new JButton("Leave");
@@ -152,14 +176,14 @@ public final class GamePanel extends JPanel {
 
         // FPS: 33 ms~ 30 fps
         this.timer = new Timer(33, e -> {
-            if (!gameOver) {
-                controller.tick();  // update simulation only if not game over
-            }
             if (!aiEnabled) {
                 updateKeyboardMovement(); // Update WASD movement every frame
             }
+            if (!gameOver) {
+                showLatestFrame();  // take what the simulation finished since the last frame
+            }
             checkGameOver();
-            repaint();          // redraw
+            refreshScreen();    // redraw what changed
         });
 
         // Mouse handlers on game area only (disabled in local play)
@@ -202,14 +226,30 @@ public final class GamePanel extends JPanel {
         exitToHomeButton.addActionListener(action);
     }
     
+    /**
+     * Switches to the newest frame published by the simulation thread, if any.
+     * Its change log covers the ticks since the previous frame: only when this panel skipped
+     * frames (poll() missed one) is the whole image redrawn.
+     */
+    private void showLatestFrame()
+    {
+        Frame frame = simulation.poll();
+        if (frame == null) return;
+
+        if (frame.previousSeq() == shownSeq) renderer.markChanged(frame.world());
+        else renderer.markAll();
+
+        shownWorld = frame.world();
+        shownSeq = frame.seq();
+    }
+
     private void checkGameOver() {
         if (gameOver) return;
         
-        World world = controller.getWorld();
-        Map<Integer, Integer> teamCounts = countParticlesMultithreaded(world);
+        World world = shownWorld;   // per-team counts are running totals: O(1), no grid scan
         
-        int team0Count = teamCounts.getOrDefault(0, 0);
-        int team1Count = teamCounts.getOrDefault(1, 0);
+        int team0Count = world.teamCount(0);
+        int team1Count = world.teamCount(1);
         
         // Check if one team has 100% of particles
         if (team0Count > 0 && team1Count == 0) {
@@ -223,8 +263,7 @@ public final class GamePanel extends JPanel {
         }
         
         // Check if time is up
-        long elapsed = System.currentTimeMillis() - gameStartTime;
-        if (elapsed >= GAME_DURATION_MS) {
+        if (elapsedMillis() >= GAME_DURATION_MS) {
             gameOver = true;
             if (team0Count > team1Count) {
                 redPlayerWon = true;
@@ -239,6 +278,8 @@ public final class GamePanel extends JPanel {
     }
     
     private void showVictoryScreen() {
+        simulation.stop();  // the simulation only runs while the game is on
+        controller.shutdown();
         leaveButton.setVisible(false);
         playAgainButton.setVisible(true);
         exitToHomeButton.setVisible(true);
@@ -248,6 +289,7 @@ public final class GamePanel extends JPanel {
     //This method starts the simulation loop.
     public void startLoop()
     {
+        simulation.start();
         timer.start();
         if (!aiEnabled) {
             requestFocusInWindow(); // Ensure focus for keyboard input
@@ -255,19 +297,41 @@ public final class GamePanel extends JPanel {
     }
 
     /**
-     * Renders the game in the game area
+     * Updates the offscreen image and repaints only the screen areas that changed:
+     * dirty tiles of the grid, target markers (old and new position), timer text, progress bar.
+     * Once the game is over the overlay covers everything, so the whole panel is repainted.
      */
-    private void renderGame(Graphics g)
+    private void refreshScreen()
     {
-        World w = controller.getWorld();
+        renderer.update(shownWorld, repaintCells);
 
-        // Convert world state into pixels in 'buffer'
-        renderToBuffer(w);
+        if (gameOver)
+        {
+            repaint();
+            return;
+        }
 
+        for (int teamId = 0; teamId < 2; teamId++)
+        {
+            repaintCells.changed(drawnTargetX[teamId], drawnTargetY[teamId], 1, 1);
+            drawnTargetX[teamId] = controller.getTargetX(teamId);
+            drawnTargetY[teamId] = controller.getTargetY(teamId);
+            repaintCells.changed(drawnTargetX[teamId], drawnTargetY[teamId], 1, 1);
+        }
+        gameArea.repaint(0, 0, 140, 40);    // timer text
+        progressPanel.repaint();
+    }
+
+    /**
+     * Renders the game in the game area.
+     * The image is kept up to date by refreshScreen(); painting only scales it (within the clip).
+     */
+    private void renderGame(Graphics g)
+    {
         Graphics2D g2 = (Graphics2D) g;
 
         // Draw scale up to fit the game area
-        g2.drawImage(buffer, 0, 0, gridW * cellSize, gridH * cellSize, null);
+        g2.drawImage(renderer.image(), 0, 0, gridW * cellSize, gridH * cellSize, null);
 
         // Draw targets on top (so they are visible)
         drawTargets(g2, controller.getTargetX(0), controller.getTargetY(0), 0);
@@ -335,13 +399,16 @@ public final class GamePanel extends JPanel {
     }
     
     private void drawTimer(Graphics2D g2) {
-        long elapsed = System.currentTimeMillis() - gameStartTime;
-        long remaining = Math.max(0, GAME_DURATION_MS - elapsed);
+        long remaining = Math.max(0, GAME_DURATION_MS - elapsedMillis());
         
         int minutes = (int) (remaining / 60000);
         int seconds = (int) ((remaining % 60000) / 1000);
         
         String timeText = String.format("%d:%02d", minutes, seconds);
+        FixedTimestep.Speed speed = simulation.speed();
+        if (speed != FixedTimestep.Speed.X1) {
+            timeText += (speed == FixedTimestep.Speed.UNBOUNDED) ? "  max" : "  x" + speed.multiplier();
+        }
         
         g2.setColor(java.awt.Color.WHITE);
         g2.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 24));
@@ -351,12 +418,9 @@ public final class GamePanel extends JPanel {
     }
     
     private void drawProgressBar(Graphics2D g2) {
-        World world = controller.getWorld();
+        World world = shownWorld;
         
-        // Get particle counts using multithreading
-        Map<Integer, Integer> teamCounts = countParticlesMultithreaded(world);
-        
-        int totalCount = teamCounts.values().stream().mapToInt(Integer::intValue).sum();
+        int totalCount = world.particleCount();
         if (totalCount == 0) return;
         
         // Progress bar dimensions
@@ -367,9 +431,9 @@ public final class GamePanel extends JPanel {
         
         // Draw progress bars for each team
         int currentY = 2;
-        for (Map.Entry<Integer, Integer> entry : teamCounts.entrySet()) {
-            int teamId = entry.getKey();
-            int count = entry.getValue();
+        for (int teamId = 0; teamId < TEAMS; teamId++) {
+            int count = world.teamCount(teamId);
+            if (count == 0) continue;   // only teams still on the map get a bar
             
             // Calculate bar width for this team
             int teamBarWidth = (count * barWidth) / totalCount;
@@ -405,58 +469,6 @@ public final class GamePanel extends JPanel {
         };
     }
     
-    private Map<Integer, Integer> countParticlesMultithreaded(World world) {
-        Map<Integer, Integer> teamCounts = new ConcurrentHashMap<>();
-        
-        IntStream.range(0, gridH).parallel().forEach(y -> {
-            for (int x = 0; x < gridW; x++) {
-                Particle p = world.get(x, y);
-                if (p != null) {
-                    teamCounts.merge(p.teamId(), 1, (a, b) -> a + b);
-                }
-            }
-        });
-        
-        return teamCounts;
-    }
-
-    /**
-     * The following writes RBG values into the buffer:
-     * - walls = gray
-     * - empty = black
-     * - particle = team colour + brightness by energy
-     */
-    private void renderToBuffer (World w)
-    {
-        for (int y = 0; y < gridH; y++)
-        {
-            for(int x = 0; x < gridW; x++)
-            {
-                int rgb;
-
-                if (w.isWall(x, y))
-                {
-                    rgb = 0x202020; // dark gray
-                }
-                else
-                {
-                    Particle p = w.get(x, y);
-                    if (p == null)
-                    {
-                        rgb = 0x00000;  // empty = black
-                    }
-                    else
-                    {
-                        // team coulor + brightness based on energy
-                        rgb = ColourUtil.particleRGB(p.teamId(), p.energy());
-                    }
-                }
-
-                buffer.setRGB(x, y, rgb);
-            }
-        }
-    }
-
     /**
      * Draws a small square marker at the target location
      * Drawn in screen coordinates = (grid cell coord * cellSize)
@@ -520,8 +532,35 @@ public final class GamePanel extends JPanel {
         }
     }
     
+    /** Simulation speed (fast-forward, e.g. to evaluate AI matches); the match clock follows it. */
+    public void setSimulationSpeed(FixedTimestep.Speed speed) {
+        simulation.setSpeed(speed);
+        gameArea.repaint(0, 0, 140, 40);    // speed is shown next to the timer
+    }
+
+    public FixedTimestep.Speed getSimulationSpeed() {
+        return simulation.speed();
+    }
+
+    /** Simulated time of the match, for the bots: read on the simulation thread, in setBots()' task. */
+    public TickClock simulationClock() {
+        return simulation.clock();
+    }
+
+    /** Runs the bots on the simulation thread before every n-th tick; call before startLoop(). */
+    public void setBots(int everyTicks, Runnable update) {
+        simulation.runEvery(everyTicks, update);
+    }
+
+    /** @return simulated match time of the frame on screen */
+    private long elapsedMillis() {
+        return shownSeq * FRAME_NANOS / 1_000_000L;
+    }
+
     public void stopGame() {
         timer.stop();
+        simulation.stop();
+        controller.shutdown();  // the match is left: release its gradient threads
     }
     
     // Keyboard handler for local play controls
@@ -1,11 +1,22 @@
 package liquidwars.ui;
 
+import liquidwars.algo.GradientCache;
 import liquidwars.algo.GradientComputer;
+import liquidwars.algo.GradientFields;
+import liquidwars.algo.GradientSolver;
+import liquidwars.algo.PipelinedGradients;
+import liquidwars.algo.SlicedGradients;
+import liquidwars.algo.TeamGradients;
+import liquidwars.model.DoubleBufferedWorld;
+import liquidwars.model.TickStats;
 import liquidwars.model.World;
-import liquidwars.sim.StepSimulator;
+import liquidwars.sim.PackedStepSimulator;
+import liquidwars.sim.PhaseTimes;
+import liquidwars.sim.Simulator;
+import liquidwars.sim.TripleBuffer;
 
-import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Game controller for 4-team multiplayer mode.
@@ -17,57 +28,165 @@ public final class MultiplayerGameController {
     private final int height;
     private final boolean[][] wallsStable;  // [y][x], never changes
 
-    private final GradientComputer gradientComputer = new GradientComputer();
-    private final StepSimulator stepSimulator = new StepSimulator();
+    private final Simulator stepSimulator;      // PackedStepSimulator unless one is given
 
-    // Targets for 4 teams (mouse/bot-controlled)
-    private volatile int target0x, target0y;
-    private volatile int target1x, target1y;
-    private volatile int target2x, target2y;
-    private volatile int target3x, target3y;
+    // Gradients are only recomputed when a target moves; teams on the same cell share one field
+    private final GradientCache gradientCache = new GradientCache();
+    private final GradientFields teamGradients;  // TeamGradients (missing fields in parallel) or SlicedGradients
+    private final int[] targetCells = new int[4];
 
+    // Targets for 4 teams (mouse/bot-controlled), as cell index y * width + x:
+    // one volatile write per move, so the simulation thread never sees a half-updated target
+    private volatile int target0, target1, target2, target3;
+
+    // front = completed frame, back = buffer the simulator writes into
+    private final DoubleBufferedWorld buffers;
     private volatile World world;
 
+    // Per-tick statistics (counts, energy, centroid, bounding box), handed to one reader thread
+    private final TripleBuffer<TickStats> stats = new TripleBuffer<>(new TickStats(), new TickStats(), new TickStats());
+    private long ticks;
+    private final PhaseTimes phaseTimes = new PhaseTimes();
+
     public MultiplayerGameController(World initialWorld, boolean[][] wallsStable, int width, int height) {
+        this(initialWorld, wallsStable, width, height, TeamGradients.defaultThreads(4));
+    }
+
+    /**
+     * @param gradientThreads how many team gradients may be computed at the same time (1 = sequential)
+     */
+    public MultiplayerGameController(World initialWorld, boolean[][] wallsStable, int width, int height, int gradientThreads) {
+        this(initialWorld, wallsStable, width, height, gradientThreads, GradientComputer::new);
+    }
+
+    /**
+     * @param gradientThreads how many team gradients may be computed at the same time (1 = sequential)
+     * @param solverFactory gradient engine, one instance per thread (e.g. BitboardGradientComputer::new)
+     */
+    public MultiplayerGameController(World initialWorld, boolean[][] wallsStable, int width, int height, int gradientThreads,
+                                     Supplier<? extends GradientSolver> solverFactory) {
+        this(initialWorld, wallsStable, width, height, gradientThreads, solverFactory, new PackedStepSimulator());
+    }
+
+    /**
+     * @param gradientThreads how many team gradients may be computed at the same time (1 = sequential)
+     * @param solverFactory gradient engine, one instance per thread (e.g. BitboardGradientComputer::new)
+     * @param simulator step engine (e.g. new ParallelStepSimulator(threads, bandRows)); owned by the controller,
+     *                  shutdown() stops its threads
+     */
+    public MultiplayerGameController(World initialWorld, boolean[][] wallsStable, int width, int height, int gradientThreads,
+                                     Supplier<? extends GradientSolver> solverFactory, Simulator simulator) {
+        this(initialWorld, wallsStable, width, height, cache -> new TeamGradients(4, cache, solverFactory, gradientThreads), simulator);
+    }
+
+    /**
+     * Time-sliced gradients (SlicedGradients): each team's field persists between ticks and is refined
+     * by at most visitsPerTick cell visits per tick, so the gradient phase costs the same on any map.
+     */
+    public static MultiplayerGameController withGradientBudget(World initialWorld, boolean[][] wallsStable, int width, int height, int visitsPerTick) {
+        return withGradientBudget(initialWorld, wallsStable, width, height, visitsPerTick, new PackedStepSimulator());
+    }
+
+    /** Same with another step engine (owned by the controller). */
+    public static MultiplayerGameController withGradientBudget(World initialWorld, boolean[][] wallsStable, int width, int height, int visitsPerTick,
+                                                               Simulator simulator) {
+        return new MultiplayerGameController(initialWorld, wallsStable, width, height, cache -> new SlicedGradients(4, visitsPerTick), simulator);
+    }
+
+    /**
+     * Pipelined gradients (PipelinedGradients): the fields of tick N + 1 are computed on a worker thread
+     * while tick N steps; the fields used may be up to maxStaleness ticks old (0 = never stale).
+     * @param gradientThreads threads of the worker's TeamGradients (1 = the worker alone)
+     */
+    public static MultiplayerGameController withPipelinedGradients(World initialWorld, boolean[][] wallsStable, int width, int height,
+                                                                   int gradientThreads, int maxStaleness) {
+        return withPipelinedGradients(initialWorld, wallsStable, width, height, gradientThreads, maxStaleness,
+                GradientComputer::new, new PackedStepSimulator());
+    }
+
+    /** Same with another gradient engine for the worker and another step engine (owned by the controller). */
+    public static MultiplayerGameController withPipelinedGradients(World initialWorld, boolean[][] wallsStable, int width, int height,
+                                                                   int gradientThreads, int maxStaleness,
+                                                                   Supplier<? extends GradientSolver> solverFactory, Simulator simulator) {
+        return new MultiplayerGameController(initialWorld, wallsStable, width, height,
+                cache -> new PipelinedGradients(new TeamGradients(4, cache, solverFactory, gradientThreads), maxStaleness), simulator);
+    }
+
+    // gradients: builds the field source, given this controller's cache
+    private MultiplayerGameController(World initialWorld, boolean[][] wallsStable, int width, int height,
+                                      Function<GradientCache, GradientFields> gradients, Simulator simulator) {
+        this.stepSimulator = simulator;
+        this.teamGradients = gradients.apply(gradientCache);
+        this.buffers = new DoubleBufferedWorld(initialWorld);
         this.world = initialWorld;
         this.wallsStable = wallsStable;
         this.width = width;
         this.height = height;
+        publishStats();
 
         // Default targets (spread across map)
-        this.target0x = width / 4;
-        this.target0y = height / 4;
+        this.target0 = (height / 4) * width + width / 4;
+        this.target1 = (height / 4) * width + 3 * width / 4;
+        this.target2 = (3 * height / 4) * width + width / 4;
+        this.target3 = (3 * height / 4) * width + 3 * width / 4;
+    }
+
+    /**
+     * World of the latest completed tick. It becomes the back buffer at the next swap and is
+     * rewritten when the tick after that starts: only the simulation thread may keep reading it.
+     * Other threads copy() it before the simulation starts, or read the published Frames.
+     */
+    public World getWorld() {
+        return world;
+    }
 
-        this.target1x = 3 * width / 4;
-        this.target1y = height / 4;
+    /**
+     * Statistics of the latest completed tick (of the initial world before the first tick), O(1) to read.
+     * One reader thread only (e.g. the AI timer): the snapshot stays valid until its next call.
+     */
+    public TickStats getStats() {
+        stats.acquire();
+        return stats.front();
+    }
 
-        this.target2x = width / 4;
-        this.target2y = 3 * height / 4;
+    /** Time spent per tick phase; read it on the ticking thread. */
+    public PhaseTimes getPhaseTimes() {
+        return phaseTimes;
+    }
 
-        this.target3x = 3 * width / 4;
-        this.target3y = 3 * height / 4;
+    /** Cache of the TeamGradients mode (empty with a gradient budget; owned by the worker when pipelined). */
+    public GradientCache getGradientCache() {
+        return gradientCache;
     }
 
-    public World getWorld() {
-        return world;
+    /** Source of the fields (TeamGradients, SlicedGradients or PipelinedGradients), e.g. for its counters. */
+    public GradientFields getGradientFields() {
+        return teamGradients;
+    }
+
+    /**
+     * Stops the gradient threads (pool or pipeline worker) and those of the step engine once the match
+     * is over or left. Call after the last tick() (e.g. after SimulationLoop.stop()); tick() must not be called afterwards.
+     */
+    public void shutdown() {
+        teamGradients.shutdown();
+        stepSimulator.shutdown();
     }
 
     public int getTargetX(int teamId) {
-        return switch (teamId) {
-            case 0 -> target0x;
-            case 1 -> target1x;
-            case 2 -> target2x;
-            case 3 -> target3x;
-            default -> throw new IllegalArgumentException("Invalid teamId: " + teamId);
-        };
+        return targetCell(teamId) % width;
     }
 
     public int getTargetY(int teamId) {
+        return targetCell(teamId) / width;
+    }
+
+    private int targetCell(int teamId) {
         return switch (teamId) {
-            case 0 -> target0y;
-            case 1 -> target1y;
-            case 2 -> target2y;
-            case 3 -> target3y;
+            case 0 -> target0;
+            case 1 -> target1;
+            case 2 -> target2;
+            case 3 -> target3;
             default -> throw new IllegalArgumentException("Invalid teamId: " + teamId);
         };
     }
@@ -80,39 +199,47 @@ public final class MultiplayerGameController {
         if (wallsStable[y][x]) return;
 
         switch (teamId) {
-            case 0 -> { target0x = x; target0y = y; }
-            case 1 -> { target1x = x; target1y = y; }
-            case 2 -> { target2x = x; target2y = y; }
-            case 3 -> { target3x = x; target3y = y; }
+            case 0 -> target0 = y * width + x;
+            case 1 -> target1 = y * width + x;
+            case 2 -> target2 = y * width + x;
+            case 3 -> target3 = y * width + x;
             default -> throw new IllegalArgumentException("Invalid teamId: " + teamId);
         }
     }
 
     /**
-     * One frame step:
-     * 1) compute gradients for each of the 4 teams
-     * 2) apply StepSimulator.step(...)
+     * One frame step (call from one thread at a time, e.g. the SimulationLoop thread;
+     * setTarget() may be called from any thread and is picked up by the next tick):
+     * 1) get gradients for each of the 4 teams (from the cache when targets did not move, computed in parallel otherwise;
+     *    with a gradient budget: each persistent field refined by at most the budget;
+     *    pipelined: the latest fields of the worker, at most maxStaleness ticks old)
+     * 2) apply the step (PackedStepSimulator or the given engine, same rules as StepSimulator) on the back buffer and swap
+     * 3) snapshot the statistics (getStats()); each phase is timed in getPhaseTimes()
      */
     public void tick() {
-        World cur = world;
-
-        int[][] g0 = gradientComputer.compute(wallsStable,
-            List.of(new GradientComputer.Pos(target0x, target0y))
-        );
-
-        int[][] g1 = gradientComputer.compute(wallsStable,
-            List.of(new GradientComputer.Pos(target1x, target1y))
-        );
-
-        int[][] g2 = gradientComputer.compute(wallsStable,
-            List.of(new GradientComputer.Pos(target2x, target2y))
-        );
-
-        int[][] g3 = gradientComputer.compute(wallsStable,
-            List.of(new GradientComputer.Pos(target3x, target3y))
-        );
+        long t0 = System.nanoTime();
+        for (int teamId = 0; teamId < 4; teamId++) {
+            targetCells[teamId] = targetCell(teamId);
+        }
+        int[][][] gradients = teamGradients.update(wallsStable, targetCells);   // gradients[teamId]
+        long t1 = System.nanoTime();
+
+        // Write the next frame into the back buffer, then publish it
+        World next = buffers.prepareBack();
+        stepSimulator.stepInto(buffers.front(), next, gradients);
+        buffers.swap();
+        world = buffers.front();
+        long t2 = System.nanoTime();
+
+        ticks++;
+        publishStats();
+        phaseTimes.record(t1 - t0, t2 - t1, System.nanoTime() - t2);
+    }
 
-        world = stepSimulator.step(cur, Map.of(0, g0, 1, g1, 2, g2, 3, g3));
+    // Snapshot of the running totals the step just updated: no grid scan, no allocation
+    private void publishStats() {
+        stats.back().capture(buffers.front(), ticks);
+        stats.publish();
     }
 
     private int clamp(int v, int lo, int hi) {
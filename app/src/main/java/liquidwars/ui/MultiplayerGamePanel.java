@@ -1,9 +1,15 @@
 package liquidwars.ui;
 
-import liquidwars.model.Particle;
 import liquidwars.model.World;
+import liquidwars.sim.FixedTimestep;
+import liquidwars.sim.Frame;
+import liquidwars.sim.SimulationLoop;
+import liquidwars.sim.TickClock;
 
+import javax.swing.AbstractAction;
 import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
 import javax.swing.JPanel;
 import javax.swing.Timer;
 import java.awt.BorderLayout;
@@ -12,18 +18,19 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.IntStream;
 
 /**
  * Multiplayer game panel for 4 teams.
  * Player controls team 0 with mouse, teams 1-3 are bots (movement to be implemented).
  * Isolated from 2-team GamePanel to maintain strict OOP separation.
+ *
+ * Same game loop as GamePanel: the simulation ticks on its own thread (SimulationLoop) and
+ * the Swing Timer only draws the latest completed frame.
  */
 public final class MultiplayerGamePanel extends JPanel {
     
@@ -33,8 +40,14 @@ public final class MultiplayerGamePanel extends JPanel {
     private final int gridH;
     private final int cellSize;
 
-    private final BufferedImage buffer;
+    private final WorldRenderer renderer;
+    private final WorldRenderer.RegionListener repaintCells;   // cell rectangle -> gameArea.repaint
+    private final int[] drawnTargetX = new int[4];              // where the markers were last repainted
+    private final int[] drawnTargetY = new int[4];
+    private final SimulationLoop simulation;
     private final Timer timer;
+    private World shownWorld;       // world of the frame on screen (owned by the EDT until the next poll)
+    private long shownSeq;          // its tick number, 0 = initial world
     private final JButton leaveButton;
     private final JPanel gameArea;
     private final JPanel progressPanel;
@@ -42,8 +55,9 @@ public final class MultiplayerGamePanel extends JPanel {
     private boolean gameOver = false;
     private int winningTeam = -1;
     
-    private final long gameStartTime;
     private static final long GAME_DURATION_MS = 5 * 60 * 1000; // 5 minutes
+    private static final int TEAMS = 4;
+    private static final long FRAME_NANOS = 33_000_000L;        // simulation period, ~30 ticks/s
     
     private final JButton playAgainButton;
     private final JButton exitToHomeButton;
@@ -53,9 +67,21 @@ public final class MultiplayerGamePanel extends JPanel {
         this.gridW = gridW;
         this.gridH = gridH;
         this.cellSize = cellSize;
-        this.gameStartTime = System.currentTimeMillis();
 
-        this.buffer = new BufferedImage(gridW, gridH, BufferedImage.TYPE_INT_RGB);
+        // Private snapshot: the controller's world turns into its back buffer after the first swap
+        this.shownWorld = controller.getWorld().copy();
+        this.renderer = new WorldRenderer(shownWorld);
+        renderer.render(shownWorld);
+        this.simulation = new SimulationLoop(controller::tick, controller::getWorld, FRAME_NANOS);
+
+        // F = fast-forward: cycles 1x -> 4x -> 16x -> unbounded -> 1x (works in any mode, whatever has focus)
+        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F, 0), "cycleSpeed");
+        getActionMap().put("cycleSpeed", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setSimulationSpeed(simulation.speed().next());
+            }
+        });
 
         setLayout(new BorderLayout());
         
@@ -69,6 +95,7 @@ public final class MultiplayerGamePanel extends JPanel {
         };
         gameArea.setPreferredSize(new Dimension(gridW * cellSize, gridH * cellSize));
         gameArea.setLayout(null);
+        repaintCells = (x, y, w, h) -> gameArea.repaint(x * cellSize, y * cellSize, w * cellSize, h * cellSize);
         
         // Leave button in top-right corner
         leaveButton = new JButton("Leave");
@@ -107,10 +134,10 @@ public final class MultiplayerGamePanel extends JPanel {
         // Timer: 30 fps
         this.timer = new Timer(33, e -> {
             if (!gameOver) {
-                controller.tick();
+                showLatestFrame();
             }
             checkGameOver();
-            repaint();
+            refreshScreen();
         });
 
         // Mouse handler - player controls team 0
@@ -151,53 +178,94 @@ public final class MultiplayerGamePanel extends JPanel {
         exitToHomeButton.addActionListener(action);
     }
     
+    /**
+     * Switches to the newest frame published by the simulation thread, if any
+     * (full redraw only when frames were skipped: the change log covers the ticks since the previous frame).
+     */
+    private void showLatestFrame() {
+        Frame frame = simulation.poll();
+        if (frame == null) return;
+
+        if (frame.previousSeq() == shownSeq) renderer.markChanged(frame.world());
+        else renderer.markAll();
+
+        shownWorld = frame.world();
+        shownSeq = frame.seq();
+    }
+
     private void checkGameOver() {
         if (gameOver) return;
         
-        World world = controller.getWorld();
-        Map<Integer, Integer> teamCounts = countParticlesMultithreaded(world);
-        
-        // Remove teams with 0 particles
-        teamCounts.entrySet().removeIf(entry -> entry.getValue() == 0);
+        World world = shownWorld;   // per-team counts are running totals: O(1), no grid scan
         
         // Check if only one team remains
-        if (teamCounts.size() == 1) {
+        int teamsLeft = 0;
+        int lastTeam = -1;
+        for (int teamId = 0; teamId < TEAMS; teamId++) {
+            if (world.teamCount(teamId) > 0) {
+                teamsLeft++;
+                lastTeam = teamId;
+            }
+        }
+        if (teamsLeft == 1) {
             gameOver = true;
-            winningTeam = teamCounts.keySet().iterator().next();
+            winningTeam = lastTeam;
             showVictoryScreen();
             return;
         }
         
         // Check if time is up
-        long elapsed = System.currentTimeMillis() - gameStartTime;
-        if (elapsed >= GAME_DURATION_MS) {
+        if (elapsedMillis() >= GAME_DURATION_MS) {
             gameOver = true;
-            // Winner is team with most particles
-            winningTeam = teamCounts.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(0);
+            // Winner is team with most particles (lowest team id on a tie)
+            int best = 0;
+            for (int teamId = 1; teamId < TEAMS; teamId++) {
+                if (world.teamCount(teamId) > world.teamCount(best)) best = teamId;
+            }
+            winningTeam = best;
             showVictoryScreen();
         }
     }
     
     private void showVictoryScreen() {
+        simulation.stop();
+        controller.shutdown();
         leaveButton.setVisible(false);
         playAgainButton.setVisible(true);
         exitToHomeButton.setVisible(true);
     }
     
     public void startLoop() {
+        simulation.start();
         timer.start();
     }
     
-    private void renderGame(Graphics g) {
-        World w = controller.getWorld();
+    /**
+     * Updates the offscreen image and repaints only what changed (dirty tiles, target markers,
+     * timer, progress bars); everything once the game is over (overlay).
+     */
+    private void refreshScreen() {
+        renderer.update(shownWorld, repaintCells);
 
-        renderToBuffer(w);
+        if (gameOver) {
+            repaint();
+            return;
+        }
 
+        for (int teamId = 0; teamId < 4; teamId++) {
+            repaintCells.changed(drawnTargetX[teamId], drawnTargetY[teamId], 1, 1);
+            drawnTargetX[teamId] = controller.getTargetX(teamId);
+            drawnTargetY[teamId] = controller.getTargetY(teamId);
+            repaintCells.changed(drawnTargetX[teamId], drawnTargetY[teamId], 1, 1);
+        }
+        gameArea.repaint(0, 0, 140, 40);    // timer text
+        progressPanel.repaint();
+    }
+
+    // The image is kept up to date by refreshScreen(); painting only scales it (within the clip)
+    private void renderGame(Graphics g) {
         Graphics2D g2 = (Graphics2D) g;
-        g2.drawImage(buffer, 0, 0, gridW * cellSize, gridH * cellSize, null);
+        g2.drawImage(renderer.image(), 0, 0, gridW * cellSize, gridH * cellSize, null);
 
         // Draw targets for all 4 teams
         for (int teamId = 0; teamId < 4; teamId++) {
@@ -236,13 +304,16 @@ public final class MultiplayerGamePanel extends JPanel {
     }
     
     private void drawTimer(Graphics2D g2) {
-        long elapsed = System.currentTimeMillis() - gameStartTime;
-        long remaining = Math.max(0, GAME_DURATION_MS - elapsed);
+        long remaining = Math.max(0, GAME_DURATION_MS - elapsedMillis());
         
         int minutes = (int) (remaining / 60000);
         int seconds = (int) ((remaining % 60000) / 1000);
         
         String timeText = String.format("%d:%02d", minutes, seconds);
+        FixedTimestep.Speed speed = simulation.speed();
+        if (speed != FixedTimestep.Speed.X1) {
+            timeText += (speed == FixedTimestep.Speed.UNBOUNDED) ? "  max" : "  x" + speed.multiplier();
+        }
         
         g2.setColor(Color.WHITE);
         g2.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 24));
@@ -250,10 +321,9 @@ public final class MultiplayerGamePanel extends JPanel {
     }
     
     private void drawProgressBars(Graphics2D g2) {
-        World world = controller.getWorld();
-        Map<Integer, Integer> teamCounts = countParticlesMultithreaded(world);
+        World world = shownWorld;
         
-        int totalCount = teamCounts.values().stream().mapToInt(Integer::intValue).sum();
+        int totalCount = world.particleCount();
         if (totalCount == 0) return;
         
         int barHeight = 12;
@@ -262,8 +332,8 @@ public final class MultiplayerGamePanel extends JPanel {
         int barX = 10;
         
         int currentY = 2;
-        for (int teamId = 0; teamId < 4; teamId++) {
-            int count = teamCounts.getOrDefault(teamId, 0);
+        for (int teamId = 0; teamId < TEAMS; teamId++) {
+            int count = world.teamCount(teamId);
             
             int teamBarWidth = (count * barWidth) / totalCount;
             
@@ -310,42 +380,6 @@ public final class MultiplayerGamePanel extends JPanel {
         };
     }
     
-    private Map<Integer, Integer> countParticlesMultithreaded(World world) {
-        Map<Integer, Integer> teamCounts = new ConcurrentHashMap<>();
-        
-        IntStream.range(0, gridH).parallel().forEach(y -> {
-            for (int x = 0; x < gridW; x++) {
-                Particle p = world.get(x, y);
-                if (p != null) {
-                    teamCounts.merge(p.teamId(), 1, (a, b) -> a + b);
-                }
-            }
-        });
-        
-        return teamCounts;
-    }
-
-    private void renderToBuffer(World w) {
-        for (int y = 0; y < gridH; y++) {
-            for (int x = 0; x < gridW; x++) {
-                int rgb;
-
-                if (w.isWall(x, y)) {
-                    rgb = 0x202020;
-                } else {
-                    Particle p = w.get(x, y);
-                    if (p == null) {
-                        rgb = 0x000000;
-                    } else {
-                        rgb = ColourUtil.particleRGB(p.teamId(), p.energy());
-                    }
-                }
-
-                buffer.setRGB(x, y, rgb);
-            }
-        }
-    }
-
     private void drawTarget(Graphics2D g2, int tx, int ty, int teamId) {
         int px = tx * cellSize;
         int py = ty * cellSize;
@@ -397,7 +431,34 @@ public final class MultiplayerGamePanel extends JPanel {
         }
     }
     
+    /** Simulation speed (fast-forward, e.g. to evaluate AI matches); the match clock follows it. */
+    public void setSimulationSpeed(FixedTimestep.Speed speed) {
+        simulation.setSpeed(speed);
+        gameArea.repaint(0, 0, 140, 40);    // speed is shown next to the timer
+    }
+
+    public FixedTimestep.Speed getSimulationSpeed() {
+        return simulation.speed();
+    }
+
+    /** Simulated time of the match, for the bots: read on the simulation thread, in setBots()' task. */
+    public TickClock simulationClock() {
+        return simulation.clock();
+    }
+
+    /** Runs the bots on the simulation thread before every n-th tick; call before startLoop(). */
+    public void setBots(int everyTicks, Runnable update) {
+        simulation.runEvery(everyTicks, update);
+    }
+
+    /** @return simulated match time of the frame on screen */
+    private long elapsedMillis() {
+        return shownSeq * FRAME_NANOS / 1_000_000L;
+    }
+
     public void stopGame() {
         timer.stop();
+        simulation.stop();
+        controller.shutdown();  // the match is left: release its gradient threads
     }
 }
@@ -0,0 +1,213 @@
+package liquidwars.ui;
+
+import liquidwars.model.World;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Draws a World into a 1-pixel-per-cell image, for the panels to scale up on screen.
+ *
+ * Instead of one BufferedImage.setRGB() and one ColourUtil.particleRGB() per cell:
+ * - pixels are written straight into the image's int[] (DataBufferInt)
+ * - walls and empty cells never change colour, so they are baked once into a static layer
+ *   that is bulk-copied at the start of each frame
+ * - only occupied cells are then visited (World.nextOccupied) and coloured from the
+ *   precomputed palette (ColourUtil.paletteRGB)
+ *
+ * Incremental mode (dirty tiles):
+ * - the grid is split into square tiles of 'tileSize' cells
+ * - after each tick, markChanged(world) marks the tiles holding a cell the tick wrote
+ *   (the World change log: after DoubleBufferedWorld.swap() the front lists exactly
+ *   the cells of the last tick)
+ * - update() redraws only the marked tiles, and reports them (merged into horizontal runs)
+ *   so the panel can repaint just those screen rectangles
+ *
+ * Colours are exactly those of the old per-cell path. Use from one thread (the EDT).
+ */
+public final class WorldRenderer {
+
+    static final int WALL_RGB = 0x202020;   // dark gray
+    static final int EMPTY_RGB = 0x000000;  // black
+
+    public static final int DEFAULT_TILE_SIZE = 8;
+
+    /** Receives a changed area, in cells. */
+    @FunctionalInterface
+    public interface RegionListener {
+        void changed(int x, int y, int w, int h);
+    }
+
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final int[] pixels;             // backing array of 'image', row-major
+    private final int[] staticLayer;        // walls + empty cells
+
+    // Dirty tiles, one bit per tile (row-major)
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesY;
+    private final long[] dirty;
+    private int dirtyCount;
+    private boolean allDirty = true;        // nothing drawn yet
+
+    /** @param world any frame of the match (only its size and walls are read) */
+    public WorldRenderer(World world)
+    {
+        this(world, DEFAULT_TILE_SIZE);
+    }
+
+    public WorldRenderer(World world, int tileSize)
+    {
+        if (tileSize <= 0) throw new IllegalArgumentException("tileSize must be positive");
+
+        this.width = world.width();
+        this.height = world.height();
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        this.staticLayer = new int[width * height];
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                staticLayer[y * width + x] = world.isWall(x, y) ? WALL_RGB : EMPTY_RGB;
+            }
+        }
+
+        this.tileSize = tileSize;
+        this.tilesX = (width + tileSize - 1) / tileSize;
+        this.tilesY = (height + tileSize - 1) / tileSize;
+        this.dirty = new long[(tilesX * tilesY + 63) >>> 6];
+    }
+
+    public BufferedImage image()
+    {
+        return image;
+    }
+
+    /** Redraws the whole frame (and forgets the dirty tiles). */
+    public void render(World world)
+    {
+        checkSize(world);
+        System.arraycopy(staticLayer, 0, pixels, 0, pixels.length);
+
+        for (int i = world.nextOccupied(0); i >= 0; i = world.nextOccupied(i + 1))
+        {
+            pixels[i] = ColourUtil.paletteRGB(world.teamAtCell(i), world.energyAtCell(i));
+        }
+        clearDirty();
+    }
+
+    // ---- Incremental mode ----
+
+    /** Marks the tiles of every cell in the world's change log. Call after each tick. */
+    public void markChanged(World world)
+    {
+        if (allDirty) return;
+        checkSize(world);
+
+        for (int k = 0; k < world.changeCount(); k++)
+        {
+            int cell = world.changedIndex(k);
+            int tile = (cell / width / tileSize) * tilesX + (cell % width) / tileSize;
+            long bit = 1L << tile;
+            if ((dirty[tile >>> 6] & bit) == 0)
+            {
+                dirty[tile >>> 6] |= bit;
+                dirtyCount++;
+            }
+        }
+    }
+
+    /** Forces a full redraw on the next update() (e.g. frames were skipped). */
+    public void markAll()
+    {
+        allDirty = true;
+    }
+
+    /** @return number of tiles waiting for update() (all of them after markAll()) */
+    public int dirtyTileCount()
+    {
+        return allDirty ? tilesX * tilesY : dirtyCount;
+    }
+
+    /**
+     * Brings the image up to date with 'world' and reports the redrawn areas (in cells).
+     * A full redraw reports the whole grid once.
+     */
+    public void update(World world, RegionListener listener)
+    {
+        if (allDirty)
+        {
+            render(world);
+            listener.changed(0, 0, width, height);
+            return;
+        }
+        checkSize(world);
+
+        for (int ty = 0; ty < tilesY && dirtyCount > 0; ty++)
+        {
+            int tx = 0;
+            while (tx < tilesX)
+            {
+                if (!isDirty(tx, ty)) { tx++; continue; }
+
+                // Horizontal run of dirty tiles = one rectangle
+                int start = tx;
+                while (tx < tilesX && isDirty(tx, ty))
+                {
+                    dirtyCount--;
+                    tx++;
+                }
+
+                int x0 = start * tileSize;
+                int y0 = ty * tileSize;
+                int x1 = Math.min(width, tx * tileSize);
+                int y1 = Math.min(height, y0 + tileSize);
+                redraw(world, x0, y0, x1, y1);
+                listener.changed(x0, y0, x1 - x0, y1 - y0);
+            }
+        }
+        Arrays.fill(dirty, 0L);
+        dirtyCount = 0;
+    }
+
+    private void redraw(World world, int x0, int y0, int x1, int y1)
+    {
+        for (int y = y0; y < y1; y++)
+        {
+            int from = y * width + x0;
+            int to = y * width + x1;
+            System.arraycopy(staticLayer, from, pixels, from, to - from);
+
+            for (int i = world.nextOccupied(from); i >= 0 && i < to; i = world.nextOccupied(i + 1))
+            {
+                pixels[i] = ColourUtil.paletteRGB(world.teamAtCell(i), world.energyAtCell(i));
+            }
+        }
+    }
+
+    private boolean isDirty(int tx, int ty)
+    {
+        int tile = ty * tilesX + tx;
+        return (dirty[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    private void clearDirty()
+    {
+        Arrays.fill(dirty, 0L);
+        dirtyCount = 0;
+        allDirty = false;
+    }
+
+    private void checkSize(World world)
+    {
+        if (world.width() != width || world.height() != height)
+        {
+            throw new IllegalArgumentException("world size does not match the renderer");
+        }
+    }
+}
@@ -106,4 +106,17 @@ class AppTest {
         m.setAccessible(true);
         return (Particle[][]) m.invoke(null, w, h, walls);
     }
+
+    @Test
+    void engineComesFromTheCommandLine() {
+        assertEquals(Engine.DEFAULT, App.engineFromArgs(new String[0]));
+        assertEquals(Engine.Gradient.BITBOARD, App.engineFromArgs(new String[] { "--gradient", "bitboard" }).gradient());
+
+        Engine e = App.engineFromArgs(new String[] { "--simulator", "parallel:2", "--gradient", "zones" });
+        assertEquals(Engine.Gradient.ZONES, e.gradient());
+        assertEquals(Engine.Step.PARALLEL, e.step());
+
+        assertThrows(IllegalArgumentException.class, () -> App.engineFromArgs(new String[] { "--gradient" }));
+        assertThrows(IllegalArgumentException.class, () -> App.engineFromArgs(new String[] { "--speed", "4" }));
+    }
 }
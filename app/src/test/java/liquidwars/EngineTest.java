@@ -0,0 +1,56 @@
+package liquidwars;
+
+import liquidwars.ai.FreeCellIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineTest {
+
+    @Test
+    void parsesEveryGradientAndSimulator() {
+        assertEquals(Engine.DEFAULT, Engine.parse(null, null));
+        assertEquals(Engine.DEFAULT, Engine.parse("bfs", "packed"));
+
+        Engine e = Engine.parse("budget:2048", "parallel:4:8");
+        assertEquals(Engine.Gradient.BUDGET, e.gradient());
+        assertEquals(2048, e.gradientParam());
+        assertEquals(Engine.Step.PARALLEL, e.step());
+        assertEquals(4, e.stepThreads());
+        assertEquals(8, e.bandRows());
+
+        for (String g : new String[] { "bfs", "mesh", "bitboard", "zones", "budget:100", "pipelined:1" }) {
+            for (String s : new String[] { "packed", "parallel:2", "parallel:2:16" }) {
+                Engine parsed = Engine.parse(g, s);
+                assertEquals(g + " + " + s, parsed.toString());
+            }
+        }
+    }
+
+    @Test
+    void badEnginesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Engine.parse("dijkstra", null));
+        assertThrows(IllegalArgumentException.class, () -> Engine.parse("budget", null));
+        assertThrows(IllegalArgumentException.class, () -> Engine.parse("budget:0", null));
+        assertThrows(IllegalArgumentException.class, () -> Engine.parse("bfs:3", null));
+        assertThrows(IllegalArgumentException.class, () -> Engine.parse(null, "parallel"));
+        assertThrows(IllegalArgumentException.class, () -> Engine.parse(null, "parallel:0"));
+        assertThrows(IllegalArgumentException.class, () -> Engine.parse(null, "packed:2"));
+    }
+
+    @Test
+    void everyEnginePlaysAMatchWithoutLosingParticles() {
+        boolean[][] walls = new boolean[20][40];
+        for (int x = 12; x < 28; x++) walls[10][x] = true;
+        FreeCellIndex freeCells = new FreeCellIndex(walls);
+        int initial = 0;
+        for (var row : App.makeInitialParticles(40, 20, walls)) {
+            for (var p : row) if (p != null) initial++;
+        }
+
+        for (String g : new String[] { "mesh", "zones", "budget:64", "pipelined:1" }) {
+            HeadlessMatch.Result r = HeadlessMatch.runTwoTeams(walls, freeCells, 2, 60, 2, Engine.parse(g, "parallel:2:4"));
+            assertEquals(initial, r.counts()[0] + r.counts()[1], g);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package liquidwars;
+
+import liquidwars.ai.FreeCellIndex;
+import liquidwars.sim.PhaseTimes;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessMatchTest {
+
+    private static boolean[][] openMap(int w, int h) {
+        boolean[][] walls = new boolean[h][w];
+        for (int x = 0; x < w; x++) walls[h / 2][x] = (x > w / 3 && x < 2 * w / 3);   // one wall in the middle
+        return walls;
+    }
+
+    private static int sum(int[] counts) {
+        int s = 0;
+        for (int c : counts) s += c;
+        return s;
+    }
+
+    @Test
+    void twoTeamMatchStopsAtTheTimeLimitAndTimesEveryTick() {
+        boolean[][] walls = openMap(48, 24);
+        int initial = 0;
+        for (var row : App.makeInitialParticles(48, 24, walls)) {
+            for (var p : row) if (p != null) initial++;
+        }
+
+        HeadlessMatch.Result r = HeadlessMatch.runTwoTeams(walls, 3, 120, 1);
+
+        assertEquals(2, r.teams());
+        assertEquals(120, r.ticks());
+        assertEquals(HeadlessMatch.Outcome.TIME_LIMIT, r.outcome());
+        assertEquals(initial, sum(r.counts()), "particles change team, they are never lost");
+        assertEquals(r.counts()[0] >= r.counts()[1] ? 0 : 1, r.winner());
+
+        assertEquals(120, r.phases().ticks());
+        assertTrue(r.phases().totalNanos(PhaseTimes.Phase.STEP) > 0);
+        assertTrue(r.wallNanos() >= r.phases().totalNanos());
+        assertTrue(r.ticksPerSecond() > 0);
+    }
+
+    @Test
+    void sameSeedReplaysTheSameTwoTeamMatch() {
+        boolean[][] walls = openMap(40, 20);
+
+        HeadlessMatch.Result a = HeadlessMatch.runTwoTeams(walls, 11, 150, 1);
+        HeadlessMatch.Result b = HeadlessMatch.runTwoTeams(walls, 11, 150, 2);
+
+        assertArrayEquals(a.counts(), b.counts());
+        assertEquals(a.winner(), b.winner());
+    }
+
+    @Test
+    void bitboardEngineReplaysTheSameMatches() {
+        boolean[][] walls = openMap(48, 24);
+        FreeCellIndex freeCells = new FreeCellIndex(walls);
+        Engine bitboard = Engine.parse("bitboard", null);
+
+        HeadlessMatch.Result bfs2 = HeadlessMatch.runTwoTeams(walls, freeCells, 7, 150, 2, Engine.DEFAULT);
+        HeadlessMatch.Result bit2 = HeadlessMatch.runTwoTeams(walls, freeCells, 7, 150, 2, bitboard);
+        assertArrayEquals(bfs2.counts(), bit2.counts());
+        assertEquals(bfs2.ticks(), bit2.ticks());
+
+        HeadlessMatch.Result bfs4 = HeadlessMatch.runFourTeams(walls, freeCells, null, 7, 150, 2, Engine.DEFAULT);
+        HeadlessMatch.Result bit4 = HeadlessMatch.runFourTeams(walls, freeCells, null, 7, 150, 2, bitboard);
+        assertArrayEquals(bfs4.counts(), bit4.counts());
+        assertEquals(bfs4.winner(), bit4.winner());
+    }
+
+    @Test
+    void parallelSimulatorReplaysTheSameFourTeamMatch() {
+        boolean[][] walls = openMap(48, 24);
+        FreeCellIndex freeCells = new FreeCellIndex(walls);
+
+        HeadlessMatch.Result packed = HeadlessMatch.runFourTeams(walls, freeCells, null, 5, 90, 1, Engine.DEFAULT);
+        HeadlessMatch.Result parallel = HeadlessMatch.runFourTeams(walls, freeCells, null, 5, 90, 1, Engine.parse(null, "parallel:2:4"));
+
+        assertArrayEquals(packed.counts(), parallel.counts());
+        assertEquals(packed.ticks(), parallel.ticks());
+        assertEquals(packed.winner(), parallel.winner());
+    }
+
+    @Test
+    void fourTeamMatchKeepsEveryParticle() {
+        boolean[][] walls = openMap(48, 24);
+        int initial = 0;
+        for (var row : App.makeMultiplayerParticles(48, 24, walls)) {
+            for (var p : row) if (p != null) initial++;
+        }
+
+        HeadlessMatch.Result r = HeadlessMatch.runFourTeams(walls, 1, 90, 1);
+
+        assertEquals(4, r.teams());
+        assertEquals(4, r.counts().length);
+        assertEquals(initial, sum(r.counts()));
+        assertTrue(r.ticks() <= 90);
+        assertEquals(r.ticks(), r.phases().ticks());
+        if (r.outcome() == HeadlessMatch.Outcome.TIME_LIMIT) assertEquals(90, r.ticks());
+    }
+
+    @Test
+    void bundledMapsLoadByNumber() throws Exception {
+        boolean[][] byNumber = HeadlessMatch.loadMap("1");
+        boolean[][] byPath = LevelLoader.loadWallsFromResourceAnySize("/levels/map1.png");
+
+        assertTrue(Arrays.deepEquals(byPath, byNumber));
+    }
+}
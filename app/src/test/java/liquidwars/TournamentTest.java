@@ -0,0 +1,82 @@
+package liquidwars;
+
+import liquidwars.ai.MultiplayerAIManager.Behavior;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TournamentTest {
+
+    private static boolean[][] arena(int w, int h, boolean pillar) {
+        boolean[][] walls = new boolean[h][w];
+        if (pillar) {
+            for (int y = h / 3; y < 2 * h / 3; y++) walls[y][w / 2] = true;
+        }
+        return walls;
+    }
+
+    @Test
+    void roundRobinListsEveryLineupOnEveryMap() {
+        List<Tournament.Fixture> fixtures = Tournament.roundRobin(List.of("a", "b"), 3, 10);
+
+        assertEquals(2 * 27 * 3, fixtures.size());
+        assertEquals(12, fixtures.get(2).seed());
+        assertEquals("b", fixtures.get(fixtures.size() - 1).map());
+        assertEquals(3, fixtures.stream().filter(f -> f.map().equals("a")
+                && List.of(f.roles()).equals(List.of(Behavior.MIRROR_ATTACKER, Behavior.MIRROR_PLAYER, Behavior.ATTACK_CLOSEST))).count());
+    }
+
+    @Test
+    void resultsDoNotDependOnTheNumberOfThreads() {
+        Map<String, boolean[][]> maps = Map.of("open", arena(36, 18, false), "pillar", arena(40, 20, true));
+        List<Tournament.Fixture> fixtures = Tournament.roundRobin(List.of("open", "pillar"), 1, 5).subList(0, 12);
+
+        List<Tournament.Played> one = new Tournament(maps, 60, 1).run(fixtures);
+        List<Tournament.Played> four = new Tournament(maps, 60, 4).run(fixtures);
+
+        assertEquals(fixtures.size(), one.size());
+        for (int i = 0; i < fixtures.size(); i++) {
+            assertSame(fixtures.get(i), one.get(i).fixture());
+            assertArrayEquals(one.get(i).result().counts(), four.get(i).result().counts(), fixtures.get(i).toString());
+            assertEquals(one.get(i).result().winner(), four.get(i).result().winner());
+        }
+    }
+
+    @Test
+    void standingsCountSeatsWinsAndHeadToHead() {
+        HeadlessMatch.Result botWins = new HeadlessMatch.Result(4, 2, HeadlessMatch.Outcome.TIME_LIMIT, 10, new int[] {1, 5, 9, 5}, 1, null);
+        HeadlessMatch.Result playerWins = new HeadlessMatch.Result(4, 0, HeadlessMatch.Outcome.ELIMINATION, 10, new int[] {9, 0, 0, 0}, 1, null);
+        Behavior[] lineup = {Behavior.MIRROR_PLAYER, Behavior.ATTACK_CLOSEST, Behavior.ATTACK_CLOSEST};
+
+        Tournament.Standings s = Tournament.Standings.of(List.of(
+                new Tournament.Played(new Tournament.Fixture("m", lineup, 1), botWins),
+                new Tournament.Played(new Tournament.Fixture("m", lineup, 2), playerWins)));
+
+        assertEquals(2, s.matches());
+        assertEquals(1, s.playerWins());
+        assertEquals(2, s.seats(Behavior.MIRROR_PLAYER));
+        assertEquals(4, s.seats(Behavior.ATTACK_CLOSEST));
+        assertEquals(0, s.seats(Behavior.MIRROR_ATTACKER));
+        assertEquals(0.25, s.winRate(Behavior.ATTACK_CLOSEST));
+        assertEquals(0.0, s.winRate(Behavior.MIRROR_ATTACKER));
+
+        // ATTACK_CLOSEST vs MIRROR_PLAYER: 4 meetings, ahead once (team 2: 9 > 5); tie with team 3
+        assertEquals(0.25, s.headToHead(Behavior.ATTACK_CLOSEST, Behavior.MIRROR_PLAYER));
+        assertEquals(0.0, s.headToHead(Behavior.MIRROR_PLAYER, Behavior.ATTACK_CLOSEST));
+        // ATTACK_CLOSEST vs itself: 4 meetings (2 per match), ahead once (team 2 over team 3)
+        assertEquals(0.25, s.headToHead(Behavior.ATTACK_CLOSEST, Behavior.ATTACK_CLOSEST));
+    }
+
+    @Test
+    void invalidSetupsAreRejected() {
+        Map<String, boolean[][]> maps = Map.of("m", arena(20, 10, false));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(Map.of(), 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(maps, 10, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Tournament(maps, 10, 1).run(Tournament.roundRobin(List.of("other"), 1, 1)));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament.Fixture("m", new Behavior[2], 1));
+    }
+}
@@ -0,0 +1,95 @@
+package liquidwars.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeCellIndexTest {
+
+    // The per-call BFS OpponentAI used before the index (reference for tie-breaking)
+    private static int referenceNearest(boolean[][] walls, int sx, int sy) {
+        int h = walls.length, w = walls[0].length;
+        boolean[][] seen = new boolean[h][w];
+        Deque<int[]> q = new ArrayDeque<>();
+        q.addLast(new int[] { sx, sy });
+        seen[sy][sx] = true;
+        int[] dx = {1, -1, 0, 0};
+        int[] dy = {0, 0, 1, -1};
+        while (!q.isEmpty()) {
+            int[] cur = q.removeFirst();
+            if (!walls[cur[1]][cur[0]]) return cur[1] * w + cur[0];
+            for (int i = 0; i < 4; i++) {
+                int nx = cur[0] + dx[i], ny = cur[1] + dy[i];
+                if (nx < 0 || nx >= w || ny < 0 || ny >= h || seen[ny][nx]) continue;
+                seen[ny][nx] = true;
+                q.addLast(new int[] { nx, ny });
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void nearestFreeMatchesTheBreadthFirstSearchEverywhere() {
+        Random rnd = new Random(8);
+        for (int round = 0; round < 5; round++) {
+            int w = 5 + rnd.nextInt(25), h = 4 + rnd.nextInt(20);
+            boolean[][] walls = new boolean[h][w];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) walls[y][x] = rnd.nextInt(10) < 7;   // mostly walls: long searches
+            }
+            FreeCellIndex index = new FreeCellIndex(walls);
+
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    assertEquals(referenceNearest(walls, x, y), index.nearestFree(x, y), "cell " + x + "," + y);
+                }
+            }
+            assertEquals(-1, index.nearestFree(-1, 0));
+            assertEquals(-1, index.nearestFree(w, 0));
+        }
+    }
+
+    @Test
+    void randomPickMatchesPickingFromTheRowMajorList() {
+        boolean[][] walls = new boolean[7][9];
+        for (int x = 0; x < 9; x++) walls[3][x] = true;
+        walls[0][4] = true;
+
+        List<Integer> free = new ArrayList<>();
+        for (int y = 0; y < 7; y++) {
+            for (int x = 0; x < 9; x++) {
+                if (!walls[y][x]) free.add(y * 9 + x);
+            }
+        }
+        FreeCellIndex index = new FreeCellIndex(walls);
+        assertEquals(free.size(), index.freeCount());
+
+        Random a = new Random(21), b = new Random(21);
+        for (int k = 0; k < 50; k++) {
+            assertEquals((int) free.get(a.nextInt(free.size())), index.randomFreeCell(b));
+        }
+    }
+
+    @Test
+    void mapWithoutFreeCells() {
+        FreeCellIndex index = new FreeCellIndex(new boolean[][] { { true, true }, { true, true } });
+
+        assertEquals(0, index.freeCount());
+        assertEquals(-1, index.randomFreeCell(new Random(1)));
+        assertEquals(-1, index.nearestFree(1, 1));
+        assertFalse(index.isFree(0, 0));
+    }
+
+    @Test
+    void invalidWallsAreRejected() {
+        assertThrows(NullPointerException.class, () -> new FreeCellIndex(null));
+        assertThrows(IllegalArgumentException.class, () -> new FreeCellIndex(new boolean[0][0]));
+        assertThrows(IllegalArgumentException.class, () -> new FreeCellIndex(new boolean[][] { { false }, { false, false } }));
+    }
+}
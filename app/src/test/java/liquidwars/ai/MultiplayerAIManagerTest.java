@@ -2,11 +2,13 @@ package liquidwars.ai;
 
 import liquidwars.model.Particle;
 import liquidwars.model.World;
+import liquidwars.sim.TickClock;
 import liquidwars.ui.MultiplayerGameController;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MultiplayerAIManagerTest {
@@ -43,40 +45,11 @@ class MultiplayerAIManagerTest {
         aiManager = new MultiplayerAIManager(controller, walls, WIDTH, HEIGHT);
     }
 
-    @AfterEach
-    void tearDown() {
-        if (aiManager != null) {
-            aiManager.stop();
-        }
-    }
-
     @Test
     void constructor_CreatesAIManager() {
         assertNotNull(aiManager);
     }
 
-    @Test
-    void start_DoesNotThrowException() {
-        assertDoesNotThrow(() -> aiManager.start());
-    }
-
-    @Test
-    void stop_DoesNotThrowException() {
-        aiManager.start();
-        assertDoesNotThrow(() -> aiManager.stop());
-    }
-
-    @Test
-    void startAndStop_CanBeCalledMultipleTimes() {
-        aiManager.start();
-        aiManager.stop();
-        aiManager.start();
-        aiManager.stop();
-        
-        // Should not throw exception
-        assertDoesNotThrow(() -> {});
-    }
-
     @Test
     void constructor_InitializesWithDifferentBehaviorsForEachTeam() {
         // Create multiple AI managers and verify they can assign different behaviors
@@ -88,18 +61,11 @@ class MultiplayerAIManagerTest {
         assertNotNull(ai1);
         assertNotNull(ai2);
         assertNotNull(ai3);
-
-        ai1.stop();
-        ai2.stop();
-        ai3.stop();
     }
 
     @Test
-    void start_UpdatesTargetsForBotTeams() throws InterruptedException {
-        aiManager.start();
-
-        // Wait a bit for AI to potentially update targets
-        Thread.sleep(200);
+    void updateOnce_UpdatesTargetsForBotTeams() {
+        aiManager.updateOnce();
 
         // Targets might have been updated by AI (or might still be the same depending on behavior)
         // Just verify we can still get targets without exception
@@ -113,23 +79,6 @@ class MultiplayerAIManagerTest {
         });
     }
 
-    @Test
-    void stop_StopsUpdatingTargets() throws InterruptedException {
-        aiManager.start();
-        Thread.sleep(100);
-
-        aiManager.stop();
-
-        // Wait a bit
-        Thread.sleep(200);
-
-        // After stopping, targets should not change (or at least we can still read them)
-        assertDoesNotThrow(() -> {
-            controller.getTargetX(1);
-            controller.getTargetY(1);
-        });
-    }
-
     @Test
     void constructor_WorksWithDifferentWorldSizes() {
         boolean[][] smallWalls = new boolean[50][50];
@@ -140,6 +89,47 @@ class MultiplayerAIManagerTest {
         MultiplayerAIManager smallAI = new MultiplayerAIManager(smallController, smallWalls, 50, 50);
 
         assertNotNull(smallAI);
-        smallAI.stop();
+    }
+
+    @Test
+    void givenRolesAreUsedAsIs() {
+        MultiplayerAIManager.Behavior[] roles = {
+            MultiplayerAIManager.Behavior.ATTACK_CLOSEST,
+            MultiplayerAIManager.Behavior.ATTACK_CLOSEST,
+            MultiplayerAIManager.Behavior.MIRROR_PLAYER
+        };
+        MultiplayerAIManager ai = new MultiplayerAIManager(controller, new FreeCellIndex(walls), roles, new Random(1), new TickClock(33));
+
+        assertEquals(MultiplayerAIManager.Behavior.ATTACK_CLOSEST, ai.behaviorOf(1));
+        assertEquals(MultiplayerAIManager.Behavior.ATTACK_CLOSEST, ai.behaviorOf(2));
+        assertEquals(MultiplayerAIManager.Behavior.MIRROR_PLAYER, ai.behaviorOf(3));
+        assertThrows(IllegalArgumentException.class, () -> ai.behaviorOf(0));
+        assertThrows(IllegalArgumentException.class,
+            () -> new MultiplayerAIManager(controller, new FreeCellIndex(walls), new MultiplayerAIManager.Behavior[2], new Random(1), new TickClock(33)));
+    }
+
+    @Test
+    void sameSeedAndTickClockGiveTheSameTargets() {
+        FreeCellIndex freeCells = new FreeCellIndex(walls);
+        int[][] seen = new int[2][];
+        for (int run = 0; run < 2; run++) {
+            World w = new World(walls, new Particle[HEIGHT][WIDTH]);
+            MultiplayerGameController c = new MultiplayerGameController(w, walls, WIDTH, HEIGHT);
+            TickClock clock = new TickClock(100);
+            MultiplayerAIManager ai = new MultiplayerAIManager(c, freeCells, new Random(42), clock);
+
+            seen[run] = new int[3 * 2 * 200];
+            int k = 0;
+            for (int i = 0; i < 200; i++) {          // 20 simulated seconds: several random phases
+                c.setTarget(0, 10 + i % 100, 60);
+                ai.updateOnce();
+                clock.advance();
+                for (int t = 1; t <= 3; t++) {
+                    seen[run][k++] = c.getTargetX(t);
+                    seen[run][k++] = c.getTargetY(t);
+                }
+            }
+        }
+        assertArrayEquals(seen[0], seen[1]);
     }
 }
@@ -0,0 +1,127 @@
+package liquidwars.algo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardGradientComputerTest {
+
+    private static void assertSameField(int[][] expected, int[][] actual, String what) {
+        for (int r = 0; r < expected.length; r++) {
+            assertArrayEquals(expected[r], actual[r], what + " row " + r);
+        }
+    }
+
+    @Test
+    void matchesGradientComputerOnRandomMaps() {
+        Random rnd = new Random(11);
+        GradientComputer reference = new GradientComputer();
+        BitboardGradientComputer bitboard = new BitboardGradientComputer();
+
+        // Widths around the word boundaries: 1 word, exactly 64, 2 and 3 words with a partial last word
+        int[] widths = { 1, 5, 63, 64, 65, 127, 128, 130, 160, 200 };
+        for (int map = 0; map < 40; map++) {
+            int w = widths[map % widths.length];
+            int h = 1 + rnd.nextInt(40);
+            int wallPercent = rnd.nextInt(45);
+            boolean[][] walls = new boolean[h][w];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    walls[y][x] = rnd.nextInt(100) < wallPercent;
+                }
+            }
+
+            int[][] expected = new int[h][w];
+            int[][] dist = new int[h][w];
+            for (int round = 0; round < 5; round++) {
+                int[] targets = new int[1 + rnd.nextInt(4)];
+                for (int i = 0; i < targets.length; i++) targets[i] = rnd.nextInt(w * h);
+
+                reference.computeInto(walls, targets, expected);
+                bitboard.computeInto(walls, targets, dist);
+                assertSameField(expected, dist, "map " + map + " (" + w + "x" + h + ") round " + round);
+            }
+        }
+    }
+
+    @Test
+    void crossesWordBoundariesBothWays() {
+        // One row, 130 wide: the distance runs through bits 63/64 and 127/128 in both directions
+        boolean[][] walls = new boolean[1][130];
+        int[][] dist = new int[1][130];
+        BitboardGradientComputer bitboard = new BitboardGradientComputer();
+
+        bitboard.computeInto(walls, new int[] { 0 }, dist);
+        for (int x = 0; x < 130; x++) assertEquals(x, dist[0][x]);
+
+        bitboard.computeInto(walls, new int[] { 129 }, dist);
+        for (int x = 0; x < 130; x++) assertEquals(129 - x, dist[0][x]);
+    }
+
+    @Test
+    void ignoresInvalidAndBlockedTargets() {
+        boolean[][] walls = new boolean[3][4];
+        walls[1][1] = true;
+        int[][] dist = new int[3][4];
+        BitboardGradientComputer bitboard = new BitboardGradientComputer();
+
+        bitboard.computeInto(walls, new int[] { -1, 12, 5 }, dist);
+        for (int[] row : dist) {
+            for (int d : row) assertEquals(GradientComputer.INF, d);
+        }
+
+        bitboard.computeInto(walls, new int[] { 99, 0 }, dist);
+        assertEquals(0, dist[0][0]);
+        assertEquals(5, dist[2][3]);
+        assertEquals(GradientComputer.INF, dist[1][1]);
+    }
+
+    @Test
+    void leavesUnreachablePocketsAtInf() {
+        // Column 2 is a wall: nothing on the right is reachable from the left
+        boolean[][] walls = new boolean[3][5];
+        for (int y = 0; y < 3; y++) walls[y][2] = true;
+        int[][] dist = new int[3][5];
+
+        new BitboardGradientComputer().computeInto(walls, new int[] { 0 }, dist);
+
+        assertEquals(3, dist[2][1]);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 2; x < 5; x++) assertEquals(GradientComputer.INF, dist[y][x]);
+        }
+    }
+
+    @Test
+    void switchingMapsRebuildsTheFreeMask() {
+        BitboardGradientComputer bitboard = new BitboardGradientComputer();
+        GradientComputer reference = new GradientComputer();
+
+        boolean[][] open = new boolean[10][70];
+        boolean[][] split = new boolean[10][70];
+        for (int y = 0; y < 9; y++) split[y][64] = true;
+        boolean[][] small = new boolean[3][3];
+
+        for (boolean[][] walls : List.of(open, split, small, open)) {
+            int h = walls.length;
+            int w = walls[0].length;
+            int[][] expected = new int[h][w];
+            int[][] dist = new int[h][w];
+            reference.computeInto(walls, new int[] { 0 }, expected);
+            bitboard.computeInto(walls, new int[] { 0 }, dist);
+            assertSameField(expected, dist, w + "x" + h);
+        }
+    }
+
+    @Test
+    void computeWithPositionsUsesTheBitboardSearch() {
+        boolean[][] walls = new boolean[4][66];
+        int[][] dist = new BitboardGradientComputer().compute(walls, List.of(new GradientComputer.Pos(65, 3)));
+
+        assertEquals(0, dist[3][65]);
+        assertEquals(68, dist[0][0]);
+        assertEquals(GradientMetric.FOUR_NEIGHBOUR, new BitboardGradientComputer().metric());
+    }
+}
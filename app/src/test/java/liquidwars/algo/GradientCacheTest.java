@@ -0,0 +1,97 @@
+package liquidwars.algo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientCacheTest {
+
+    @Test
+    void sameWallsTargetAndMetricIsAHit() {
+        boolean[][] walls = new boolean[4][5];
+        GradientCache cache = new GradientCache(4);
+        GradientComputer gc = new GradientComputer();
+
+        int[][] first = cache.get(walls, new int[] { 7 }, gc);
+        int[][] second = cache.get(walls, new int[] { 7 }, gc);
+
+        assertSame(first, second);
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void cachedFieldMatchesDirectComputation() {
+        boolean[][] walls = new boolean[4][5];
+        walls[1][2] = true;
+        GradientCache cache = new GradientCache(4);
+
+        int[][] cached = cache.get(walls, new int[] { 2 * 5 + 4 }, new GradientComputer());
+        int[][] direct = new GradientComputer().compute(walls, List.of(new GradientComputer.Pos(4, 2)));
+
+        for (int y = 0; y < 4; y++) {
+            assertArrayEquals(direct[y], cached[y]);
+        }
+    }
+
+    @Test
+    void targetOrderDoesNotMatterButMetricAndWallsDo() {
+        boolean[][] walls = new boolean[4][5];
+        boolean[][] otherWalls = new boolean[4][5];
+        GradientCache cache = new GradientCache(8);
+
+        int[][] a = cache.get(walls, new int[] { 1, 12 }, new GradientComputer());
+        assertSame(a, cache.get(walls, new int[] { 12, 1 }, new GradientComputer()));
+
+        assertNotSame(a, cache.get(walls, new int[] { 1, 12 }, new MeshGradientComputer()));
+        assertNotSame(a, cache.get(otherWalls, new int[] { 1, 12 }, new GradientComputer()));
+        assertEquals(3, cache.misses());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        boolean[][] walls = new boolean[3][3];
+        GradientCache cache = new GradientCache(2);
+        GradientComputer gc = new GradientComputer();
+
+        int[][] a = cache.get(walls, new int[] { 0 }, gc);
+        cache.get(walls, new int[] { 1 }, gc);
+        cache.get(walls, new int[] { 0 }, gc);     // touch a -> b is now the eldest
+        cache.get(walls, new int[] { 2 }, gc);     // evicts b
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+
+        long missesBefore = cache.misses();
+        assertSame(a, cache.get(walls, new int[] { 0 }, gc));
+        assertEquals(missesBefore, cache.misses());
+
+        cache.get(walls, new int[] { 1 }, gc);     // b was evicted -> miss
+        assertEquals(missesBefore + 1, cache.misses());
+    }
+
+    @Test
+    void invalidateDropsFieldsOfThatMapOnly() {
+        boolean[][] walls = new boolean[3][3];
+        boolean[][] otherWalls = new boolean[3][3];
+        GradientCache cache = new GradientCache(4);
+        GradientComputer gc = new GradientComputer();
+
+        cache.get(walls, new int[] { 0 }, gc);
+        cache.get(otherWalls, new int[] { 0 }, gc);
+
+        walls[0][1] = true;
+        cache.invalidate(walls);
+
+        assertEquals(1, cache.size());
+        int[][] fresh = cache.get(walls, new int[] { 0 }, gc);
+        assertEquals(GradientComputer.INF, fresh[0][1]);
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new GradientCache(0));
+    }
+}
@@ -1,7 +1,9 @@
 package liquidwars.algo;
 
 import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 public class GradientComputerTest {
@@ -107,4 +109,81 @@ public class GradientComputerTest {
         assertEquals(1, dist[2][3]);
         assertEquals(0, dist[2][4]);
     }
+
+    @Test
+    void computeIntoMatchesComputeAndReusesTheBuffer() {
+        Random rnd = new Random(42);
+        int w = 23, h = 17;
+        GradientComputer gc = new GradientComputer();
+        int[][] reused = new int[h][w];
+
+        for (int round = 0; round < 20; round++) {
+            boolean[][] obstacles = new boolean[h][w];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    obstacles[y][x] = rnd.nextInt(4) == 0;
+                }
+            }
+
+            List<GradientComputer.Pos> targets = new ArrayList<>();
+            int[] cells = new int[1 + rnd.nextInt(3)];
+            for (int i = 0; i < cells.length; i++) {
+                int x = rnd.nextInt(w);
+                int y = rnd.nextInt(h);
+                targets.add(new GradientComputer.Pos(x, y));
+                cells[i] = y * w + x;
+            }
+
+            int[][] expected = gc.compute(obstacles, targets);
+            gc.computeInto(obstacles, cells, reused);
+
+            for (int y = 0; y < h; y++) {
+                assertArrayEquals(expected[y], reused[y], "round " + round + " row " + y);
+            }
+        }
+    }
+
+    @Test
+    void targetsOutsideTheMapOrOnWallsAreIgnored() {
+        boolean[][] obstacles = new boolean[3][3];
+        obstacles[0][0] = true;
+        GradientComputer gc = new GradientComputer();
+
+        int[][] dist = gc.compute(obstacles, List.of(
+                new GradientComputer.Pos(-1, 1),
+                new GradientComputer.Pos(0, 0),
+                new GradientComputer.Pos(2, 2)
+        ));
+
+        assertEquals(GradientComputer.INF, dist[0][0]);
+        assertEquals(0, dist[2][2]);
+        assertEquals(3, dist[0][1]);
+    }
+
+    @Test
+    void eachObstaclesArrayGetsItsOwnGraph() {
+        // One computer alternating between two maps (different sizes): same fields as fresh computers
+        boolean[][] small = new boolean[4][5];
+        small[1][2] = small[2][2] = true;
+        boolean[][] large = new boolean[9][7];
+        for (int x = 0; x < 6; x++) large[4][x] = true;
+        GradientComputer shared = new GradientComputer();
+
+        for (int round = 0; round < 4; round++) {
+            boolean[][] obstacles = (round % 2 == 0) ? small : large;
+            int w = obstacles[0].length;
+            int h = obstacles.length;
+            int[] cells = { 0 };
+
+            int[][] got = new int[h][w];
+            int[][] expected = new int[h][w];
+            shared.computeInto(obstacles, cells, got);
+            new GradientComputer().computeInto(obstacles, cells, expected);
+
+            for (int y = 0; y < h; y++) {
+                assertArrayEquals(expected[y], got[y], "round " + round + " row " + y);
+            }
+        }
+        assertEquals(20, new GradientComputer().compute(large, List.of(new GradientComputer.Pos(0, 0)))[8][0]);
+    }
 }
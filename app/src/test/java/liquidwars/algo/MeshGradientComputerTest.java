@@ -1,7 +1,12 @@
 package liquidwars.algo;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class MeshGradientComputerTest {
@@ -19,4 +24,88 @@ public class MeshGradientComputerTest {
         // Orthogonal neighbor costs 10
         assertEquals(10, dist[1][0]);
     }
+
+    @Test
+    void obstaclesAndUnreachableCellsStayInfinite() {
+        boolean[][] obstacles = new boolean[3][4];
+        // full wall column at x=2
+        obstacles[0][2] = true;
+        obstacles[1][2] = true;
+        obstacles[2][2] = true;
+
+        MeshGradientComputer mg = new MeshGradientComputer();
+        int[][] dist = mg.compute(obstacles, List.of(new MeshGradientComputer.Pos(0, 0)));
+
+        assertEquals(MeshGradientComputer.INF, dist[1][2]);
+        assertEquals(MeshGradientComputer.INF, dist[1][3]);
+        assertEquals(24, dist[2][1]); // one diagonal + one orthogonal
+    }
+
+    @Test
+    void bucketQueueMatchesHeapDijkstraAndReusesBuffers() {
+        Random rnd = new Random(3);
+        int w = 31, h = 19;
+        MeshGradientComputer mg = new MeshGradientComputer();
+        int[][] reused = new int[h][w];
+
+        for (int round = 0; round < 20; round++) {
+            boolean[][] obstacles = new boolean[h][w];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    obstacles[y][x] = rnd.nextInt(4) == 0;
+                }
+            }
+
+            List<int[]> targets = new ArrayList<>();
+            int[] cells = new int[1 + rnd.nextInt(3)];
+            for (int i = 0; i < cells.length; i++) {
+                int x = rnd.nextInt(w);
+                int y = rnd.nextInt(h);
+                targets.add(new int[] { x, y });
+                cells[i] = y * w + x;
+            }
+
+            int[][] expected = heapDijkstra(obstacles, targets);
+            mg.computeInto(obstacles, cells, reused);
+
+            for (int y = 0; y < h; y++) {
+                assertArrayEquals(expected[y], reused[y], "round " + round + " row " + y);
+            }
+        }
+    }
+
+    // Reference: textbook Dijkstra with a binary heap (the previous implementation)
+    private static int[][] heapDijkstra(boolean[][] obstacles, List<int[]> targets) {
+        int h = obstacles.length;
+        int w = obstacles[0].length;
+        int[] dx = { 1, -1, 0, 0, 1, 1, -1, -1 };
+        int[] dy = { 0, 0, 1, -1, 1, -1, 1, -1 };
+        int[] dc = { 10, 10, 10, 10, 14, 14, 14, 14 };
+
+        int[][] dist = new int[h][w];
+        for (int[] row : dist) java.util.Arrays.fill(row, MeshGradientComputer.INF);
+
+        PriorityQueue<int[]> pq = new PriorityQueue<>((a, b) -> Integer.compare(a[0], b[0]));
+        for (int[] t : targets) {
+            if (!obstacles[t[1]][t[0]]) {
+                dist[t[1]][t[0]] = 0;
+                pq.add(new int[] { 0, t[0], t[1] });
+            }
+        }
+        while (!pq.isEmpty()) {
+            int[] cur = pq.poll();
+            if (cur[0] != dist[cur[2]][cur[1]]) continue;
+            for (int i = 0; i < 8; i++) {
+                int nx = cur[1] + dx[i];
+                int ny = cur[2] + dy[i];
+                if (nx < 0 || ny < 0 || nx >= w || ny >= h || obstacles[ny][nx]) continue;
+                int nd = cur[0] + dc[i];
+                if (nd < dist[ny][nx]) {
+                    dist[ny][nx] = nd;
+                    pq.add(new int[] { nd, nx, ny });
+                }
+            }
+        }
+        return dist;
+    }
 }
@@ -0,0 +1,242 @@
+package liquidwars.algo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedGradientsTest {
+
+    private static final int W = 24;
+    private static final int H = 16;
+
+    // GradientComputer that takes at least 'millis' per field
+    private static final class SlowSolver implements GradientSolver {
+        private final GradientComputer bfs = new GradientComputer();
+        private final long millis;
+
+        SlowSolver(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public GradientMetric metric() {
+            return GradientMetric.FOUR_NEIGHBOUR;
+        }
+
+        @Override
+        public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist) {
+            sleep(millis);
+            bfs.computeInto(obstacles, targetCells, dist);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean[][] walls() {
+        boolean[][] walls = new boolean[H][W];
+        for (int y = 2; y < H - 2; y++) walls[y][W / 2] = true;
+        return walls;
+    }
+
+    private static int[] randomTargets(Random rnd, boolean[][] walls, int teams) {
+        int[] cells = new int[teams];
+        for (int t = 0; t < teams; t++) {
+            do {
+                cells[t] = rnd.nextInt(W * H);
+            } while (walls[cells[t] / W][cells[t] % W]);
+        }
+        return cells;
+    }
+
+    private static boolean sameField(int[][] a, int[][] b) {
+        for (int y = 0; y < a.length; y++) {
+            if (!java.util.Arrays.equals(a[y], b[y])) return false;
+        }
+        return true;
+    }
+
+    @Test
+    void zeroStalenessGivesTheFieldsOfEveryTick() {
+        boolean[][] walls = walls();
+        Random rnd = new Random(3);
+        PipelinedGradients pipeline = new PipelinedGradients(new TeamGradients(4, new GradientCache(), GradientComputer::new, 2), 0);
+        TeamGradients reference = new TeamGradients(4, new GradientCache(), GradientComputer::new, 1);
+
+        int[] cells = randomTargets(rnd, walls, 4);
+        for (int tick = 0; tick < 60; tick++) {
+            if (tick % 3 == 0) cells[rnd.nextInt(4)] = randomTargets(rnd, walls, 1)[0];
+            int[][][] got = pipeline.update(walls, cells);
+            int[][][] expected = reference.update(walls, cells);
+            for (int t = 0; t < 4; t++) assertTrue(sameField(expected[t], got[t]), "tick " + tick + " team " + t);
+        }
+        assertEquals(60, pipeline.ticksAtStaleness(0));
+        pipeline.shutdown();
+    }
+
+    @Test
+    void fieldsAreNeverOlderThanTheBound() {
+        boolean[][] walls = walls();
+        Random rnd = new Random(8);
+        int bound = 2;
+        PipelinedGradients pipeline = new PipelinedGradients(new TeamGradients(2, new GradientCache(), () -> new SlowSolver(2), 1), bound);
+        GradientComputer bfs = new GradientComputer();
+
+        List<int[]> history = new ArrayList<>();
+        int[] cells = randomTargets(rnd, walls, 2);
+        for (int tick = 0; tick < 40; tick++) {
+            cells = randomTargets(rnd, walls, 2);      // every tick: the worker can never keep up
+            history.add(cells.clone());
+            int[][][] got = pipeline.update(walls, cells);
+            sleep(1);
+
+            for (int t = 0; t < 2; t++) {
+                boolean matched = false;
+                for (int age = 0; age <= bound && age <= tick && !matched; age++) {
+                    int[][] expected = new int[H][W];
+                    bfs.computeInto(walls, new int[] { history.get(tick - age)[t] }, expected);
+                    matched = sameField(expected, got[t]);
+                }
+                assertTrue(matched, "tick " + tick + " team " + t + ": fields older than " + bound + " ticks");
+            }
+        }
+
+        long counted = 0;
+        for (int age = 0; age <= bound; age++) counted += pipeline.ticksAtStaleness(age);
+        assertEquals(40, counted);
+        pipeline.shutdown();
+    }
+
+    @Test
+    void gradientWorkOverlapsTheCallersStep() {
+        // Each field takes >= 20 ms, the "step" 20 ms, every target moves every tick: sequentially
+        // a tick costs >= 40 ms; pipelined with a 1-tick bound the two overlap
+        boolean[][] walls = walls();
+        Random rnd = new Random(1);
+        int ticks = 12;
+        PipelinedGradients pipeline = new PipelinedGradients(new TeamGradients(1, new GradientCache(), () -> new SlowSolver(20), 1), 1);
+
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            pipeline.update(walls, randomTargets(rnd, walls, 1));
+            sleep(20);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < ticks * 40 * 3 / 4, "no overlap: " + elapsedMillis + " ms for " + ticks + " ticks");
+        assertTrue(pipeline.workerNanos() > 2 * pipeline.waitNanos(), "the caller waited for most of the gradient work");
+        assertTrue(pipeline.jobs() >= ticks / 2);
+        pipeline.shutdown();
+    }
+
+    @Test
+    void unchangedTargetsAreNeverStaleAndStartNoJob() {
+        boolean[][] walls = walls();
+        PipelinedGradients pipeline = new PipelinedGradients(new TeamGradients(2, new GradientCache(), GradientComputer::new, 1), 3);
+        int[] cells = { 0, W * H - 1 };
+
+        for (int tick = 0; tick < 20; tick++) pipeline.update(walls, cells);
+
+        assertEquals(1, pipeline.jobs());
+        assertEquals(1, pipeline.waits());         // the very first fields
+        assertEquals(20, pipeline.ticksAtStaleness(0));
+        pipeline.shutdown();
+    }
+
+    @Test
+    void workerFailureIsReportedToTheCaller() {
+        GradientSolver failing = new GradientSolver() {
+            @Override
+            public GradientMetric metric() {
+                return GradientMetric.FOUR_NEIGHBOUR;
+            }
+
+            @Override
+            public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist) {
+                throw new IllegalArgumentException("boom");
+            }
+        };
+        PipelinedGradients pipeline = new PipelinedGradients(new TeamGradients(1, new GradientCache(), () -> failing, 1), 0);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> pipeline.update(walls(), new int[] { 0 }));
+        assertEquals("boom", e.getCause().getMessage());
+        pipeline.shutdown();
+    }
+
+    @Test
+    void workerErrorIsReportedInsteadOfHanging() throws Exception {
+        GradientSolver failing = new GradientSolver() {
+            @Override
+            public GradientMetric metric() {
+                return GradientMetric.FOUR_NEIGHBOUR;
+            }
+
+            @Override
+            public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist) {
+                throw new AssertionError("boom");
+            }
+        };
+        PipelinedGradients pipeline = new PipelinedGradients(new TeamGradients(1, new GradientCache(), () -> failing, 1), 0);
+
+        Throwable[] thrown = new Throwable[1];
+        Thread caller = new Thread(() -> {
+            try {
+                pipeline.update(walls(), new int[] { 0 });
+            } catch (Throwable e) {
+                thrown[0] = e;
+            }
+        });
+        caller.start();
+        caller.join(10_000);
+
+        assertFalse(caller.isAlive(), "update() still waiting for the failed job");
+        assertTrue(thrown[0] instanceof IllegalStateException, "thrown: " + thrown[0]);
+        assertTrue(thrown[0].getCause() instanceof AssertionError);
+        pipeline.shutdown();
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        TeamGradients gradients = new TeamGradients(2, new GradientCache(), GradientComputer::new, 1);
+        assertThrows(IllegalArgumentException.class, () -> new PipelinedGradients(gradients, -1));
+
+        PipelinedGradients pipeline = new PipelinedGradients(gradients, 0);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.update(walls(), new int[] { 0 }));
+        pipeline.shutdown();
+    }
+
+    @Test
+    void shutdownEndsTheWorker() {
+        Set<Thread> before = pipelineWorkers();
+        PipelinedGradients pipeline = new PipelinedGradients(new TeamGradients(2, new GradientCache(), GradientComputer::new, 2), 1);
+        Set<Thread> started = pipelineWorkers();
+        started.removeAll(before);
+        assertEquals(1, started.size());
+
+        pipeline.update(walls(), new int[] { 0, W * H - 1 });
+        pipeline.update(walls(), new int[] { 1, W * H - 2 });     // leaves a job in flight
+        pipeline.shutdown();
+
+        for (Thread worker : started) assertFalse(worker.isAlive(), "worker still running after shutdown()");
+        assertThrows(IllegalStateException.class, () -> pipeline.update(walls(), new int[] { 0, 1 }));
+    }
+
+    private static Set<Thread> pipelineWorkers() {
+        Set<Thread> found = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("gradient-pipeline")) found.add(t);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,154 @@
+package liquidwars.algo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlicedGradientsTest {
+
+    private static final int INF = GradientComputer.INF;
+
+    private static boolean[][] randomWalls(Random rnd, int w, int h) {
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) walls[y][x] = rnd.nextInt(100) < 25;
+        }
+        return walls;
+    }
+
+    private static int freeCell(Random rnd, boolean[][] walls) {
+        int w = walls[0].length;
+        int h = walls.length;
+        int cell;
+        do {
+            cell = rnd.nextInt(w * h);
+        } while (walls[cell / w][cell % w]);
+        return cell;
+    }
+
+    // Converged field minus its value at the target = exact BFS distance, wherever the BFS reaches
+    private static void assertExactUpToOffset(boolean[][] walls, int target, int[][] field, String what) {
+        int w = walls[0].length;
+        int h = walls.length;
+        int[][] exact = new GradientComputer().compute(walls, List.of(new GradientComputer.Pos(target % w, target / w)));
+        int base = field[target / w][target % w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (exact[y][x] == INF) continue;
+                assertEquals(exact[y][x], field[y][x] - base, what + " at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void fieldsConvergeToTheExactBfsWithinTheBudget() {
+        Random rnd = new Random(13);
+        for (int map = 0; map < 10; map++) {
+            int w = 20 + rnd.nextInt(30);
+            int h = 10 + rnd.nextInt(20);
+            boolean[][] walls = randomWalls(rnd, w, h);
+            int budget = 16 + rnd.nextInt(64);
+            SlicedGradients sliced = new SlicedGradients(2, budget);
+            int[] targets = { freeCell(rnd, walls), freeCell(rnd, walls) };
+
+            for (int move = 0; move < 4; move++) {
+                long[] before = { sliced.visits(0), sliced.visits(1) };
+                int ticks = 0;
+                int[][][] fields;
+                do {
+                    fields = sliced.update(walls, targets);
+                    ticks++;
+                    for (int t = 0; t < 2; t++) {
+                        assertTrue(sliced.visits(t) - before[t] <= (long) ticks * budget, "budget exceeded");
+                    }
+                } while (!sliced.converged(0) || !sliced.converged(1));
+
+                assertTrue(ticks <= w * h / budget + 1, "map " + map + " took " + ticks + " ticks");
+                for (int t = 0; t < 2; t++) assertExactUpToOffset(walls, targets[t], fields[t], "map " + map + " team " + t);
+
+                targets[rnd.nextInt(2)] = freeCell(rnd, walls);
+            }
+        }
+    }
+
+    @Test
+    void newWaveStartsBelowEveryEarlierValue() {
+        boolean[][] walls = new boolean[6][10];
+        SlicedGradients sliced = new SlicedGradients(1, 1000);
+        int[][] field = sliced.update(walls, new int[] { 0 })[0];
+        int oldMin = Integer.MAX_VALUE;
+        int oldMax = Integer.MIN_VALUE;
+        for (int[] row : field) {
+            for (int d : row) {
+                oldMin = Math.min(oldMin, d);
+                oldMax = Math.max(oldMax, d);
+            }
+        }
+
+        // Budget 1: only the new target is visited, but its value is already the lowest
+        SlicedGradients slow = new SlicedGradients(1, 1);
+        for (int i = 0; i < 200; i++) slow.update(walls, new int[] { 0 });
+        field = slow.update(walls, new int[] { 59 })[0];
+        assertTrue(field[5][9] < oldMin);
+        assertTrue(field[5][8] < field[0][1], "fresh cells must be below stale ones");
+        assertEquals(14, oldMax);
+        assertFalse(slow.converged(0));
+    }
+
+    @Test
+    void staleValuesKeepGuidingUntilTheWaveArrives() {
+        // Budget 5 on a 1x30 corridor: one tick after a move, the wave from 29 has visited 29..25
+        // and reached 24; the cells further away still hold the old field
+        boolean[][] walls = new boolean[1][30];
+        SlicedGradients sliced = new SlicedGradients(1, 5);
+        for (int i = 0; i < 10; i++) sliced.update(walls, new int[] { 0 });
+        assertTrue(sliced.converged(0));
+
+        int[] before = sliced.update(walls, new int[] { 0 })[0][0].clone();
+        int[] after = sliced.update(walls, new int[] { 29 })[0][0];
+
+        for (int x = 0; x < 24; x++) assertEquals(before[x], after[x], "x=" + x);
+        for (int x = 24; x < 30; x++) assertEquals(after[29] + 29 - x, after[x], "x=" + x);
+        assertTrue(after[24] < after[23], "particles at the edge are drawn into the new wave");
+        assertFalse(sliced.converged(0));
+    }
+
+    @Test
+    void wallsAndUnreachedCellsStayInf() {
+        // Column 2 is a wall: the right side is never reached from a target on the left
+        boolean[][] walls = new boolean[3][5];
+        for (int y = 0; y < 3; y++) walls[y][2] = true;
+        SlicedGradients sliced = new SlicedGradients(1, 100);
+
+        int[][] field = sliced.update(walls, new int[] { 0 })[0];
+
+        assertTrue(sliced.converged(0));
+        for (int y = 0; y < 3; y++) {
+            for (int x = 2; x < 5; x++) assertEquals(INF, field[y][x]);
+        }
+        assertEquals(field[0][0] + 3, field[2][1]);
+    }
+
+    @Test
+    void invalidTargetLeavesTheFieldAsItIs() {
+        boolean[][] walls = new boolean[3][3];
+        walls[1][1] = true;
+        SlicedGradients sliced = new SlicedGradients(1, 100);
+        int[] first = sliced.update(walls, new int[] { 0 })[0][2].clone();
+
+        int[][] field = sliced.update(walls, new int[] { 4 })[0];
+
+        assertArrayEquals(first, field[2]);
+        assertTrue(sliced.converged(0));
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SlicedGradients(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new SlicedGradients(2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SlicedGradients(2, 10).update(new boolean[2][2], new int[] { 0 }));
+    }
+}
@@ -0,0 +1,126 @@
+package liquidwars.algo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TeamGradientsTest {
+
+    private static boolean[][] randomWalls(Random rnd, int w, int h) {
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                walls[y][x] = rnd.nextInt(100) < 20;
+            }
+        }
+        return walls;
+    }
+
+    @Test
+    void parallelFieldsMatchSequentialCacheLookups() {
+        Random rnd = new Random(3);
+        boolean[][] walls = randomWalls(rnd, 40, 25);
+
+        GradientCache sequentialCache = new GradientCache();
+        GradientComputer gc = new GradientComputer();
+        TeamGradients parallel = new TeamGradients(4, new GradientCache(), GradientComputer::new, 4);
+
+        int[] cells = new int[4];
+        for (int tick = 0; tick < 30; tick++) {
+            for (int t = 0; t < 4; t++) {
+                if (tick == 0 || rnd.nextBoolean()) cells[t] = rnd.nextInt(40 * 25);
+            }
+
+            int[][][] fields = parallel.update(walls, cells);
+
+            for (int t = 0; t < 4; t++) {
+                int[][] expected = sequentialCache.get(walls, new int[] { cells[t] }, gc);
+                for (int y = 0; y < 25; y++) {
+                    assertArrayEquals(expected[y], fields[t][y], "tick " + tick + " team " + t);
+                }
+            }
+        }
+        parallel.shutdown();
+    }
+
+    @Test
+    void teamsOnTheSameCellShareOneComputation() {
+        boolean[][] walls = new boolean[5][5];
+        GradientCache cache = new GradientCache();
+        TeamGradients tg = new TeamGradients(4, cache, GradientComputer::new, 2);
+
+        int[][][] fields = tg.update(walls, new int[] { 3, 7, 3, 7 });
+
+        assertSame(fields[0], fields[2]);
+        assertSame(fields[1], fields[3]);
+        assertNotSame(fields[0], fields[1]);
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.size());
+        tg.shutdown();
+    }
+
+    @Test
+    void unchangedTargetsAreCacheHits() {
+        boolean[][] walls = new boolean[5][5];
+        GradientCache cache = new GradientCache();
+        TeamGradients tg = new TeamGradients(2, cache, GradientComputer::new, 1);
+
+        int[][][] first = tg.update(walls, new int[] { 1, 2 });
+        int[][] f0 = first[0];
+        int[][][] second = tg.update(walls, new int[] { 1, 2 });
+
+        assertSame(f0, second[0]);
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.hits());
+        assertEquals(1, tg.threads());
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        GradientCache small = new GradientCache(2);
+
+        assertThrows(IllegalArgumentException.class, () -> new TeamGradients(0, new GradientCache(), GradientComputer::new, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TeamGradients(2, new GradientCache(), GradientComputer::new, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TeamGradients(4, small, GradientComputer::new, 1));
+
+        TeamGradients tg = new TeamGradients(2, new GradientCache(), GradientComputer::new, 1);
+        assertThrows(IllegalArgumentException.class, () -> tg.update(new boolean[3][3], new int[] { 0 }));
+    }
+
+    @Test
+    void anErrorInAWorkerFieldIsRethrownInsteadOfHanging() throws Exception {
+        // Team 0's field (target 0) is computed by the caller; the others throw an Error wherever they run
+        TeamGradients tg = new TeamGradients(4, new GradientCache(), () -> new GradientSolver() {
+            private final GradientComputer bfs = new GradientComputer();
+
+            @Override
+            public GradientMetric metric() {
+                return bfs.metric();
+            }
+
+            @Override
+            public void computeInto(boolean[][] obstacles, int[] targetCells, int[][] dist) {
+                if (targetCells[0] != 0) throw new AssertionError("solver failed");
+                bfs.computeInto(obstacles, targetCells, dist);
+            }
+        }, 4);
+
+        Throwable[] thrown = new Throwable[1];
+        Thread caller = new Thread(() -> {
+            try {
+                tg.update(new boolean[20][20], new int[] { 0, 50, 150, 250 });
+            } catch (Throwable e) {
+                thrown[0] = e;
+            }
+        });
+        caller.start();
+        caller.join(10_000);
+
+        assertFalse(caller.isAlive(), "update() still waiting for the failed fields");
+        assertTrue(thrown[0] instanceof AssertionError, "thrown: " + thrown[0]);
+        tg.shutdown();
+    }
+}
@@ -0,0 +1,148 @@
+package liquidwars.algo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZoneGradientComputerTest {
+
+    private static final int INF = GradientComputer.INF;
+
+    private static boolean[][] randomWalls(Random rnd, int w, int h, int wallPercent) {
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) walls[y][x] = rnd.nextInt(100) < wallPercent;
+        }
+        return walls;
+    }
+
+    @Test
+    void fieldIsAnUpperBoundOfTheExactBfsWithTheSameReachability() {
+        Random rnd = new Random(21);
+        GradientComputer exact = new GradientComputer();
+        ZoneGradientComputer zones = new ZoneGradientComputer();
+
+        for (int map = 0; map < 30; map++) {
+            int w = 8 + rnd.nextInt(50);
+            int h = 8 + rnd.nextInt(30);
+            boolean[][] walls = randomWalls(rnd, w, h, rnd.nextInt(35));
+            int[] targets = { rnd.nextInt(w * h), rnd.nextInt(w * h) };
+            int[][] expected = new int[h][w];
+            int[][] dist = new int[h][w];
+
+            exact.computeInto(walls, targets, expected);
+            zones.computeInto(walls, targets, dist);
+
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    String at = "map " + map + " at " + x + "," + y;
+                    if (expected[y][x] == INF) {
+                        assertEquals(INF, dist[y][x], at);
+                    } else {
+                        assertTrue(dist[y][x] >= expected[y][x], at);
+                        assertEquals(expected[y][x] == 0, dist[y][x] == 0, at);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyReachableCellButTheTargetsHasALowerNeighbour() {
+        Random rnd = new Random(5);
+        ZoneGradientComputer zones = new ZoneGradientComputer();
+
+        for (int map = 0; map < 20; map++) {
+            int w = 10 + rnd.nextInt(40);
+            int h = 10 + rnd.nextInt(30);
+            boolean[][] walls = randomWalls(rnd, w, h, 25);
+            int[][] dist = new int[h][w];
+            zones.computeInto(walls, new int[] { rnd.nextInt(w * h) }, dist);
+
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    int d = dist[y][x];
+                    if (d == INF || d == 0) continue;
+                    boolean lower = (x > 0 && dist[y][x - 1] == d - 1) || (x + 1 < w && dist[y][x + 1] == d - 1)
+                            || (y > 0 && dist[y - 1][x] == d - 1) || (y + 1 < h && dist[y + 1][x] == d - 1);
+                    assertTrue(lower, "map " + map + " local minimum at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void openRoomIsExact() {
+        // One zone: Manhattan distance, same as the BFS
+        int[][] dist = new int[10][10];
+        int[][] expected = new int[10][10];
+        new ZoneGradientComputer().computeInto(new boolean[10][10], new int[] { 34 }, dist);
+        new GradientComputer().computeInto(new boolean[10][10], new int[] { 34 }, expected);
+
+        for (int y = 0; y < 10; y++) assertArrayEquals(expected[y], dist[y]);
+    }
+
+    @Test
+    void distanceAtMatchesComputeIntoAndOnlyExpandsWhatItNeeds() {
+        Random rnd = new Random(8);
+        int w = 60, h = 40;
+        boolean[][] walls = randomWalls(rnd, w, h, 20);
+        int[] targets = { 5 * w + 5 };
+        ZoneGradientComputer lazy = new ZoneGradientComputer();
+        int[][] dist = new int[h][w];
+        new ZoneGradientComputer().computeInto(walls, targets, dist);
+
+        lazy.solve(walls, targets);
+        assertEquals(0, lazy.zonesExpanded());
+        lazy.distanceAt(5, 5);
+        assertEquals(1, lazy.zonesExpanded());
+
+        lazy.distanceAt(w - 2, h - 2);
+        assertTrue(lazy.zonesExpanded() < lazy.mesh().zoneCount());
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) assertEquals(dist[y][x], lazy.distanceAt(x, y), x + "," + y);
+        }
+
+        // A new solve() forgets the expanded zones
+        lazy.solve(walls, new int[] { (h - 3) * w + 3 });
+        assertEquals(0, lazy.zonesExpanded());
+    }
+
+    @Test
+    void distanceAtBeforeSolveIsRejected() {
+        assertThrows(IllegalStateException.class, () -> new ZoneGradientComputer().distanceAt(0, 0));
+    }
+
+    @Test
+    void ignoresInvalidAndBlockedTargets() {
+        boolean[][] walls = new boolean[3][4];
+        walls[1][1] = true;
+        int[][] dist = new int[3][4];
+        ZoneGradientComputer zones = new ZoneGradientComputer();
+
+        zones.computeInto(walls, new int[] { -1, 12, 5 }, dist);
+        for (int[] row : dist) {
+            for (int d : row) assertEquals(INF, d);
+        }
+
+        zones.computeInto(walls, new int[] { 99, 0 }, dist);
+        assertEquals(0, dist[0][0]);
+        assertEquals(INF, dist[1][1]);
+        assertEquals(GradientMetric.ZONE_MESH, zones.metric());
+    }
+
+    @Test
+    void newWallsArrayBuildsANewMesh() {
+        ZoneGradientComputer zones = new ZoneGradientComputer();
+        zones.computeInto(new boolean[4][4], new int[] { 0 }, new int[4][4]);
+        ZoneMesh first = zones.mesh();
+
+        zones.computeInto(new boolean[6][5], new int[] { 0 }, new int[6][5]);
+
+        assertNotSame(first, zones.mesh());
+        assertEquals(5, zones.mesh().width());
+    }
+}
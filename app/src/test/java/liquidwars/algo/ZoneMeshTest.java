@@ -0,0 +1,96 @@
+package liquidwars.algo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZoneMeshTest {
+
+    @Test
+    void openMapIsOneZone() {
+        ZoneMesh mesh = ZoneMesh.of(new boolean[8][8]);
+
+        assertEquals(1, mesh.zoneCount());
+        assertEquals(8, mesh.side(0));
+        assertEquals(0, mesh.neighbourEnd(0) - mesh.neighbourStart(0));
+    }
+
+    @Test
+    void zonesAreFreeSquaresCoveringEveryFreeCellOnce() {
+        Random rnd = new Random(4);
+        for (int map = 0; map < 20; map++) {
+            int w = 5 + rnd.nextInt(40);
+            int h = 5 + rnd.nextInt(30);
+            boolean[][] walls = new boolean[h][w];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) walls[y][x] = rnd.nextInt(100) < 20;
+            }
+            ZoneMesh mesh = ZoneMesh.of(walls);
+
+            int[] covered = new int[w * h];
+            for (int z = 0; z < mesh.zoneCount(); z++) {
+                for (int y = mesh.y0(z); y < mesh.y0(z) + mesh.side(z); y++) {
+                    for (int x = mesh.x0(z); x < mesh.x0(z) + mesh.side(z); x++) {
+                        assertFalse(walls[y][x], "zone " + z + " covers a wall");
+                        assertEquals(z, mesh.zoneOf(y * w + x));
+                        covered[y * w + x]++;
+                    }
+                }
+            }
+            for (int cell = 0; cell < w * h; cell++) {
+                boolean wall = walls[cell / w][cell % w];
+                assertEquals(wall ? 0 : 1, covered[cell], "cell " + cell);
+                if (wall) assertEquals(-1, mesh.zoneOf(cell));
+            }
+        }
+    }
+
+    @Test
+    void neighboursAreSymmetricAndMatchAdjacentCells() {
+        Random rnd = new Random(9);
+        int w = 30, h = 20;
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) walls[y][x] = rnd.nextInt(100) < 25;
+        }
+        ZoneMesh mesh = ZoneMesh.of(walls);
+        int zones = mesh.zoneCount();
+
+        boolean[][] expected = new boolean[zones][zones];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int a = mesh.zoneOf(y * w + x);
+                if (a < 0) continue;
+                if (x + 1 < w && mesh.zoneOf(y * w + x + 1) >= 0 && mesh.zoneOf(y * w + x + 1) != a) {
+                    expected[a][mesh.zoneOf(y * w + x + 1)] = expected[mesh.zoneOf(y * w + x + 1)][a] = true;
+                }
+                if (y + 1 < h && mesh.zoneOf((y + 1) * w + x) >= 0 && mesh.zoneOf((y + 1) * w + x) != a) {
+                    expected[a][mesh.zoneOf((y + 1) * w + x)] = expected[mesh.zoneOf((y + 1) * w + x)][a] = true;
+                }
+            }
+        }
+
+        boolean[][] listed = new boolean[zones][zones];
+        for (int z = 0; z < zones; z++) {
+            for (int i = mesh.neighbourStart(z); i < mesh.neighbourEnd(z); i++) {
+                assertFalse(listed[z][mesh.neighbour(i)], "zone " + z + " lists a neighbour twice");
+                listed[z][mesh.neighbour(i)] = true;
+            }
+        }
+        for (int z = 0; z < zones; z++) assertArrayEquals(expected[z], listed[z], "zone " + z);
+    }
+
+    @Test
+    void corridorAroundAPillarSplitsIntoSmallZones() {
+        // 6x6 room with a 2x2 pillar in the middle: no 6x6 square fits, the ring is cut into pieces
+        boolean[][] walls = new boolean[6][6];
+        walls[2][2] = walls[2][3] = walls[3][2] = walls[3][3] = true;
+        ZoneMesh mesh = ZoneMesh.of(walls);
+
+        assertTrue(mesh.zoneCount() > 1);
+        assertEquals(2, mesh.side(0));
+        assertEquals(-1, mesh.zoneOf(2 * 6 + 2));
+    }
+}
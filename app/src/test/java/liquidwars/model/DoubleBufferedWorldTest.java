@@ -0,0 +1,96 @@
+package liquidwars.model;
+
+import liquidwars.sim.StepSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleBufferedWorldTest {
+
+    @Test
+    void frontIsTheInitialWorldAndBackSharesItsWalls() {
+        World initial = new World(new boolean[2][3], new Particle[2][3]);
+        DoubleBufferedWorld buffers = new DoubleBufferedWorld(initial);
+
+        assertSame(initial, buffers.front());
+
+        World back = buffers.prepareBack();
+        assertNotSame(initial, back);
+        assertTrue(back.sharesWallsWith(initial));
+    }
+
+    @Test
+    void swapAlternatesBetweenTheSameTwoWorlds() {
+        World initial = new World(new boolean[2][3], new Particle[2][3]);
+        DoubleBufferedWorld buffers = new DoubleBufferedWorld(initial);
+
+        World back = buffers.prepareBack();
+        buffers.swap();
+        assertSame(back, buffers.front());
+
+        assertSame(initial, buffers.prepareBack());
+        buffers.swap();
+        assertSame(initial, buffers.front());
+    }
+
+    @Test
+    void prepareBackCatchesUpWithChangesMadeToTheFront() {
+        World initial = new World(new boolean[2][3], new Particle[2][3]);
+        DoubleBufferedWorld buffers = new DoubleBufferedWorld(initial);
+
+        // write into the back, publish it
+        World back = buffers.prepareBack();
+        back.setParticle(0, 0, 1, 3);
+        buffers.swap();
+
+        // external change on the new front
+        buffers.front().setParticle(2, 1, 0, 9);
+
+        World stale = buffers.prepareBack();
+        assertEquals(new Particle(1, 3), stale.get(0, 0));
+        assertEquals(new Particle(0, 9), stale.get(2, 1));
+        assertEquals(2, stale.particleCount());
+    }
+
+    @Test
+    void steppingThroughBuffersMatchesSteppingWithCopies() {
+        int w = 12, h = 9;
+        Random rnd = new Random(7);
+
+        boolean[][] walls = new boolean[h][w];
+        Particle[][] parts = new Particle[h][w];
+        int[][] g0 = new int[h][w];
+        int[][] g1 = new int[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                walls[y][x] = rnd.nextInt(8) == 0;
+                if (!walls[y][x] && rnd.nextInt(3) == 0) parts[y][x] = new Particle(rnd.nextInt(2), rnd.nextInt(11));
+                g0[y][x] = Math.abs(x - 2) + Math.abs(y - 2);
+                g1[y][x] = Math.abs(x - 9) + Math.abs(y - 6);
+            }
+        }
+
+        StepSimulator sim = new StepSimulator();
+        Map<Integer, int[][]> grads = Map.of(0, g0, 1, g1);
+
+        World reference = new World(walls, parts);
+        DoubleBufferedWorld buffers = new DoubleBufferedWorld(new World(walls, parts));
+
+        for (int tick = 0; tick < 20; tick++) {
+            reference = sim.step(reference, grads);
+
+            World next = buffers.prepareBack();
+            sim.stepInto(buffers.front(), next, grads);
+            buffers.swap();
+
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    assertEquals(reference.get(x, y), buffers.front().get(x, y), "tick " + tick + " cell " + x + "," + y);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package liquidwars.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeCellGraphTest {
+
+    @Test
+    void linksOnlyFreeNeighboursInsideTheMap() {
+        // . # .
+        // . . .
+        boolean[][] walls = {
+                { false, true,  false },
+                { false, false, false }
+        };
+        FreeCellGraph g = new FreeCellGraph(walls);
+
+        assertEquals(5, g.freeCount());
+        assertEquals(0, g.links(1));                              // the wall
+        assertEquals(1 << 2 | 1 << 4, g.links(0));                // (0,0): down, down-right
+        assertEquals(1 << 2 | 1 << 6, g.links(2));                // (2,0): down, down-left
+        assertEquals(1 << 0 | 1 << 1 | 1 << 5 | 1 << 7, g.links(4));   // (1,1): right, left, up-right, up-left (up is the wall)
+        assertEquals(1 << 0 | 1 << 3, g.links(3));                // (0,1): right, up (up-right is the wall)
+    }
+
+    @Test
+    void linksMatchTheWallAndBoundsTests() {
+        Random rnd = new Random(7);
+        int w = 19, h = 13;
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) walls[y][x] = rnd.nextInt(3) == 0;
+        }
+        FreeCellGraph g = new FreeCellGraph(walls);
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                for (int d = 0; d < 8; d++) {
+                    int nx = x + FreeCellGraph.dx(d);
+                    int ny = y + FreeCellGraph.dy(d);
+                    boolean free = !walls[y][x] && nx >= 0 && nx < w && ny >= 0 && ny < h && !walls[ny][nx];
+                    assertEquals(free, (g.links(y * w + x) & (1 << d)) != 0, x + "," + y + " direction " + d);
+                }
+            }
+        }
+        assertEquals(0x0F, FreeCellGraph.ORTHOGONAL);
+    }
+
+    @Test
+    void worldCopiesShareTheGraph() {
+        boolean[][] walls = new boolean[2][3];
+        World world = new World(walls, new Particle[2][3]);
+
+        assertSame(world.freeCellGraph(), world.copy().freeCellGraph());
+        assertEquals(6, world.freeCellGraph().freeCount());
+    }
+
+    @Test
+    void rejectsEmptyOrRaggedWalls() {
+        assertThrows(IllegalArgumentException.class, () -> new FreeCellGraph(new boolean[0][0]));
+        assertThrows(IllegalArgumentException.class, () -> new FreeCellGraph(new boolean[][] { new boolean[3], new boolean[2] }));
+    }
+}
@@ -0,0 +1,97 @@
+package liquidwars.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickStatsTest {
+
+    // Reference: the figures recomputed by scanning the whole grid
+    private static void assertMatchesScan(World w, TickStats s) {
+        int teams = 3;
+        int[] hist = new int[256];
+        for (int t = 0; t < teams; t++) {
+            int count = 0, energy = 0;
+            long sx = 0, sy = 0;
+            int minX = -1, minY = -1, maxX = -1, maxY = -1;
+            for (int y = 0; y < w.height(); y++) {
+                for (int x = 0; x < w.width(); x++) {
+                    if (w.teamAt(x, y) != t) continue;
+                    count++;
+                    energy += w.energyAt(x, y);
+                    sx += x;
+                    sy += y;
+                    if (minX < 0 || x < minX) minX = x;
+                    if (x > maxX) maxX = x;
+                    if (minY < 0) minY = y;
+                    maxY = y;
+                    hist[w.energyAt(x, y) + 128]++;
+                }
+            }
+            assertEquals(count, s.count(t), "count " + t);
+            assertEquals(count, w.teamCount(t));
+            assertEquals(energy, s.energy(t), "energy " + t);
+            assertEquals(energy, w.teamEnergy(t));
+            assertEquals(count == 0 ? -1 : (int) (sx / count), s.centroidX(t));
+            assertEquals(count == 0 ? -1 : (int) (sy / count), s.centroidY(t));
+            assertEquals(minX, s.minX(t), "minX " + t);
+            assertEquals(maxX, s.maxX(t), "maxX " + t);
+            assertEquals(minY, s.minY(t), "minY " + t);
+            assertEquals(maxY, s.maxY(t), "maxY " + t);
+        }
+        for (int e = World.MIN_ENERGY; e <= World.MAX_ENERGY; e++) {
+            assertEquals(hist[e + 128], s.energyCount(e), "energy " + e);
+        }
+        assertEquals(w.particleCount(), s.particleCount());
+        assertEquals(w.totalEnergy(), s.totalEnergy());
+    }
+
+    @Test
+    void snapshotMatchesAFullScanAfterRandomWrites() {
+        Random rnd = new Random(3);
+        World w = new World(new boolean[9][13], new Particle[9][13]);
+        TickStats stats = new TickStats();
+
+        for (int round = 0; round < 30; round++) {
+            for (int k = 0; k < 20; k++) {
+                int x = rnd.nextInt(13), y = rnd.nextInt(9);
+                if (rnd.nextInt(4) == 0) w.clear(x, y);
+                else w.setParticle(x, y, rnd.nextInt(3), rnd.nextInt(21) - 10);
+            }
+            stats.capture(w, round);
+            assertEquals(round, stats.tick());
+            assertMatchesScan(w, stats);
+
+            // Copies carry the totals along
+            World copy = w.copy();
+            stats.capture(copy, round);
+            assertMatchesScan(copy, stats);
+        }
+    }
+
+    @Test
+    void copyFromResetsTeamsTheSourceDoesNotHave() {
+        World src = new World(new boolean[4][4], new Particle[4][4]);
+        World dst = src.copy();
+        dst.setParticle(3, 3, 2, 5);        // team 2 only exists in the stale copy
+        src.setParticle(1, 2, 0, 4);
+
+        dst.copyFrom(src);
+        TickStats stats = new TickStats();
+        stats.capture(dst, 7);
+
+        assertMatchesScan(dst, stats);
+        assertEquals(1, stats.teamsAlive());
+        assertEquals(3, stats.teamLimit());
+    }
+
+    @Test
+    void badTeamOrEnergyIsRejected() {
+        TickStats stats = new TickStats();
+        assertThrows(IllegalArgumentException.class, () -> stats.count(-1));
+        assertThrows(IllegalArgumentException.class, () -> stats.centroidX(World.MAX_TEAM_ID + 1));
+        assertThrows(IllegalArgumentException.class, () -> stats.energyCount(World.MAX_ENERGY + 1));
+    }
+}
@@ -176,4 +176,169 @@ class WorldTest {
         };
         assertThrows(IllegalArgumentException.class, () -> new World(walls, wrongWidth));
     }
+
+    @Test
+    void primitiveAccessorsMatchParticleView() {
+        World w = new World(
+                new boolean[][] { { false, false, false } },
+                new Particle[][] { { new Particle(2, 7), null, null } }
+        );
+
+        assertTrue(w.isOccupied(0, 0));
+        assertEquals(2, w.teamAt(0, 0));
+        assertEquals(7, w.energyAt(0, 0));
+
+        assertFalse(w.isOccupied(1, 0));
+        assertEquals(World.EMPTY, w.teamAt(1, 0));
+
+        w.setParticle(1, 0, 3, 4);
+        assertEquals(new Particle(3, 4), w.get(1, 0));
+
+        w.clear(0, 0);
+        assertNull(w.get(0, 0));
+        assertEquals(1, w.particleCount());
+        assertEquals(4, w.totalEnergy());
+    }
+
+    @Test
+    void setParticleRejectsValuesThatDoNotFitTheStorage() {
+        World w = new World(
+                new boolean[][] { { false } },
+                new Particle[][] { { null } }
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> w.setParticle(0, 0, -1, 5));
+        assertThrows(IllegalArgumentException.class, () -> w.setParticle(0, 0, World.MAX_TEAM_ID + 1, 5));
+        assertThrows(IllegalArgumentException.class, () -> w.setParticle(0, 0, 0, World.MAX_ENERGY + 1));
+    }
+
+    @Test
+    void changeLogRecordsEachWrittenCellOnce() {
+        World w = new World(new boolean[2][3], new Particle[2][3]);
+        assertEquals(0, w.changeCount());
+
+        w.setParticle(1, 0, 0, 5);
+        w.setParticle(1, 0, 0, 4);
+        w.clear(2, 1);
+
+        assertEquals(2, w.changeCount());
+        assertEquals(1, w.changedIndex(0));
+        assertEquals(5, w.changedIndex(1));
+
+        w.clearChanges();
+        assertEquals(0, w.changeCount());
+    }
+
+    @Test
+    void copySharesWallsButNotParticles() {
+        World original = new World(new boolean[2][2], new Particle[2][2]);
+        World copy = original.copy();
+
+        assertTrue(copy.sharesWallsWith(original));
+        copy.setParticle(0, 0, 1, 1);
+        assertNull(original.get(0, 0));
+    }
+
+    @Test
+    void nextOccupiedWalksParticlesInRowMajorOrder() {
+        // 10 x 10 so the index spans two 64-bit words
+        World w = new World(new boolean[10][10], new Particle[10][10]);
+        w.setParticle(3, 0, 0, 1);
+        w.setParticle(5, 6, 1, 1);   // index 65, second word
+        w.setParticle(9, 9, 0, 1);
+        w.setParticle(1, 2, 1, 1);
+        w.clear(3, 0);
+
+        assertEquals(21, w.nextOccupied(0));
+        assertEquals(65, w.nextOccupied(22));
+        assertEquals(65, w.nextOccupied(65));
+        assertEquals(99, w.nextOccupied(66));
+        assertEquals(-1, w.nextOccupied(100));
+    }
+
+    @Test
+    void countAndEnergyTotalsFollowEveryWrite() {
+        Particle[][] particles = new Particle[3][3];
+        particles[0][0] = new Particle(0, 4);
+        World w = new World(new boolean[3][3], particles);
+        assertEquals(1, w.particleCount());
+        assertEquals(4, w.totalEnergy());
+
+        w.setParticle(1, 1, 1, 6);      // new particle
+        w.setParticle(0, 0, 1, 2);      // conversion + energy change
+        assertEquals(2, w.particleCount());
+        assertEquals(8, w.totalEnergy());
+
+        w.clear(1, 1);
+        w.clear(2, 2);                  // already empty
+        assertEquals(1, w.particleCount());
+        assertEquals(2, w.totalEnergy());
+
+        World copy = w.copy();
+        copy.setParticle(2, 2, 0, 3);
+        assertEquals(2, copy.particleCount());
+        assertEquals(5, copy.totalEnergy());
+        assertEquals(1, w.particleCount());
+    }
+
+    @Test
+    void copyingChangedCellsKeepsTheIndexInSync() {
+        World front = new World(new boolean[2][4], new Particle[2][4]);
+        World back = front.copy();
+
+        front.setParticle(1, 0, 0, 5);
+        front.setParticle(2, 1, 1, 3);
+        back.copyChangedCellsFrom(front);
+        front.clearChanges();
+        front.clear(1, 0);
+        back.copyChangedCellsFrom(front);
+
+        assertEquals(1, back.particleCount());
+        assertEquals(3, back.totalEnergy());
+        assertEquals(6, back.nextOccupied(0));
+    }
+
+    @Test
+    void copyFromReplicatesParticlesTotalsAndChangeLog() {
+        World src = new World(new boolean[3][3], new Particle[3][3]);
+        World snapshot = src.copy();
+
+        src.setParticle(2, 0, 1, 7);
+        src.setParticle(0, 2, 0, -3);
+        snapshot.setParticle(1, 1, 0, 9);   // stale content, overwritten
+        snapshot.copyFrom(src);
+
+        assertEquals(new Particle(1, 7), snapshot.get(2, 0));
+        assertEquals(new Particle(0, -3), snapshot.get(0, 2));
+        assertNull(snapshot.get(1, 1));
+        assertEquals(2, snapshot.particleCount());
+        assertEquals(4, snapshot.totalEnergy());
+        assertEquals(2, snapshot.changeCount());
+        assertEquals(2, snapshot.changedIndex(0));
+        assertEquals(6, snapshot.changedIndex(1));
+
+        World other = new World(new boolean[3][3], new Particle[3][3]);
+        assertThrows(IllegalArgumentException.class, () -> other.copyFrom(src));
+    }
+
+    @Test
+    void logChangesFromMergesLogsWithoutCopyingCells() {
+        World src = new World(new boolean[2][3], new Particle[2][3]);
+        World merged = src.copy();
+
+        src.setParticle(1, 0, 0, 5);
+        merged.logChangesFrom(src);
+        src.clearChanges();
+        src.setParticle(1, 0, 0, 6);
+        src.setParticle(2, 1, 1, 3);
+        merged.logChangesFrom(src);
+
+        assertEquals(2, merged.changeCount());     // cell 1 logged once across both ticks
+        assertEquals(1, merged.changedIndex(0));
+        assertEquals(5, merged.changedIndex(1));
+        assertEquals(0, merged.particleCount());   // only the log, not the particles
+
+        World other = new World(new boolean[2][3], new Particle[2][3]);
+        assertThrows(IllegalArgumentException.class, () -> other.logChangesFrom(src));
+    }
 }
@@ -0,0 +1,66 @@
+package liquidwars.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedTimestepTest {
+
+    private static final long STEP = 10;
+
+    @Test
+    void runsOneStepPerPeriodAndCarriesTheRemainder() {
+        FixedTimestep ts = new FixedTimestep(STEP, 5);
+        ts.reset(0);
+
+        assertEquals(0, ts.advance(4));
+        assertEquals(6, ts.nanosUntilNextStep(4));
+        assertEquals(1, ts.advance(13));    // 13 elapsed: one step, 3 carried
+        assertEquals(0, ts.advance(19));
+        assertEquals(1, ts.advance(23));
+        assertEquals(7, ts.nanosUntilNextStep(23));
+    }
+
+    @Test
+    void lateTicksAreCaughtUpUpToTheCap() {
+        FixedTimestep ts = new FixedTimestep(STEP, 5);
+        ts.reset(0);
+
+        assertEquals(3, ts.advance(35));    // overran: catch up, nothing lost
+        assertEquals(1, ts.advance(40));
+
+        assertEquals(5, ts.advance(1_000)); // long stall: capped, the rest is dropped
+        assertEquals(0, ts.advance(1_005));
+        assertEquals(1, ts.advance(1_010));
+    }
+
+    @Test
+    void speedMultipliesTheStepsPerPeriod() {
+        FixedTimestep ts = new FixedTimestep(STEP, 5);
+        ts.reset(0);
+
+        ts.setSpeed(FixedTimestep.Speed.X4);
+        assertEquals(4, ts.advance(10));
+        assertEquals(2, ts.advance(15));
+        assertEquals(3, ts.nanosUntilNextStep(15));     // 2.5 real ns per step, rounded up
+
+        ts.setSpeed(FixedTimestep.Speed.X16);
+        assertEquals(16, ts.advance(25));
+        assertEquals(80, ts.advance(10_000));           // cap scales with the speed
+
+        ts.setSpeed(FixedTimestep.Speed.UNBOUNDED);
+        assertEquals(1, ts.advance(10_000));
+        assertEquals(1, ts.advance(10_000));
+        assertEquals(0, ts.nanosUntilNextStep(10_000));
+    }
+
+    @Test
+    void speedsCycleAndBadSettingsAreRejected() {
+        assertEquals(FixedTimestep.Speed.X4, FixedTimestep.Speed.X1.next());
+        assertEquals(FixedTimestep.Speed.X1, FixedTimestep.Speed.UNBOUNDED.next());
+
+        assertThrows(IllegalArgumentException.class, () -> new FixedTimestep(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new FixedTimestep(STEP, 0));
+        assertThrows(IllegalArgumentException.class, () -> new FixedTimestep(STEP, 1).setSpeed(null));
+    }
+}
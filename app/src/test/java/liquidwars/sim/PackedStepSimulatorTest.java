@@ -0,0 +1,98 @@
+package liquidwars.sim;
+
+import liquidwars.model.Particle;
+import liquidwars.model.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedStepSimulatorTest {
+
+    private static void assertSameCells(World expected, World actual, String context) {
+        for (int y = 0; y < expected.height(); y++) {
+            for (int x = 0; x < expected.width(); x++) {
+                assertEquals(expected.get(x, y), actual.get(x, y), context + " cell " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void matchesReferenceSimulatorOnRandomWorlds() {
+        Random rnd = new Random(11);
+
+        for (int round = 0; round < 10; round++) {
+            int w = 10 + rnd.nextInt(20);
+            int h = 6 + rnd.nextInt(12);
+            int teams = 2 + rnd.nextInt(3);
+
+            boolean[][] walls = new boolean[h][w];
+            Particle[][] parts = new Particle[h][w];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    walls[y][x] = rnd.nextInt(7) == 0;
+                    if (!walls[y][x] && rnd.nextInt(2) == 0) parts[y][x] = new Particle(rnd.nextInt(teams), rnd.nextInt(11));
+                }
+            }
+
+            // Arbitrary fields (not real distances) to reach every rule, ties included
+            Map<Integer, int[][]> grads = new java.util.HashMap<>();
+            for (int t = 0; t < teams; t++) {
+                int[][] g = new int[h][w];
+                for (int y = 0; y < h; y++) {
+                    for (int x = 0; x < w; x++) g[y][x] = rnd.nextInt(6);
+                }
+                grads.put(t, g);
+            }
+
+            World reference = new World(walls, parts);
+            World packed = new World(walls, parts);
+            StepSimulator ref = new StepSimulator();
+            PackedStepSimulator sim = new PackedStepSimulator();
+
+            for (int tick = 0; tick < 15; tick++) {
+                reference = ref.step(reference, grads);
+                packed = sim.step(packed, grads);
+                assertSameCells(reference, packed, "round " + round + " tick " + tick);
+            }
+        }
+    }
+
+    @Test
+    void arrayOverloadMatchesMapVersion() {
+        boolean[][] walls = new boolean[3][4];
+        Particle[][] parts = new Particle[3][4];
+        parts[1][1] = new Particle(0, 5);
+        parts[1][2] = new Particle(1, 1);
+
+        int[][] g0 = { { 3, 2, 1, 0 }, { 3, 2, 1, 0 }, { 3, 2, 1, 0 } };
+        int[][] g1 = { { 0, 1, 2, 3 }, { 0, 1, 2, 3 }, { 0, 1, 2, 3 } };
+
+        World viaMap = new World(walls, parts);
+        World viaArray = new World(walls, parts);
+        PackedStepSimulator sim = new PackedStepSimulator();
+
+        World nextMap = viaMap.copy();
+        sim.stepInto(viaMap, nextMap, Map.of(0, g0, 1, g1));
+        World nextArray = viaArray.copy();
+        sim.stepInto(viaArray, nextArray, new int[][][] { g0, g1 });
+
+        assertSameCells(nextMap, nextArray, "");
+        assertEquals(2, nextArray.particleCount());
+        assertEquals(6, nextArray.totalEnergy());
+    }
+
+    @Test
+    void missingGradientIsRejected() {
+        boolean[][] walls = new boolean[1][2];
+        Particle[][] parts = new Particle[1][2];
+        parts[0][0] = new Particle(1, 5);
+        World w = new World(walls, parts);
+        PackedStepSimulator sim = new PackedStepSimulator();
+
+        assertThrows(IllegalArgumentException.class, () -> sim.step(w, Map.of(0, new int[1][2])));
+        assertThrows(IllegalArgumentException.class, () -> sim.stepInto(w, w.copy(), new int[][][] { new int[1][2] }));
+    }
+}
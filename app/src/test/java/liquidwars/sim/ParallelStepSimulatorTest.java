@@ -0,0 +1,81 @@
+package liquidwars.sim;
+
+import liquidwars.model.Particle;
+import liquidwars.model.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelStepSimulatorTest {
+
+    @Test
+    void matchesReferenceForEveryThreadCountAndBandHeight() {
+        Random rnd = new Random(5);
+        int w = 37, h = 23, teams = 3;
+
+        boolean[][] walls = new boolean[h][w];
+        Particle[][] parts = new Particle[h][w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                walls[y][x] = rnd.nextInt(8) == 0;
+                if (!walls[y][x] && rnd.nextInt(2) == 0) parts[y][x] = new Particle(rnd.nextInt(teams), rnd.nextInt(11));
+            }
+        }
+        Map<Integer, int[][]> grads = new HashMap<>();
+        for (int t = 0; t < teams; t++) {
+            int[][] g = new int[h][w];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) g[y][x] = rnd.nextInt(6);
+            }
+            grads.put(t, g);
+        }
+
+        int[][] settings = { { 1, 0 }, { 1, 4 }, { 2, 1 }, { 3, 5 }, { 4, 0 }, { 4, 100 } };
+        for (int[] s : settings) {
+            StepSimulator ref = new StepSimulator();
+            ParallelStepSimulator par = new ParallelStepSimulator(s[0], s[1]);
+            World expected = new World(walls, parts);
+            World actual = new World(walls, parts);
+
+            for (int tick = 0; tick < 12; tick++) {
+                expected = ref.step(expected, grads);
+                actual = par.step(actual, grads);
+                for (int y = 0; y < h; y++) {
+                    for (int x = 0; x < w; x++) {
+                        assertEquals(expected.get(x, y), actual.get(x, y),
+                                "threads " + s[0] + " band " + s[1] + " tick " + tick + " cell " + x + "," + y);
+                    }
+                }
+            }
+            par.shutdown();
+        }
+    }
+
+    @Test
+    void bandHeightIsClampedToTheGrid() {
+        World w = new World(new boolean[5][4], new Particle[5][4]);
+        ParallelStepSimulator sim = new ParallelStepSimulator(2, 50);
+
+        sim.stepInto(w, w.copy(), new int[0][][]);
+
+        assertEquals(5, sim.bandRows());
+        sim.shutdown();
+    }
+
+    @Test
+    void missingGradientAndBadSettingsAreRejected() {
+        Particle[][] parts = new Particle[2][2];
+        parts[1][1] = new Particle(2, 3);
+        World w = new World(new boolean[2][2], parts);
+        ParallelStepSimulator sim = new ParallelStepSimulator(2, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> sim.step(w, Map.of(0, new int[2][2])));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelStepSimulator(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ParallelStepSimulator(1, -1));
+        sim.shutdown();
+    }
+}
@@ -0,0 +1,126 @@
+package liquidwars.sim;
+
+import liquidwars.model.Particle;
+import liquidwars.model.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationLoopTest {
+
+    @Test
+    void publishesASnapshotOfEveryTickUntilStopped() throws Exception {
+        World world = new World(new boolean[2][3], new Particle[2][3]);
+        AtomicInteger ticks = new AtomicInteger();
+
+        // Each tick writes its own number into cell (0,0), and only that cell
+        SimulationLoop loop = new SimulationLoop(() -> {
+            int n = ticks.incrementAndGet();
+            world.clearChanges();
+            world.setParticle(0, 0, 0, n % 100);
+        }, () -> world, 1_000_000L);
+
+        assertNull(loop.poll());
+        loop.start();
+        assertTrue(loop.isRunning());
+
+        long lastSeq = 0;
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (lastSeq < 20 && System.nanoTime() < deadline) {
+            Frame frame = loop.poll();
+            if (frame == null) {
+                Thread.sleep(1);
+                continue;
+            }
+            assertTrue(frame.seq() > lastSeq);
+            assertEquals(frame.seq() % 100, frame.world().energyAt(0, 0));
+            assertEquals(1, frame.world().changeCount());
+            lastSeq = frame.seq();
+        }
+        loop.stop();
+        assertFalse(loop.isRunning());
+        assertTrue(lastSeq >= 20, "only " + lastSeq + " frames in 5 s");
+
+        int stoppedAt = ticks.get();
+        Thread.sleep(20);
+        assertEquals(stoppedAt, ticks.get());
+    }
+
+    @Test
+    void badPeriodIsRejected() {
+        World world = new World(new boolean[1][1], new Particle[1][1]);
+        assertThrows(IllegalArgumentException.class, () -> new SimulationLoop(() -> { }, () -> world, 0));
+    }
+
+    @Test
+    void unboundedSpeedCapturesOncePerPeriodWithTheMergedChangeLog() throws Exception {
+        World world = new World(new boolean[2][3], new Particle[2][3]);
+        AtomicInteger ticks = new AtomicInteger();
+
+        // Tick n writes cell n % 6 only: a frame covering k ticks logs min(k, 6) cells
+        SimulationLoop loop = new SimulationLoop(() -> {
+            int n = ticks.incrementAndGet();
+            world.clearChanges();
+            world.setParticle((n % 6) % 3, (n % 6) / 3, 0, 1);
+        }, () -> world, 20_000_000L);
+        loop.setSpeed(FixedTimestep.Speed.UNBOUNDED);
+        loop.start();
+
+        int frames = 0;
+        long lastSeq = 0;
+        long t0 = System.nanoTime();
+        while (System.nanoTime() - t0 < 300_000_000L) {
+            Frame frame = loop.poll();
+            if (frame == null) {
+                Thread.sleep(1);
+                continue;
+            }
+            frames++;
+            if (frame.previousSeq() == lastSeq) {
+                assertEquals(Math.min(frame.seq() - lastSeq, 6), frame.world().changeCount());
+            }
+            lastSeq = frame.seq();
+        }
+        loop.stop();
+
+        assertTrue(frames >= 2, "only " + frames + " frames");
+        assertTrue(frames <= 300 / 20 + 2, frames + " frames in 300 ms at a 20 ms period");
+        assertTrue(ticks.get() > 10 * frames, ticks.get() + " ticks for " + frames + " frames");
+    }
+
+    @Test
+    void runEveryRunsTheTaskBetweenTicksOnTheSimulatedClock() throws Exception {
+        World world = new World(new boolean[1][1], new Particle[1][1]);
+        AtomicInteger ticks = new AtomicInteger();
+        StringBuffer seen = new StringBuffer();    // written on the simulation thread
+
+        SimulationLoop loop = new SimulationLoop(ticks::incrementAndGet, () -> world, 33_000_000L);
+        loop.runEvery(3, () -> {
+            // before tick n (n = 0, 3, 6...): n ticks have run, the clock reads n x 33 ms
+            assertEquals(ticks.get(), loop.clock().ticks());
+            seen.append(loop.clock().getAsLong()).append(' ');
+        });
+        loop.setSpeed(FixedTimestep.Speed.UNBOUNDED);
+        loop.start();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (ticks.get() < 10 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        loop.stop();
+
+        assertTrue(ticks.get() >= 10, "only " + ticks.get() + " ticks in 5 s");
+        assertTrue(seen.toString().startsWith("0 99 198 297 "), seen.toString());
+        assertEquals((ticks.get() + 2) / 3, seen.toString().split(" ").length);
+        assertThrows(IllegalStateException.class, () -> { loop.start(); loop.runEvery(3, () -> { }); });
+        loop.stop();
+    }
+
+    @Test
+    void badRunEveryIsRejected() {
+        World world = new World(new boolean[1][1], new Particle[1][1]);
+        SimulationLoop loop = new SimulationLoop(() -> { }, () -> world, 1_000_000L);
+        assertThrows(IllegalArgumentException.class, () -> loop.runEvery(0, () -> { }));
+    }
+}
@@ -0,0 +1,25 @@
+package liquidwars.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickClockTest {
+
+    @Test
+    void millisFollowTheTicks() {
+        TickClock clock = new TickClock(33);
+        assertEquals(0, clock.getAsLong());
+
+        for (int i = 0; i < 10; i++) clock.advance();
+
+        assertEquals(10, clock.ticks());
+        assertEquals(330, clock.getAsLong());
+    }
+
+    @Test
+    void tickLengthMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new TickClock(0));
+        assertThrows(IllegalArgumentException.class, () -> new TickClock(-33));
+    }
+}
@@ -0,0 +1,68 @@
+package liquidwars.sim;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripleBufferTest {
+
+    @Test
+    void consumerGetsOnlyTheLatestPublishedSlot() {
+        StringBuilder a = new StringBuilder("a"), b = new StringBuilder("b"), c = new StringBuilder("c");
+        TripleBuffer<StringBuilder> buf = new TripleBuffer<>(a, b, c);
+
+        assertFalse(buf.acquire());
+        assertSame(a, buf.front());
+
+        buf.back().setLength(0);
+        buf.back().append("one");
+        buf.publish();
+        buf.back().setLength(0);
+        buf.back().append("two");
+        buf.publish();                  // overwrites "one", never read
+
+        assertTrue(buf.acquire());
+        assertEquals("two", buf.front().toString());
+        assertFalse(buf.acquire());     // nothing new
+        assertEquals("two", buf.front().toString());
+    }
+
+    @Test
+    void producerNeverWritesTheSlotTheConsumerHolds() {
+        TripleBuffer<long[]> buf = new TripleBuffer<>(new long[2], new long[2], new long[2]);
+        int count = 200_000;
+
+        Thread producer = new Thread(() -> {
+            for (long v = 1; v <= count; v++) {
+                long[] slot = buf.back();
+                slot[0] = v;
+                slot[1] = v;            // a torn read would see slot[0] != slot[1]
+                buf.publish();
+            }
+        });
+        AtomicLong last = new AtomicLong();
+        producer.start();
+
+        while (last.get() < count) {
+            if (!buf.acquire()) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long[] slot = buf.front();
+            long v = slot[0];
+            assertEquals(v, slot[1]);
+            assertTrue(v > last.get(), "values must only move forward");
+            last.set(v);
+        }
+        assertEquals(count, last.get());
+    }
+
+    @Test
+    void slotsMustBeDistinct() {
+        Object o = new Object();
+        assertThrows(IllegalArgumentException.class, () -> new TripleBuffer<>(o, o, new Object()));
+        assertThrows(IllegalArgumentException.class, () -> new TripleBuffer<>(o, null, new Object()));
+    }
+}
@@ -104,4 +104,13 @@ public class ColourUtilTest {
         assertEquals(255, (int) m.invoke(null, 999));
         assertEquals(123, (int) m.invoke(null, 123));
     }
+
+    @Test
+    void paletteRGB_MatchesParticleRGBForEveryStorableValue() {
+        for (int team = 0; team <= 127; team++) {
+            for (int energy = -128; energy <= 127; energy++) {
+                assertEquals(ColourUtil.particleRGB(team, energy), ColourUtil.paletteRGB(team, energy));
+            }
+        }
+    }
 }
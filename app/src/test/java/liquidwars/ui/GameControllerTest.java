@@ -1,9 +1,17 @@
 package liquidwars.ui;
 
+import liquidwars.algo.BitboardGradientComputer;
+import liquidwars.algo.GradientComputer;
 import liquidwars.model.Particle;
+import liquidwars.model.TickStats;
 import liquidwars.model.World;
+import liquidwars.sim.ParallelStepSimulator;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class GameControllerTest {
@@ -70,4 +78,228 @@ class GameControllerTest {
         assertEquals(0, w2.get(1, 0).teamId());
         assertEquals(5, w2.get(1, 0).energy());
     }
+
+    @Test
+    void tickReusesGradientsWhileTargetsStayStill() {
+        int w = 6, h = 4;
+        boolean[][] walls = new boolean[h][w];
+        World world = new World(walls, new Particle[h][w]);
+        GameController c = new GameController(world, walls, w, h);
+
+        // both teams aim at the same cell -> one shared field
+        c.setTarget(0, 3, 2);
+        c.setTarget(1, 3, 2);
+
+        c.tick();
+        c.tick();
+
+        assertEquals(1, c.getGradientCache().misses());
+        assertEquals(3, c.getGradientCache().hits());
+    }
+
+    @Test
+    void statsFollowEveryTick() {
+        int w = 3, h = 1;
+        boolean[][] walls = new boolean[h][w];
+        Particle[][] parts = new Particle[h][w];
+        parts[0][0] = new Particle(0, 5);
+        GameController c = new GameController(new World(walls, parts), walls, w, h);
+        c.setTarget(0, 2, 0);
+
+        TickStats before = c.getStats();
+        assertEquals(0, before.tick());
+        assertEquals(0, before.centroidX(0));
+
+        c.tick();
+
+        TickStats after = c.getStats();
+        assertEquals(1, after.tick());
+        assertEquals(1, after.count(0));
+        assertEquals(1, after.centroidX(0));
+        assertEquals(1, after.minX(0));
+        assertEquals(0, after.count(1));
+    }
+
+    @Test
+    void bitboardSolverPlaysTheSameMatch() {
+        int w = 70, h = 20;
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 3; y < h - 3; y++) walls[y][w / 2] = true;
+        Particle[][] parts = new Particle[h][w];
+        Random rnd = new Random(3);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (!walls[y][x] && rnd.nextInt(3) == 0) parts[y][x] = new Particle(x < w / 2 ? 0 : 1, 5);
+            }
+        }
+        GameController bfs = new GameController(new World(walls, parts), walls, w, h, 1);
+        GameController bitboard = new GameController(new World(walls, parts), walls, w, h, 1, BitboardGradientComputer::new);
+
+        for (int t = 0; t < 60; t++) {
+            for (GameController c : new GameController[] { bfs, bitboard }) {
+                c.setTarget(0, 60 - t / 2, 1 + t % (h - 2));
+                c.setTarget(1, 5 + t / 3, h - 2);
+                c.tick();
+            }
+        }
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                assertEquals(bfs.getWorld().teamAt(x, y), bitboard.getWorld().teamAt(x, y), "team at " + x + "," + y);
+                assertEquals(bfs.getWorld().energyAt(x, y), bitboard.getWorld().energyAt(x, y), "energy at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void parallelSimulatorPlaysTheSameMatchAndStopsWithTheController() throws InterruptedException {
+        int w = 70, h = 20;
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 3; y < h - 3; y++) walls[y][w / 2] = true;
+        Particle[][] parts = new Particle[h][w];
+        Random rnd = new Random(5);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (!walls[y][x] && rnd.nextInt(3) == 0) parts[y][x] = new Particle(x < w / 2 ? 0 : 1, 5);
+            }
+        }
+        Set<Thread> before = threadsNamed("ForkJoinPool-");
+        GameController packed = new GameController(new World(walls, parts), walls, w, h, 1);
+        GameController parallel = new GameController(new World(walls, parts), walls, w, h, 1,
+                GradientComputer::new, new ParallelStepSimulator(2, 3));
+
+        for (int t = 0; t < 60; t++) {
+            for (GameController c : new GameController[] { packed, parallel }) {
+                c.setTarget(0, 60 - t / 2, 1 + t % (h - 2));
+                c.setTarget(1, 5 + t / 3, h - 2);
+                c.tick();
+            }
+        }
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                assertEquals(packed.getWorld().teamAt(x, y), parallel.getWorld().teamAt(x, y), "team at " + x + "," + y);
+                assertEquals(packed.getWorld().energyAt(x, y), parallel.getWorld().energyAt(x, y), "energy at " + x + "," + y);
+            }
+        }
+
+        Set<Thread> started = threadsNamed("ForkJoinPool-");
+        started.removeAll(before);
+        assertFalse(started.isEmpty(), "the step pool was never used");
+        parallel.shutdown();
+        for (Thread worker : started) {
+            worker.join(5_000);
+            assertFalse(worker.isAlive(), worker.getName() + " still running after shutdown()");
+        }
+    }
+
+    @Test
+    void gradientBudgetStillLeadsParticlesToTheTarget() {
+        // 1 row, 6 cols, particle at (0,0), target at (5,0), one cell visit per tick:
+        // the field fills in one cell per tick, and the particle ends on the target
+        int w = 6, h = 1;
+        boolean[][] walls = new boolean[h][w];
+        Particle[][] parts = new Particle[h][w];
+        parts[0][0] = new Particle(0, 5);
+        GameController c = GameController.withGradientBudget(new World(walls, parts), walls, w, h, 1);
+        c.setTarget(0, 5, 0);
+        c.setTarget(1, 5, 0);
+
+        int reachedAt = -1;
+        for (int t = 1; t <= 12 && reachedAt < 0; t++) {
+            c.tick();
+            if (c.getWorld().teamAt(5, 0) == 0) reachedAt = t;
+        }
+
+        assertTrue(reachedAt > 0, "particle never reached the target");
+        assertEquals(1, c.getStats().count(0));
+        assertEquals(0, c.getGradientCache().misses());
+    }
+
+    @Test
+    void pipelinedGradientsWithoutStalenessPlayTheSameMatch() {
+        int w = 70, h = 20;
+        boolean[][] walls = new boolean[h][w];
+        for (int y = 3; y < h - 3; y++) walls[y][w / 2] = true;
+        Particle[][] parts = new Particle[h][w];
+        Random rnd = new Random(4);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                if (!walls[y][x] && rnd.nextInt(3) == 0) parts[y][x] = new Particle(x < w / 2 ? 0 : 1, 5);
+            }
+        }
+        GameController direct = new GameController(new World(walls, parts), walls, w, h, 1);
+        GameController pipelined = GameController.withPipelinedGradients(new World(walls, parts), walls, w, h, 2, 0);
+
+        for (int t = 0; t < 60; t++) {
+            for (GameController c : new GameController[] { direct, pipelined }) {
+                c.setTarget(0, 60 - t / 2, 1 + t % (h - 2));
+                c.setTarget(1, 5 + t / 3, h - 2);
+                c.tick();
+            }
+        }
+        pipelined.shutdown();
+
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                assertEquals(direct.getWorld().teamAt(x, y), pipelined.getWorld().teamAt(x, y), "team at " + x + "," + y);
+                assertEquals(direct.getWorld().energyAt(x, y), pipelined.getWorld().energyAt(x, y), "energy at " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void shutdownEndsTheGradientThreads() throws InterruptedException {
+        int w = 30, h = 10;
+        boolean[][] walls = new boolean[h][w];
+        Particle[][] parts = new Particle[h][w];
+        parts[5][5] = new Particle(0, 5);
+        parts[5][25] = new Particle(1, 5);
+        Set<Thread> before = threadsNamed("ForkJoinPool-");
+        GameController c = new GameController(new World(walls, parts), walls, w, h, 2);
+
+        for (int t = 0; t < 10; t++) {
+            c.setTarget(0, t, 1);       // both fields missing every tick: computed on the pool
+            c.setTarget(1, w - 1 - t, 8);
+            c.tick();
+        }
+        Set<Thread> started = threadsNamed("ForkJoinPool-");
+        started.removeAll(before);
+        assertFalse(started.isEmpty(), "the pool was never used");
+        c.shutdown();
+
+        for (Thread worker : started) {
+            worker.join(5_000);
+            assertFalse(worker.isAlive(), worker.getName() + " still running after shutdown()");
+        }
+    }
+
+    static Set<Thread> threadsNamed(String prefix) {
+        Set<Thread> found = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith(prefix)) found.add(t);
+        }
+        return found;
+    }
+
+    @Test
+    void shutdownEndsThePipelineWorker() {
+        int w = 20, h = 8;
+        boolean[][] walls = new boolean[h][w];
+        Particle[][] parts = new Particle[h][w];
+        parts[4][4] = new Particle(0, 5);
+        Set<Thread> before = threadsNamed("gradient-pipeline");
+        GameController c = GameController.withPipelinedGradients(new World(walls, parts), walls, w, h, 1, 1);
+        Set<Thread> started = threadsNamed("gradient-pipeline");
+        started.removeAll(before);
+
+        for (int t = 0; t < 5; t++) {
+            c.setTarget(0, t, 2);
+            c.tick();
+        }
+        c.shutdown();
+
+        assertEquals(1, started.size());
+        for (Thread worker : started) assertFalse(worker.isAlive(), "pipeline worker still running after shutdown()");
+    }
 }
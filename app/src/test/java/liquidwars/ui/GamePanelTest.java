@@ -2,6 +2,7 @@ package liquidwars.ui;
 
 import liquidwars.model.Particle;
 import liquidwars.model.World;
+import liquidwars.sim.FixedTimestep;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -36,6 +37,7 @@ class GamePanelTest {
     @Test
     void checkGameOver_AllTeam0Wins() throws Exception {
         fillWorldWithTeam(0);
+        panel = new GamePanel(controller, W, H, CELL, true);     // starts from a snapshot of the filled world
 
         invokePrivate(panel, "checkGameOver");
 
@@ -45,12 +47,32 @@ class GamePanelTest {
     @Test
     void checkGameOver_AllTeam1Wins() throws Exception {
         fillWorldWithTeam(1);
+        panel = new GamePanel(controller, W, H, CELL, true);     // starts from a snapshot of the filled world
 
         invokePrivate(panel, "checkGameOver");
 
         assertTrue((boolean) getPrivateField(panel, "gameOver"));
     }
 
+    @Test
+    void panelStartsFromASnapshotOfTheControllerWorld() throws Exception {
+        fillWorldWithTeam(0);     // after the panel was built: the panel must not see it
+
+        invokePrivate(panel, "checkGameOver");
+
+        assertNotSame(controller.getWorld(), getPrivateField(panel, "shownWorld"));
+        assertFalse((boolean) getPrivateField(panel, "gameOver"));
+    }
+
+    @Test
+    void simulationSpeedCanBeChangedBeforeTheLoopStarts() {
+        assertEquals(FixedTimestep.Speed.X1, panel.getSimulationSpeed());
+
+        panel.setSimulationSpeed(FixedTimestep.Speed.X16);
+
+        assertEquals(FixedTimestep.Speed.X16, panel.getSimulationSpeed());
+    }
+
     // helpers
 
     private void fillWorldWithTeam(int teamId) {
@@ -1,7 +1,9 @@
 package liquidwars.ui;
 
+import liquidwars.algo.GradientComputer;
 import liquidwars.model.Particle;
 import liquidwars.model.World;
+import liquidwars.sim.ParallelStepSimulator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -124,6 +126,27 @@ class MultiplayerGameControllerTest {
         assertDoesNotThrow(() -> controller.tick());
     }
 
+    @Test
+    void tick_WithParallelSimulatorMatchesTheDefaultEngine() {
+        MultiplayerGameController parallel = new MultiplayerGameController(initialWorld.copy(), walls, WIDTH, HEIGHT, 1,
+                GradientComputer::new, new ParallelStepSimulator(2, 8));
+        controller.setTarget(0, 100, 100);
+        parallel.setTarget(0, 100, 100);
+
+        for (int t = 0; t < 30; t++) {
+            controller.tick();
+            parallel.tick();
+        }
+        parallel.shutdown();
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(controller.getWorld().teamAt(x, y), parallel.getWorld().teamAt(x, y), "team at " + x + "," + y);
+                assertEquals(controller.getWorld().energyAt(x, y), parallel.getWorld().energyAt(x, y), "energy at " + x + "," + y);
+            }
+        }
+    }
+
     @Test
     void setTarget_WorksForAllTeams() {
         controller.setTarget(0, 15, 15);
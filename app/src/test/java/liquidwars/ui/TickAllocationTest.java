@@ -0,0 +1,262 @@
+package liquidwars.ui;
+
+import liquidwars.algo.BitboardGradientComputer;
+import liquidwars.algo.GradientCache;
+import liquidwars.algo.GradientComputer;
+import liquidwars.algo.TeamGradients;
+import liquidwars.model.DoubleBufferedWorld;
+import liquidwars.model.Particle;
+import liquidwars.model.TickStats;
+import liquidwars.model.World;
+import liquidwars.sim.PackedStepSimulator;
+import liquidwars.sim.TripleBuffer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budget of a warm tick, per phase (gradients, step, stats) and for the whole
+ * GameController / MultiplayerGameController tick(), read from the JVM's per-thread allocation
+ * counters. The budget is zero: once buffers have grown, a tick must not allocate, even when
+ * targets move (gradient cache misses and evictions included).
+ *
+ * Counted threads: the test thread plus the ForkJoinPool workers started by the measured code
+ * (the gradients of several teams are computed on a pool); idle pools of earlier tests are ignored.
+ * The result is the best of a few windows: an allocation made by the tick shows in every window,
+ * while one-off JVM work (deoptimization, pool housekeeping) only shows in one.
+ */
+class TickAllocationTest {
+
+    private static final long BYTES_PER_TICK_BUDGET = 0;
+    private static final int WARMUP_TICKS = 2000;
+    private static final int MEASURED_TICKS = 300;
+    private static final int WINDOWS = 3;
+
+    private static final int W = 120;
+    private static final int H = 80;
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void allocationCountersAvailable() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private static Set<Thread> poolWorkers() {
+        Set<Thread> workers = new HashSet<>();
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("ForkJoinPool-") || t.getName().equals("gradient-pipeline")) workers.add(t);
+        }
+        return workers;
+    }
+
+    // This thread and the pool workers started since 'before' (listing threads allocates: done once)
+    private static long[] countedThreads(Set<Thread> before) {
+        Set<Thread> started = poolWorkers();
+        started.removeAll(before);
+        long[] ids = new long[started.size() + 1];
+        int n = 0;
+        ids[n++] = Thread.currentThread().getId();
+        for (Thread t : started) ids[n++] = t.getId();
+        return ids;
+    }
+
+    // Per-id reads return a primitive: nothing allocated while counting
+    private static long allocatedBytes(long[] ids) {
+        long sum = 0;
+        for (long id : ids) {
+            long b = threads.getThreadAllocatedBytes(id);
+            if (b > 0) sum += b;
+        }
+        return sum;
+    }
+
+    private static double bytesPerTick(Runnable tick) {
+        return bytesPerTick(poolWorkers(), tick);
+    }
+
+    // 'existing': workers not to count (taken before the code under test started its own)
+    private static double bytesPerTick(Set<Thread> existing, Runnable tick) {
+        for (int i = 0; i < WARMUP_TICKS; i++) tick.run();
+
+        long[] ids = countedThreads(existing);
+        long best = Long.MAX_VALUE;
+        for (int window = 0; window < WINDOWS; window++) {
+            long before = allocatedBytes(ids);
+            for (int i = 0; i < MEASURED_TICKS; i++) tick.run();
+            long after = allocatedBytes(ids);
+            best = Math.min(best, after - before);
+        }
+        return (double) best / MEASURED_TICKS;
+    }
+
+    private static boolean[][] walls() {
+        boolean[][] walls = new boolean[H][W];
+        for (int x = 0; x < W; x++) walls[0][x] = walls[H - 1][x] = true;
+        for (int y = 0; y < H; y++) walls[y][0] = walls[y][W - 1] = true;
+        for (int y = H / 4; y < 3 * H / 4; y++) walls[y][W / 2] = true;
+        return walls;
+    }
+
+    // 'teams' columns of particles, one team each, on a third of the free cells
+    private static World world(boolean[][] walls, int teams) {
+        Particle[][] parts = new Particle[H][W];
+        Random rnd = new Random(5);
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                if (!walls[y][x] && rnd.nextInt(3) == 0) parts[y][x] = new Particle(x * teams / W, 5);
+            }
+        }
+        return new World(walls, parts);
+    }
+
+    // Target of 'team' at tick 'i': moves every 5 ticks, over more cells than the cache holds
+    private static int targetX(int team, int i) {
+        return 2 + (i / 5 * 7 + team * 31) % (W / 2 - 4);
+    }
+
+    private static int targetY(int team, int i) {
+        return 2 + (i / 5 * 3 + team * 17) % (H - 4);
+    }
+
+    @Test
+    void gradientPhaseAllocatesNothingWhenWarm() {
+        boolean[][] walls = walls();
+        for (int threadCount : new int[] { 1, 4 }) {
+            TeamGradients gradients = new TeamGradients(4, new GradientCache(), GradientComputer::new, threadCount);
+            int[] cells = new int[4];
+            int[] tick = new int[1];
+
+            double perTick = bytesPerTick(() -> {
+                for (int t = 0; t < 4; t++) cells[t] = targetY(t, tick[0]) * W + targetX(t, tick[0]);
+                gradients.update(walls, cells);
+                tick[0]++;
+            });
+            gradients.shutdown();
+            assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "gradients with " + threadCount + " thread(s): " + perTick + " bytes/tick");
+        }
+    }
+
+    @Test
+    void bitboardGradientPhaseAllocatesNothingWhenWarm() {
+        boolean[][] walls = walls();
+        TeamGradients gradients = new TeamGradients(4, new GradientCache(), BitboardGradientComputer::new, 1);
+        int[] cells = new int[4];
+        int[] tick = new int[1];
+
+        double perTick = bytesPerTick(() -> {
+            for (int t = 0; t < 4; t++) cells[t] = targetY(t, tick[0]) * W + targetX(t, tick[0]);
+            gradients.update(walls, cells);
+            tick[0]++;
+        });
+        gradients.shutdown();
+        assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "bitboard gradients: " + perTick + " bytes/tick");
+    }
+
+    @Test
+    void stepPhaseAllocatesNothingWhenWarm() {
+        boolean[][] walls = walls();
+        GradientComputer computer = new GradientComputer();
+        int[][][] fields = new int[4][H][W];
+        for (int t = 0; t < 4; t++) computer.computeInto(walls, new int[] { (H / 2) * W + (t * W / 4 + W / 8) }, fields[t]);
+
+        DoubleBufferedWorld buffers = new DoubleBufferedWorld(world(walls, 4));
+        PackedStepSimulator simulator = new PackedStepSimulator();
+
+        double perTick = bytesPerTick(() -> {
+            World next = buffers.prepareBack();
+            simulator.stepInto(buffers.front(), next, fields);
+            buffers.swap();
+        });
+        assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "step: " + perTick + " bytes/tick");
+    }
+
+    @Test
+    void statsPhaseAllocatesNothingWhenWarm() {
+        World world = world(walls(), 4);
+        TripleBuffer<TickStats> stats = new TripleBuffer<>(new TickStats(), new TickStats(), new TickStats());
+        long[] tick = new long[1];
+
+        double perTick = bytesPerTick(() -> {
+            stats.back().capture(world, tick[0]++);
+            stats.publish();
+            stats.acquire();
+            assertEquals(4, stats.front().teamsAlive());
+        });
+        assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "stats: " + perTick + " bytes/tick");
+    }
+
+    @Test
+    void twoTeamControllerTickAllocatesNothingWhenWarm() {
+        boolean[][] walls = walls();
+        for (int threadCount : new int[] { 1, 2 }) {
+            GameController c = new GameController(world(walls, 2), walls, W, H, threadCount);
+            int[] tick = new int[1];
+
+            double perTick = bytesPerTick(() -> {
+                c.setTarget(0, targetX(0, tick[0]), targetY(0, tick[0]));
+                c.setTarget(1, W - 1 - targetX(1, tick[0]), targetY(1, tick[0]));
+                c.tick();
+                tick[0]++;
+            });
+            assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "GameController.tick with " + threadCount + " thread(s): " + perTick + " bytes/tick");
+            assertEquals(WARMUP_TICKS + WINDOWS * MEASURED_TICKS, c.getPhaseTimes().ticks());
+        }
+    }
+
+    @Test
+    void fourTeamControllerTickAllocatesNothingWhenWarm() {
+        boolean[][] walls = walls();
+        for (int threadCount : new int[] { 1, 4 }) {
+            MultiplayerGameController c = new MultiplayerGameController(world(walls, 4), walls, W, H, threadCount);
+            int[] tick = new int[1];
+
+            double perTick = bytesPerTick(() -> {
+                for (int t = 0; t < 4; t++) c.setTarget(t, targetX(t, tick[0]) + (t % 2) * (W / 2 - 2), targetY(t, tick[0]));
+                c.tick();
+                tick[0]++;
+            });
+            assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "MultiplayerGameController.tick with " + threadCount + " thread(s): " + perTick + " bytes/tick");
+        }
+    }
+
+    @Test
+    void budgetedControllerTickAllocatesNothingWhenWarm() {
+        boolean[][] walls = walls();
+        MultiplayerGameController c = MultiplayerGameController.withGradientBudget(world(walls, 4), walls, W, H, 1000);
+        int[] tick = new int[1];
+
+        double perTick = bytesPerTick(() -> {
+            for (int t = 0; t < 4; t++) c.setTarget(t, targetX(t, tick[0]) + (t % 2) * (W / 2 - 2), targetY(t, tick[0]));
+            c.tick();
+            tick[0]++;
+        });
+        assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "budgeted MultiplayerGameController.tick: " + perTick + " bytes/tick");
+    }
+
+    @Test
+    void pipelinedControllerTickAllocatesNothingWhenWarm() {
+        boolean[][] walls = walls();
+        Set<Thread> existing = poolWorkers();
+        MultiplayerGameController c = MultiplayerGameController.withPipelinedGradients(world(walls, 4), walls, W, H, 2, 1);
+        int[] tick = new int[1];
+
+        double perTick = bytesPerTick(existing, () -> {
+            for (int t = 0; t < 4; t++) c.setTarget(t, targetX(t, tick[0]) + (t % 2) * (W / 2 - 2), targetY(t, tick[0]));
+            c.tick();
+            tick[0]++;
+        });
+        c.shutdown();
+        assertTrue(perTick <= BYTES_PER_TICK_BUDGET, "pipelined MultiplayerGameController.tick: " + perTick + " bytes/tick");
+    }
+}
@@ -0,0 +1,128 @@
+package liquidwars.ui;
+
+import liquidwars.model.DoubleBufferedWorld;
+import liquidwars.model.Particle;
+import liquidwars.model.World;
+import liquidwars.sim.PackedStepSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldRendererTest {
+
+    // The per-cell colour rule the panels used before WorldRenderer
+    private static int expectedRGB(World w, int x, int y) {
+        if (w.isWall(x, y)) return 0x202020;
+        if (!w.isOccupied(x, y)) return 0x000000;
+        return ColourUtil.particleRGB(w.teamAt(x, y), w.energyAt(x, y));
+    }
+
+    @Test
+    void renderMatchesThePerCellColours() {
+        Random rnd = new Random(9);
+        int W = 30, H = 20;
+        boolean[][] walls = new boolean[H][W];
+        Particle[][] parts = new Particle[H][W];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                walls[y][x] = rnd.nextInt(6) == 0;
+                if (!walls[y][x] && rnd.nextBoolean()) parts[y][x] = new Particle(rnd.nextInt(4), rnd.nextInt(11));
+            }
+        }
+        World world = new World(walls, parts);
+        WorldRenderer renderer = new WorldRenderer(world);
+
+        renderer.render(world);
+        // Particles leave: their cells must go back to the static layer
+        world.clear(0, 0);
+        world.clear(5, 7);
+        renderer.render(world);
+
+        BufferedImage img = renderer.image();
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                assertEquals(expectedRGB(world, x, y), img.getRGB(x, y) & 0xFFFFFF, "cell " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void worldOfAnotherSizeIsRejected() {
+        WorldRenderer renderer = new WorldRenderer(new World(new boolean[2][3], new Particle[2][3]));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> renderer.render(new World(new boolean[3][3], new Particle[3][3])));
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFullRedrawAfterEveryTick() {
+        Random rnd = new Random(4);
+        int W = 41, H = 27;
+        boolean[][] walls = new boolean[H][W];
+        Particle[][] parts = new Particle[H][W];
+        int[][][] grads = new int[2][H][W];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                walls[y][x] = rnd.nextInt(9) == 0;
+                if (!walls[y][x] && x < 8) parts[y][x] = new Particle(0, 5);
+                if (!walls[y][x] && x > W - 9) parts[y][x] = new Particle(1, 5);
+                grads[0][y][x] = W - x;
+                grads[1][y][x] = x;
+            }
+        }
+        DoubleBufferedWorld buffers = new DoubleBufferedWorld(new World(walls, parts));
+        PackedStepSimulator sim = new PackedStepSimulator();
+        WorldRenderer incremental = new WorldRenderer(buffers.front(), 8);
+        List<int[]> regions = new ArrayList<>();
+        incremental.update(buffers.front(), (x, y, w, h) -> regions.add(new int[] { x, y, w, h }));
+        assertEquals(1, regions.size());   // first update = whole grid
+
+        for (int tick = 0; tick < 25; tick++) {
+            World next = buffers.prepareBack();
+            sim.stepInto(buffers.front(), next, grads);
+            buffers.swap();
+            World world = buffers.front();
+
+            incremental.markChanged(world);
+            regions.clear();
+            incremental.update(world, (x, y, w, h) -> regions.add(new int[] { x, y, w, h }));
+
+            WorldRenderer full = new WorldRenderer(world);
+            full.render(world);
+            for (int y = 0; y < H; y++) {
+                for (int x = 0; x < W; x++) {
+                    assertEquals(full.image().getRGB(x, y), incremental.image().getRGB(x, y), "tick " + tick + " cell " + x + "," + y);
+                }
+            }
+
+            // Every changed cell lies in a reported region
+            for (int k = 0; k < world.changeCount(); k++) {
+                int cx = world.changedIndex(k) % W;
+                int cy = world.changedIndex(k) / W;
+                assertTrue(regions.stream().anyMatch(r -> cx >= r[0] && cx < r[0] + r[2] && cy >= r[1] && cy < r[1] + r[3]));
+            }
+            assertEquals(0, incremental.dirtyTileCount());
+        }
+    }
+
+    @Test
+    void onlyTilesWithChangesAreMarked() {
+        World world = new World(new boolean[16][32], new Particle[16][32]);
+        WorldRenderer renderer = new WorldRenderer(world, 8);   // 4 x 2 tiles
+        renderer.render(world);
+
+        world.setParticle(1, 1, 0, 5);      // tile (0,0)
+        world.setParticle(2, 3, 0, 5);      // tile (0,0) again
+        world.setParticle(30, 15, 1, 5);    // tile (3,1)
+        renderer.markChanged(world);
+        assertEquals(2, renderer.dirtyTileCount());
+
+        renderer.markAll();
+        assertEquals(8, renderer.dirtyTileCount());
+    }
+}